@@ -0,0 +1,125 @@
+package com.aarvee.crm.config;
+
+import com.aarvee.crm.dto.PageResponse;
+import com.aarvee.crm.entity.LeadExtension;
+import com.aarvee.crm.entity.RawJson;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snake_case JSON for {@link LeadExtension} with the application's Jackson setup
+ * ({@link JacksonConfig} plus the spring.jackson settings in application.yml): one lead,
+ * a 25-row list page, and binding a create request body.
+ * <p>
+ * {@code details=large} gives each lead loan details the size of the biggest real ones
+ * (about 16 KB of business details: a GST filing history), {@code small} a few fields.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LeadJsonBenchmark {
+
+    private static final int PAGE_SIZE = 25;
+
+    @Param({"small", "large"})
+    public String details;
+
+    private ObjectWriter leadWriter;
+    private ObjectWriter pageWriter;
+    private ObjectReader leadReader;
+    private LeadExtension lead;
+    private PageResponse<LeadExtension> page;
+    private String requestBody;
+
+    @Setup
+    public void setUp() throws Exception {
+        Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder();
+        new JacksonConfig().jsonCustomizer().customize(builder);
+        ObjectMapper mapper = builder.timeZone(TimeZone.getTimeZone("UTC")).build();
+
+        boolean large = "large".equals(details);
+        List<LeadExtension> leads = new ArrayList<>();
+        for (int i = 1; i <= PAGE_SIZE; i++) {
+            leads.add(lead(i, large));
+        }
+        lead = leads.get(0);
+        page = new PageResponse<>(leads, 500_000L, null, "estimated");
+
+        leadWriter = mapper.writerFor(LeadExtension.class);
+        pageWriter = mapper.writerFor(mapper.getTypeFactory().constructParametricType(PageResponse.class, LeadExtension.class));
+        leadReader = mapper.readerFor(LeadExtension.class);
+        requestBody = leadWriter.writeValueAsString(lead(0, large));
+    }
+
+    @Benchmark
+    public byte[] serializeLead() throws Exception {
+        return leadWriter.writeValueAsBytes(lead);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return pageWriter.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public LeadExtension deserializeLead() throws Exception {
+        return leadReader.readValue(requestBody);
+    }
+
+    private static LeadExtension lead(long id, boolean largeDetails) {
+        LeadExtension lead = new LeadExtension();
+        lead.setId(id == 0 ? null : id);
+        lead.setLeadNumber(String.format("LEAD-20260215-%05d", id));
+        lead.setCustomerName("Customer " + id);
+        lead.setContactNumber("98" + String.format("%08d", id));
+        lead.setProduct("Business Loan");
+        lead.setLoanAmountRequired(new BigDecimal("2500000.00"));
+        lead.setLocation("Pune, MH");
+        lead.setLeadReferredBy("Branch walk-in");
+        lead.setShortDescription("Working capital for a textile unit, existing customer of a private bank");
+        lead.setLeadStatus("contacted");
+        lead.setVersion(3L);
+        lead.setCreatedAt(LocalDateTime.of(2026, 2, 15, 9, 30));
+        lead.setUpdatedAt(LocalDateTime.of(2026, 2, 16, 11, 5));
+        lead.setBusinessDetails(new RawJson(businessDetails(largeDetails ? 150 : 2)));
+        lead.setPropertyDetails(new RawJson("{\"type_of_property\": \"Flat\", \"is_new_purchase\": true,"
+            + " \"classification_of_property\": \"Residential\", \"market_value\": 8500000.00}"));
+        return lead;
+    }
+
+    // Shaped like jsonb output: spaces after separators, amounts with scale
+    private static String businessDetails(int filings) {
+        StringBuilder json = new StringBuilder("{\"gst\": \"27ABCDE1234F1Z5\", \"type_of_industry\": \"Textiles\","
+            + " \"type_of_employment\": \"Self Employed\", \"constitution\": \"Partnership\", \"filings\": [");
+        for (int i = 1; i <= filings; i++) {
+            json.append(i > 1 ? ", " : "")
+                .append("{\"ok\": true, \"note\": \"Filed on time with no remarks ").append(i)
+                .append("\", \"year\": ").append(2000 + i / 4)
+                .append(", \"amount\": ").append(1000 * i).append(".50, \"quarter\": ").append(1 + i % 4).append('}');
+        }
+        return json.append("]}").toString();
+    }
+}
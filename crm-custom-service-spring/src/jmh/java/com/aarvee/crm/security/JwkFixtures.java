@@ -0,0 +1,84 @@
+package com.aarvee.crm.security;
+
+import io.jsonwebtoken.Jwts;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Keys and tokens shaped like Supabase's: ES256 (P-256) signing keys published as JWKs.
+ */
+final class JwkFixtures {
+
+    private JwkFixtures() {
+        // utility
+    }
+
+    static KeyPair ecKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        return generator.generateKeyPair();
+    }
+
+    static KeyPair rsaKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return generator.generateKeyPair();
+    }
+
+    static String jwks(String... keys) {
+        return "{\"keys\":[" + String.join(",", keys) + "]}";
+    }
+
+    static String ecJwk(String kid, KeyPair pair) {
+        ECPublicKey publicKey = (ECPublicKey) pair.getPublic();
+        return "{\"kid\":\"" + kid + "\",\"kty\":\"EC\",\"alg\":\"ES256\",\"use\":\"sig\",\"crv\":\"P-256\""
+            + ",\"x\":\"" + unsigned(publicKey.getW().getAffineX(), 32) + "\""
+            + ",\"y\":\"" + unsigned(publicKey.getW().getAffineY(), 32) + "\"}";
+    }
+
+    static String rsaJwk(String kid, KeyPair pair) {
+        RSAPublicKey publicKey = (RSAPublicKey) pair.getPublic();
+        return "{\"kid\":\"" + kid + "\",\"kty\":\"RSA\",\"alg\":\"RS256\",\"use\":\"sig\""
+            + ",\"n\":\"" + unsigned(publicKey.getModulus(), 256) + "\""
+            + ",\"e\":\"" + unsigned(publicKey.getPublicExponent(), 3) + "\"}";
+    }
+
+    /**
+     * An access token with the claims Supabase puts in one, valid for an hour.
+     */
+    static String accessToken(String kid, KeyPair pair, String subject) {
+        Instant now = Instant.now();
+        return Jwts.builder()
+            .header().keyId(kid).and()
+            .subject(subject)
+            .issuer("http://127.0.0.1:54321/auth/v1")
+            .audience().add("authenticated").and()
+            .issuedAt(Date.from(now))
+            .expiration(Date.from(now.plus(1, ChronoUnit.HOURS)))
+            .claim("email", "agent@example.com")
+            .claim("role", "authenticated")
+            .claim("aal", "aal1")
+            .claim("session_id", "6f1c2a5e-3f43-4d2b-9a57-0c8f0c1f6a11")
+            .signWith(pair.getPrivate())
+            .compact();
+    }
+
+    // big-endian magnitude without the sign byte, left-padded to the JWA length
+    private static String unsigned(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        int start = bytes.length > 1 && bytes[0] == 0 ? 1 : 0;
+        int size = bytes.length - start;
+        byte[] padded = new byte[Math.max(length, size)];
+        System.arraycopy(bytes, start, padded, padded.length - size, size);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(padded);
+    }
+}
@@ -0,0 +1,55 @@
+package com.aarvee.crm.security;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.security.Key;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JwksKeyProvider#parseKeys}: turning a fetched JWKS document into public keys, as every
+ * refresh does. The document holds what Supabase publishes during a rotation (current and next
+ * EC key) plus a legacy RSA key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwksKeyParsingBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String body;
+
+    @Setup
+    public void setUp() throws Exception {
+        // parseKeys logs every key at INFO; keep that out of the measurement
+        ((Logger) LoggerFactory.getLogger(JwksKeyProvider.class)).setLevel(Level.WARN);
+        body = JwkFixtures.jwks(
+            JwkFixtures.ecJwk("current", JwkFixtures.ecKeyPair()),
+            JwkFixtures.ecJwk("next", JwkFixtures.ecKeyPair()),
+            JwkFixtures.rsaJwk("legacy", JwkFixtures.rsaKeyPair()));
+        if (parseJwks().size() != 3) {
+            throw new IllegalStateException("fixture keys did not parse");
+        }
+    }
+
+    @Benchmark
+    public Map<String, Key> parseJwks() throws Exception {
+        return JwksKeyProvider.parseKeys(objectMapper.readTree(body));
+    }
+}
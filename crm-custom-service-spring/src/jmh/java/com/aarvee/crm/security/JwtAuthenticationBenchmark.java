@@ -0,0 +1,112 @@
+package com.aarvee.crm.security;
+
+import com.sun.net.httpserver.HttpServer;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bearer token authentication in {@link JwtAuthenticationFilter}: ES256 signature verification
+ * with the key located through {@link JwksKeyProvider}, and the filter with and without a
+ * {@link VerifiedTokenCache} hit. The provider loads its keys from a local stub JWKS endpoint
+ * once during setup; no request in the measurement touches the network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationBenchmark {
+
+    private static final FilterChain CHAIN = (request, response) -> {
+    };
+
+    private HttpServer server;
+    private JwksKeyProvider keyProvider;
+    private JwtParser parser;
+    private JwtAuthenticationFilter cachingFilter;
+    private JwtAuthenticationFilter verifyingFilter;
+    private String token;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyPair signing = JwkFixtures.ecKeyPair();
+        byte[] jwks = JwkFixtures.jwks(JwkFixtures.ecJwk("k1", signing)).getBytes(StandardCharsets.UTF_8);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/auth/v1/.well-known/jwks.json", exchange -> {
+            exchange.sendResponseHeaders(200, jwks.length);
+            exchange.getResponseBody().write(jwks);
+            exchange.close();
+        });
+        server.start();
+
+        keyProvider = new JwksKeyProvider("http://127.0.0.1:" + server.getAddress().getPort() + "/auth/v1",
+            600_000, 30_000, 5_000, false);
+        keyProvider.start();
+        parser = Jwts.parser().keyLocator(keyProvider).build();
+        cachingFilter = new JwtAuthenticationFilter(keyProvider, new VerifiedTokenCache(10_000, 300));
+        // max-entries 0 disables caching, so every request verifies the signature
+        verifyingFilter = new JwtAuthenticationFilter(keyProvider, new VerifiedTokenCache(0, 300));
+
+        token = JwkFixtures.accessToken("k1", signing, "5b0c5e7e-8d1d-4c4b-a3c4-1f2e3d4c5b6a");
+        request = new MockHttpServletRequest("GET", "/api/leads");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+        if (verifySignature().getSubject() == null || cachingFilterRequest() == null) {
+            throw new IllegalStateException("fixture token was not accepted");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        keyProvider.stop();
+        server.stop(0);
+    }
+
+    @Benchmark
+    public Claims verifySignature() {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
+    @Benchmark
+    public Authentication cachingFilterRequest() throws Exception {
+        return authenticate(cachingFilter);
+    }
+
+    @Benchmark
+    public Authentication verifyingFilterRequest() throws Exception {
+        return authenticate(verifyingFilter);
+    }
+
+    private Authentication authenticate(JwtAuthenticationFilter filter) throws Exception {
+        // doFilterInternal: OncePerRequestFilter would skip a request object it has already seen
+        filter.doFilterInternal(request, response, CHAIN);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
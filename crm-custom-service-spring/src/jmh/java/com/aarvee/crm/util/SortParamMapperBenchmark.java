@@ -0,0 +1,35 @@
+package com.aarvee.crm.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SortParamMapper#map} for the sort fields react-admin sends: direct mappings,
+ * snake_case that has to be converted, camelCase passthrough and a rejected field.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SortParamMapperBenchmark {
+
+    @Param({"created_at", "loan_amount_required", "customerName", "__bad_field__"})
+    public String field;
+
+    @Benchmark
+    public String map() {
+        return SortParamMapper.map(field);
+    }
+}
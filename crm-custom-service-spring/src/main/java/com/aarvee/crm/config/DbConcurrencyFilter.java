@@ -0,0 +1,184 @@
+package com.aarvee.crm.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admits at most {@code leads.db.max-concurrency} API requests at a time (by default the Hikari
+ * pool size), since with open-in-view each one holds a connection until it completes.
+ * <p>
+ * With virtual threads the container no longer caps concurrency at its thread pool, so without
+ * this every request would wait in Hikari's queue and fail after its connection timeout. Here at
+ * most {@code max-queue} requests wait, for at most {@code acquire-timeout-ms}; the rest get an
+ * immediate 503 with Retry-After. Runs after the security chain so token checks never hold a
+ * permit. Async requests (exports) keep theirs until they complete.
+ * Published as {@code db.limiter.requests} by outcome and the {@code db.limiter.active} and
+ * {@code db.limiter.waiting} gauges.
+ */
+@Component
+@Slf4j
+public class DbConcurrencyFilter extends OncePerRequestFilter implements MeterBinder {
+
+    private final ObjectMapper objectMapper;
+    private final int maxConcurrency;
+    private final int maxQueue;
+    private final long acquireTimeoutMs;
+    private final Semaphore permits;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    public DbConcurrencyFilter(
+            ObjectMapper objectMapper,
+            @Value("${leads.db.max-concurrency:10}") int maxConcurrency,
+            @Value("${leads.db.max-queue:200}") int maxQueue,
+            @Value("${leads.db.acquire-timeout-ms:5000}") long acquireTimeoutMs) {
+        this.objectMapper = objectMapper;
+        this.maxConcurrency = maxConcurrency;
+        this.maxQueue = maxQueue;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.permits = new Semaphore(maxConcurrency, true);
+        log.info("Admitting up to {} concurrent API requests, {} waiting", maxConcurrency, maxQueue);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!acquire()) {
+            reject(response);
+            return;
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        };
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete(release));
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    private boolean acquire() throws ServletException {
+        if (permits.tryAcquire()) {
+            admitted.incrementAndGet();
+            return true;
+        }
+        if (waiting.incrementAndGet() > maxQueue) {
+            waiting.decrementAndGet();
+            rejected.incrementAndGet();
+            return false;
+        }
+        try {
+            if (permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                admitted.incrementAndGet();
+                return true;
+            }
+            timedOut.incrementAndGet();
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServletException("Interrupted waiting for a database permit", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        Map<String, Object> error = new HashMap<>();
+        error.put("error", "Server busy, retry shortly");
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("maxConcurrency", maxConcurrency);
+        stats.put("maxQueue", maxQueue);
+        stats.put("active", maxConcurrency - permits.availablePermits());
+        stats.put("waiting", waiting.get());
+        stats.put("admitted", admitted.get());
+        stats.put("rejected", rejected.get());
+        stats.put("timedOut", timedOut.get());
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("db.limiter.requests", admitted, AtomicLong::get)
+            .tag("outcome", "admitted")
+            .register(registry);
+        FunctionCounter.builder("db.limiter.requests", rejected, AtomicLong::get)
+            .tag("outcome", "rejected")
+            .register(registry);
+        FunctionCounter.builder("db.limiter.requests", timedOut, AtomicLong::get)
+            .tag("outcome", "timed_out")
+            .register(registry);
+        Gauge.builder("db.limiter.active", permits, p -> maxConcurrency - p.availablePermits())
+            .register(registry);
+        Gauge.builder("db.limiter.waiting", waiting, AtomicInteger::get)
+            .register(registry);
+    }
+
+    private record ReleaseOnComplete(Runnable release) implements AsyncListener {
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Spring MVC starts async processing once per request
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.aarvee.crm.config;
+
+import com.aarvee.crm.repository.StatementCountingDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Metrics wiring that auto-configuration does not cover. Request latency (http.server.requests),
+ * the Hikari pool (hikaricp.*) and JVM meters come from Spring Boot Actuator; components with
+ * their own counters publish them by implementing {@code MeterBinder}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Counts statements per request ({@link StatementMetricsFilter}) at the JDBC level, so
+     * JdbcTemplate imports and exports are seen as well as JPA queries.
+     */
+    @Bean
+    static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof StatementCountingDataSource)) {
+                    return new StatementCountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,262 @@
+package com.aarvee.crm.config;
+
+import com.aarvee.crm.repository.StatementCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Counts the SQL statements each API request executes and how long they took.
+ * <ul>
+ *   <li>Recorded as the {@code http.server.requests.queries} summary, tagged like
+ *       {@code http.server.requests} by method and URI template so the tags stay low-cardinality.</li>
+ *   <li>Logged with the request at DEBUG, or INFO once it takes {@code leads.sql.slow-request-ms},
+ *       and returned as a {@code Server-Timing: db} header. The header is added when the body is
+ *       first written, so it covers the statements run until then.</li>
+ *   <li>Checked against {@code leads.sql.budgets}, e.g. {@code GET /api/leads/{id}=3,GET /api/leads=4},
+ *       falling back to {@code leads.sql.default-budget} (0 for none).</li>
+ *   <li>Statements run individually {@code leads.sql.repeat-threshold} times or more in one request
+ *       are reported as N+1 suspects; JDBC batches are not.</li>
+ * </ul>
+ * Violations are logged and counted in {@code sql.budget.exceeded} and {@code sql.statements.repeated}.
+ * With {@code leads.sql.fail-on-violation=true} (for tests) the request fails with an
+ * {@link IllegalStateException} instead, thrown when the body is first written so the client
+ * gets an error rather than a complete response. A violation by statements run after that can
+ * only be logged. Only statements run on the request thread are counted: an async export's
+ * cursor reads are not.
+ */
+@Component
+@Slf4j
+public class StatementMetricsFilter extends OncePerRequestFilter {
+
+    static final String SERVER_TIMING = "Server-Timing";
+
+    private final MeterRegistry registry;
+    private final Map<String, Integer> budgets;
+    private final int defaultBudget;
+    private final int repeatThreshold;
+    private final boolean failOnViolation;
+    private final long slowRequestMs;
+
+    public StatementMetricsFilter(
+            MeterRegistry registry,
+            @Value("${leads.sql.budgets:}") String budgets,
+            @Value("${leads.sql.default-budget:50}") int defaultBudget,
+            @Value("${leads.sql.repeat-threshold:5}") int repeatThreshold,
+            @Value("${leads.sql.fail-on-violation:false}") boolean failOnViolation,
+            @Value("${leads.sql.slow-request-ms:1000}") long slowRequestMs) {
+        this.registry = registry;
+        this.budgets = parseBudgets(budgets);
+        this.defaultBudget = defaultBudget;
+        this.repeatThreshold = repeatThreshold;
+        this.failOnViolation = failOnViolation;
+        this.slowRequestMs = slowRequestMs;
+    }
+
+    /**
+     * Parses {@code METHOD /uri/template=max} entries separated by commas.
+     */
+    static Map<String, Integer> parseBudgets(String spec) {
+        Map<String, Integer> budgets = new HashMap<>();
+        if (spec == null || spec.isBlank()) {
+            return budgets;
+        }
+        for (String entry : spec.split(",")) {
+            String trimmed = entry.trim();
+            int eq = trimmed.lastIndexOf('=');
+            int space = trimmed.indexOf(' ');
+            if (eq < 0 || space < 0 || space > eq) {
+                throw new IllegalArgumentException("Invalid SQL budget entry, expected 'METHOD /path=max': " + trimmed);
+            }
+            String method = trimmed.substring(0, space).toUpperCase(Locale.ROOT);
+            String uri = trimmed.substring(space + 1, eq).trim();
+            try {
+                budgets.put(method + " " + uri, Integer.parseInt(trimmed.substring(eq + 1).trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid SQL budget entry, expected 'METHOD /path=max': " + trimmed);
+            }
+        }
+        return budgets;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        ServerTimingResponse timedResponse = new ServerTimingResponse(request, response);
+        String violation;
+        StatementCounter.begin();
+        try {
+            chain.doFilter(request, timedResponse);
+        } finally {
+            StatementCounter.Stats stats = StatementCounter.end();
+            timedResponse.addServerTiming(stats);
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            DistributionSummary.builder("http.server.requests.queries")
+                .description("SQL statements executed per request")
+                .baseUnit("statements")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(1000.0)
+                .register(registry)
+                .record(stats.count());
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            String db = String.format(Locale.ROOT, "%.1f", stats.millis());
+            if (elapsedMs >= slowRequestMs) {
+                log.info("Slow request: {} {} {} {}ms queries={} db={}ms", request.getMethod(), request.getRequestURI(),
+                    response.getStatus(), elapsedMs, stats.count(), db);
+            } else {
+                log.debug("{} {} {} {}ms queries={} db={}ms", request.getMethod(), request.getRequestURI(),
+                    response.getStatus(), elapsedMs, stats.count(), db);
+            }
+            violation = reportViolations(request.getMethod(), uri, stats);
+        }
+        // once committed the client already has the response, so failing now would change nothing
+        if (violation != null && failOnViolation && !timedResponse.isCommitted()) {
+            throw new IllegalStateException(violation);
+        }
+    }
+
+    /**
+     * The first budget or repeat violation in {@code stats}, or null; no side effects.
+     */
+    private String violation(String method, String uri, StatementCounter.Stats stats) {
+        String endpoint = method + " " + uri;
+        int budget = budgets.getOrDefault(endpoint, defaultBudget);
+        if (budget > 0 && stats.count() > budget) {
+            return endpoint + " ran " + stats.count() + " SQL statements, budget is " + budget;
+        }
+        Map<String, Integer> repeated = stats.repeated(repeatThreshold);
+        if (!repeated.isEmpty()) {
+            Map.Entry<String, Integer> first = repeated.entrySet().iterator().next();
+            return endpoint + " ran the same statement " + first.getValue()
+                + " times (possible N+1): " + abbreviate(first.getKey());
+        }
+        return null;
+    }
+
+    /**
+     * Logs and counts every violation in the request's final stats.
+     *
+     * @return the first violation, or null
+     */
+    private String reportViolations(String method, String uri, StatementCounter.Stats stats) {
+        String endpoint = method + " " + uri;
+        int budget = budgets.getOrDefault(endpoint, defaultBudget);
+        if (budget > 0 && stats.count() > budget) {
+            registry.counter("sql.budget.exceeded", "method", method, "uri", uri).increment();
+            log.warn("{} ran {} SQL statements, budget is {}", endpoint, stats.count(), budget);
+        }
+        Map<String, Integer> repeated = stats.repeated(repeatThreshold);
+        if (!repeated.isEmpty()) {
+            registry.counter("sql.statements.repeated", "method", method, "uri", uri).increment(repeated.size());
+            repeated.forEach((sql, times) ->
+                log.warn("Possible N+1 on {}: statement ran {} times: {}", endpoint, times, abbreviate(sql)));
+        }
+        return violation(method, uri, stats);
+    }
+
+    private static String abbreviate(String sql) {
+        String flat = sql.replaceAll("\\s+", " ").trim();
+        return flat.length() <= 300 ? flat : flat.substring(0, 300) + "...";
+    }
+
+    static String serverTiming(StatementCounter.Stats stats) {
+        return String.format(Locale.ROOT, "db;dur=%.1f;desc=\"%d queries\"", stats.millis(), stats.count());
+    }
+
+    /**
+     * Sets the Server-Timing header just before the response can be committed, since headers
+     * added after that are dropped, and with fail-on-violation checks the budget there too.
+     */
+    private final class ServerTimingResponse extends HttpServletResponseWrapper {
+
+        private final HttpServletRequest request;
+        private boolean added;
+        private boolean checked;
+
+        ServerTimingResponse(HttpServletRequest request, HttpServletResponse response) {
+            super(response);
+            this.request = request;
+        }
+
+        void addServerTiming(StatementCounter.Stats stats) {
+            if (!added && stats != null && !isCommitted()) {
+                added = true;
+                setHeader(SERVER_TIMING, serverTiming(stats));
+            }
+        }
+
+        private void beforeCommit() {
+            StatementCounter.Stats stats = StatementCounter.current();
+            addServerTiming(stats);
+            if (failOnViolation && !checked && stats != null && !isCommitted()) {
+                checked = true;
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                String violation = violation(request.getMethod(), pattern != null ? pattern.toString() : "UNKNOWN", stats);
+                if (violation != null) {
+                    throw new IllegalStateException(violation);
+                }
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            beforeCommit();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            beforeCommit();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            beforeCommit();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            beforeCommit();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            beforeCommit();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            beforeCommit();
+            super.sendRedirect(location);
+        }
+    }
+}
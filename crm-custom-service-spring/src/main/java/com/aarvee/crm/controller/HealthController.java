@@ -1,6 +1,15 @@
 package com.aarvee.crm.controller;
 
-import com.aarvee.crm.util.SortParamMapper;
+import com.aarvee.crm.config.DbConcurrencyFilter;
+import com.aarvee.crm.security.JwksKeyProvider;
+import com.aarvee.crm.security.VerifiedTokenCache;
+import com.aarvee.crm.service.LeadAnalyticsService;
+import com.aarvee.crm.service.LeadBoardService;
+import com.aarvee.crm.service.LeadChangeLogFolder;
+import com.aarvee.crm.service.LeadEntityCache;
+import com.aarvee.crm.service.ReminderDispatcher;
+import com.aarvee.crm.service.ReminderGenerator;
+import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -11,14 +20,34 @@ import java.util.HashMap;
 import java.util.Map;
 
 @RestController
+@RequiredArgsConstructor
 public class HealthController {
-    
+
+    private final VerifiedTokenCache tokenCache;
+    private final JwksKeyProvider jwksKeyProvider;
+    private final LeadEntityCache leadCache;
+    private final LeadBoardService leadBoard;
+    private final LeadAnalyticsService leadAnalytics;
+    private final LeadChangeLogFolder changeLogFolder;
+    private final DbConcurrencyFilter dbLimiter;
+    private final ReminderDispatcher reminderDispatcher;
+    private final ReminderGenerator reminderGenerator;
+
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> health() {
         Map<String, Object> response = new HashMap<>();
         response.put("status", "ok");
         response.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME));
-        response.put("invalidSortRequests", SortParamMapper.getInvalidSortCount());
+        response.put("jwtCache", tokenCache.stats());
+        response.put("jwks", jwksKeyProvider.stats());
+        response.put("leadCache", leadCache.stats());
+        response.put("leadBoard", leadBoard.stats());
+        response.put("leadAnalytics", leadAnalytics.stats());
+        response.put("leadWatermark", changeLogFolder.stats());
+        response.put("dbLimiter", dbLimiter.stats());
+        response.put("reminders", reminderDispatcher.stats());
+        response.put("reminderGeneration", reminderGenerator.stats());
+        response.put("virtualThreads", Thread.currentThread().isVirtual());
         return ResponseEntity.ok(response);
     }
 }
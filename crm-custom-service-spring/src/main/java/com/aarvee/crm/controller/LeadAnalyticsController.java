@@ -0,0 +1,43 @@
+package com.aarvee.crm.controller;
+
+import com.aarvee.crm.service.LeadAnalyticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pipeline dashboards: lead counts and loan amount totals read from the rollups only.
+ */
+@RestController
+@RequestMapping("/api/leads/analytics")
+@RequiredArgsConstructor
+public class LeadAnalyticsController {
+
+    private final LeadAnalyticsService service;
+
+    /**
+     * GET /api/leads/analytics?groupBy=lead_status,product&from=2026-01-01&to=2026-01-31
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> summary(
+            @RequestParam(required = false) List<String> groupBy,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return ResponseEntity.ok(Map.of("data", service.summary(groupBy, from, to)));
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+}
@@ -1,16 +1,39 @@
 package com.aarvee.crm.controller;
 
+import com.aarvee.crm.dto.BatchResponse;
+import com.aarvee.crm.dto.BoardColumn;
+import com.aarvee.crm.dto.BulkRequest;
+import com.aarvee.crm.dto.ImportResult;
+import com.aarvee.crm.dto.MoveRequest;
 import com.aarvee.crm.dto.PageResponse;
 import com.aarvee.crm.entity.LeadExtension;
+import com.aarvee.crm.service.CountStrategy;
+import com.aarvee.crm.service.LeadBoardService;
+import com.aarvee.crm.service.LeadExportService;
 import com.aarvee.crm.service.LeadExtensionService;
+import com.aarvee.crm.service.LeadImportService;
+import com.aarvee.crm.util.LeadETags;
+import com.aarvee.crm.util.LeadFields;
+import com.aarvee.crm.util.LeadFilter;
 import com.aarvee.crm.util.SortParamMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -23,6 +46,23 @@ import java.util.Map;
 public class LeadController {
     
     private final LeadExtensionService service;
+    private final LeadImportService importService;
+    private final LeadExportService exportService;
+    private final LeadBoardService boardService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    // Clients may cache responses but must revalidate them (If-None-Match) before each use
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    @Value("${leads.batch.max-ids:500}")
+    private int maxBatchIds;
+
+    @Value("${leads.bulk.max-ids:10000}")
+    private int maxBulkIds;
+
+    @Value("${leads.count.strategy.leads:${leads.count.default-strategy:exact}}")
+    private String defaultCountStrategy;
     
     @PostMapping
     public ResponseEntity<LeadExtension> create(@RequestBody LeadExtension lead) {
@@ -30,43 +70,258 @@ public class LeadController {
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
     
+    /**
+     * Bulk import from a streamed CSV (header row of lead fields) or NDJSON body.
+     * Bad rows are reported individually and do not stop the import; a CSV header without
+     * any lead column is rejected with 400.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<?> importLeads(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        try {
+            ImportResult result = importService.importLeads(body, LeadImportService.formatOf(contentType));
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+    
     @GetMapping
     public ResponseEntity<?> getList(
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "10") int perPage,
             @RequestParam(defaultValue = "createdAt") String sortField,
-            @RequestParam(defaultValue = "desc") String sortOrder) {
+            @RequestParam(defaultValue = "desc") String sortOrder,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String count,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
         String mapped = SortParamMapper.map(sortField);
         if (mapped == null) {
+            meterRegistry.counter("leads.sort.invalid").increment();
             Map<String, Object> error = new HashMap<>();
             error.put("error", "Invalid sort field");
             error.put("allowed", String.join(", ", SortParamMapper.ALLOWED_FIELDS()));
             return ResponseEntity.badRequest().body(error);
         }
 
-        Page<LeadExtension> pageData = service.getList(page, perPage, mapped, sortOrder);
-        PageResponse<LeadExtension> response = new PageResponse<>(
-            pageData.getContent(),
-            pageData.getTotalElements()
-        );
+        LeadFilter leadFilter;
+        try {
+            leadFilter = LeadFilter.parse(filter);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            error.put("allowed", String.join(", ", LeadFilter.ALLOWED_FIELDS()));
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        LeadFields leadFields;
+        try {
+            leadFields = LeadFields.parse(fields);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            error.put("allowed", String.join(", ", LeadFields.ALLOWED_FIELDS()));
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        // The watermark is read before the page query: a write committing in between can only
+        // make the page newer than its tag, which costs a refetch but never a stale 304
+        String eTag = LeadETags.forList(service.getChangeWatermark(), String.join("|", String.valueOf(page),
+            String.valueOf(perPage), mapped, sortOrder, leadFilter.signature(), String.valueOf(after), String.valueOf(count), leadFields.signature()));
+        if (LeadETags.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(REVALIDATE).build();
+        }
+
+        if (after != null) {
+            // Cursor mode: seek past the last row of the previous page, no count
+            try {
+                PageResponse<?> response = leadFields.isAll()
+                    ? service.getListAfter(after, perPage, mapped, sortOrder, leadFilter)
+                    : service.getListAfter(after, perPage, mapped, sortOrder, leadFilter, leadFields);
+                return ResponseEntity.ok().eTag(eTag).cacheControl(REVALIDATE).body(response);
+            } catch (IllegalArgumentException e) {
+                Map<String, Object> error = new HashMap<>();
+                error.put("error", e.getMessage());
+                return ResponseEntity.badRequest().body(error);
+            }
+        }
+
+        CountStrategy countStrategy;
+        try {
+            countStrategy = CountStrategy.from(count != null ? count : defaultCountStrategy);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        PageResponse<?> response = leadFields.isAll()
+            ? service.getList(page, perPage, mapped, sortOrder, leadFilter, countStrategy)
+            : service.getList(page, perPage, mapped, sortOrder, leadFilter, countStrategy, leadFields);
+        return ResponseEntity.ok().eTag(eTag).cacheControl(REVALIDATE).body(response);
+    }
+    
+    /**
+     * Lead board in one call and one query: per stage (the given ones, in order, or every stage
+     * with leads), the lead count, loan amount total and top {@code perStage} cards by position.
+     */
+    @GetMapping("/board")
+    public ResponseEntity<?> board(
+            @RequestParam(required = false) List<String> stages,
+            @RequestParam(defaultValue = "25") int perStage,
+            @RequestParam(required = false) String filter) {
+        try {
+            List<BoardColumn> columns = boardService.board(stages, perStage, LeadFilter.parse(filter));
+            return ResponseEntity.ok(Map.of("data", columns));
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+    
+    /**
+     * Batch read by ids (react-admin getMany): GET /many?ids=1,2,3
+     */
+    @GetMapping("/many")
+    public ResponseEntity<?> getMany(@RequestParam List<Long> ids) {
+        if (ids.size() > maxBatchIds) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Too many ids: at most " + maxBatchIds + " per request");
+            return ResponseEntity.badRequest().body(error);
+        }
+        BatchResponse<LeadExtension> response = service.getMany(ids);
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Streams every lead matching the filter as CSV or NDJSON, straight from a database cursor.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "id") String sortField,
+            @RequestParam(defaultValue = "asc") String sortOrder,
+            @RequestParam(required = false) String filter) {
+        String mapped = SortParamMapper.map(sortField);
+        LeadExportService.Format exportFormat;
+        LeadFilter leadFilter;
+        try {
+            if (mapped == null) {
+                throw new IllegalArgumentException("Invalid sort field");
+            }
+            exportFormat = LeadExportService.Format.from(format);
+            leadFilter = LeadFilter.parse(filter);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(output -> objectMapper.writeValue(output, error));
+        }
+
+        boolean descending = "desc".equalsIgnoreCase(sortOrder);
+        StreamingResponseBody body = output -> exportService.export(output, exportFormat, leadFilter, mapped, descending);
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+            .header(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"leads." + exportFormat.name().toLowerCase() + "\"")
+            .body(body);
+    }
+    
+    /**
+     * Single lead with a strong ETag. A matching If-None-Match is answered with 304 from a
+     * version lookup alone, without loading or serializing the row.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<LeadExtension> getOne(@PathVariable Long id) {
+    public ResponseEntity<LeadExtension> getOne(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            Long version = service.getVersion(id).orElse(null);
+            if (version == null) {
+                return ResponseEntity.notFound().build();
+            }
+            String eTag = LeadETags.of(id, version);
+            if (LeadETags.matches(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(REVALIDATE).build();
+            }
+        }
         return service.getOne(id)
-            .map(ResponseEntity::ok)
+            .map(found -> ResponseEntity.ok()
+                .eTag(LeadETags.of(found.getId(), found.getVersion()))
+                .cacheControl(REVALIDATE)
+                .body(found))
             .orElse(ResponseEntity.notFound().build());
     }
     
     @PutMapping("/{id}")
-    public ResponseEntity<LeadExtension> update(@PathVariable Long id, @RequestBody LeadExtension lead) {
+    public ResponseEntity<?> update(@PathVariable Long id, @RequestBody LeadExtension lead) {
         try {
             LeadExtension updated = service.update(id, lead);
-            return ResponseEntity.ok(updated);
+            return ResponseEntity.ok().eTag(LeadETags.of(updated.getId(), updated.getVersion())).body(updated);
+        } catch (jakarta.persistence.EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (OptimisticLockingFailureException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        }
+    }
+    
+    /**
+     * Partial update touching only the supplied fields. Pass the lead's ETag in If-Match (or its
+     * version in the body) to have the write rejected with 409 if someone else changed it first.
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> patch(
+            @PathVariable Long id,
+            @RequestBody JsonNode changes,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        try {
+            LeadExtension patched = service.patch(id, changes, LeadETags.expectedVersion(ifMatch, id));
+            return ResponseEntity.ok()
+                .eTag(LeadETags.of(patched.getId(), patched.getVersion()))
+                .body(patched);
+        } catch (jakarta.persistence.EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (OptimisticLockingFailureException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+    
+    /**
+     * Moves a card on the board: into {@code stage}, right below {@code after_id} (or to the top
+     * of the column without it). Only the moved lead is written; no other card is renumbered.
+     */
+    @PostMapping("/{id}/move")
+    public ResponseEntity<?> move(@PathVariable Long id, @RequestBody MoveRequest request) {
+        try {
+            LeadBoardService.MoveResult moved = boardService.move(id, request.getStage(), request.getAfterId());
+            Map<String, Object> body = new HashMap<>();
+            body.put("id", moved.id());
+            body.put("stage", moved.stage());
+            body.put("index", moved.index());
+            body.put("version", moved.version());
+            return ResponseEntity.ok().eTag(LeadETags.of(moved.id(), moved.version())).body(body);
         } catch (jakarta.persistence.EntityNotFoundException e) {
             return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
         }
     }
     
@@ -77,4 +332,45 @@ public class LeadController {
         response.put("message", "Lead deleted successfully");
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Set-based update of status/assignee for the given ids and/or filter, in one statement.
+     */
+    @PostMapping("/bulk-update")
+    public ResponseEntity<Map<String, Object>> bulkUpdate(@RequestBody BulkRequest request) {
+        try {
+            List<Long> updated = service.bulkUpdate(bulkScope(request), request.getData());
+            return ResponseEntity.ok(Map.of("data", updated));
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+    
+    /**
+     * Set-based delete of the given ids and/or filter, in one statement.
+     */
+    @PostMapping("/bulk-delete")
+    public ResponseEntity<Map<String, Object>> bulkDelete(@RequestBody BulkRequest request) {
+        try {
+            List<Long> deleted = service.bulkDelete(bulkScope(request));
+            return ResponseEntity.ok(Map.of("data", deleted));
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+
+    private LeadFilter bulkScope(BulkRequest request) {
+        LeadFilter scope = LeadFilter.parse(request.getFilter() == null ? null : request.getFilter().toString());
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            if (request.getIds().size() > maxBulkIds) {
+                throw new IllegalArgumentException("Too many ids: at most " + maxBulkIds + " per request");
+            }
+            scope = scope.withIds(request.getIds());
+        }
+        return scope;
+    }
 }
@@ -0,0 +1,17 @@
+package com.aarvee.crm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResponse<T> {
+    // Found rows, in the order their ids were requested
+    private List<T> data;
+    // Requested ids with no matching row
+    private List<Long> missingIds;
+}
@@ -0,0 +1,21 @@
+package com.aarvee.crm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BoardColumn {
+    private String stage;
+    // Leads in the stage (matching the filter), of which cards holds only the top ones
+    private long total;
+    private BigDecimal loanAmountRequired;
+    // Top cards by position, each with the lean card fields
+    private List<Map<String, Object>> cards;
+}
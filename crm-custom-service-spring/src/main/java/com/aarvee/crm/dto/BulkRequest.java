@@ -0,0 +1,20 @@
+package com.aarvee.crm.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkRequest {
+    // Rows to change: these ids, the rows matching the filter, or both combined
+    private List<Long> ids;
+    private JsonNode filter;
+    // Field changes for bulk updates (ignored for deletes)
+    private Map<String, Object> data;
+}
@@ -0,0 +1,30 @@
+package com.aarvee.crm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class ImportResult {
+    private long received;
+    private long imported;
+    private long failed;
+    // Per-row failures, capped at leads.import.max-reported-errors
+    private List<RowError> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+    private long durationMs;
+    private long rowsPerSecond;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        // 1-based data row (CSV header and blank NDJSON lines not counted)
+        private long row;
+        private String error;
+    }
+}
@@ -0,0 +1,15 @@
+package com.aarvee.crm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MoveRequest {
+    // Column to move the card into
+    private String stage;
+    // Card it goes right below; null puts it at the top of the column
+    private Long afterId;
+}
@@ -1,5 +1,6 @@
 package com.aarvee.crm.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -9,7 +10,12 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class PageResponse<T> {
     private List<T> data;
-    private long total;
+    private Long total;
+    // Set in cursor mode (no total is computed); null on the last page
+    private String nextCursor;
+    // How total was obtained: exact, cached or estimated
+    private String countStrategy;
 }
@@ -0,0 +1,66 @@
+package com.aarvee.crm.entity;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keys inside the {@link LeadExtension} loan detail JSONB columns that list filters may match on,
+ * written {@code column.key} (e.g. {@code business_details.type_of_industry}).
+ * <p>
+ * Matches compile to JSONB containment ({@code column @> '{"key": value}'}), which the
+ * jsonb_path_ops GIN index on each listed column serves for any of its keys. Adding a key
+ * here needs no new index; adding a column does (see the lead_detail_gin_indexes migration).
+ */
+public final class LeadDetailPaths {
+
+    /**
+     * @param attribute the {@link LeadExtension} attribute holding the column
+     * @param type String or Boolean: how filter values are typed in the containment document
+     */
+    public record DetailPath(String column, String attribute, String key, Class<?> type) {
+    }
+
+    private static final Map<String, DetailPath> PATHS = new LinkedHashMap<>();
+
+    static {
+        // keys mirror the columns of the legacy business_details / property_details tables
+        add("business_details", "businessDetails", "type_of_employment", String.class);
+        add("business_details", "businessDetails", "type_of_industry", String.class);
+        add("business_details", "businessDetails", "type_of_business", String.class);
+        add("business_details", "businessDetails", "constitution", String.class);
+        add("property_details", "propertyDetails", "type_of_property", String.class);
+        add("property_details", "propertyDetails", "classification_of_property", String.class);
+        add("property_details", "propertyDetails", "is_new_purchase", Boolean.class);
+        add("property_details", "propertyDetails", "is_ready_possession", Boolean.class);
+    }
+
+    private LeadDetailPaths() {
+        // utility
+    }
+
+    private static void add(String column, String attribute, String key, Class<?> type) {
+        PATHS.put(column + "." + key, new DetailPath(column, attribute, key, type));
+    }
+
+    /**
+     * The declared path, or null if {@code column.key} is not filterable.
+     */
+    public static DetailPath get(String path) {
+        return PATHS.get(path);
+    }
+
+    /**
+     * The entity attribute for a column that has declared paths, or null.
+     */
+    public static String attributeOf(String column) {
+        return PATHS.values().stream()
+            .filter(path -> path.column().equals(column))
+            .map(DetailPath::attribute)
+            .findFirst()
+            .orElse(null);
+    }
+
+    public static String[] ALLOWED_PATHS() {
+        return PATHS.keySet().toArray(new String[0]);
+    }
+}
@@ -1,18 +1,22 @@
 package com.aarvee.crm.entity;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.Generated;
 import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.generator.EventType;
 import org.hibernate.type.SqlTypes;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "lead_extensions", schema = "custom_features")
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -55,21 +59,44 @@ public class LeadExtension {
     @Column(name = "lead_status", length = 50)
     private String leadStatus;
     
+    // Board column and position in it; sparse keys ordered with id as tie-break, changed by LeadBoardService
+    @Column(name = "stage", nullable = false, length = 50)
+    private String stage;
+    
+    // Set by the column default on insert: a distinct sparse key putting the card at the top of its column
+    @Generated(event = EventType.INSERT)
+    @Column(name = "index", nullable = false, insertable = false)
+    private Long index;
+    
+    // Set once the loan is paid out; loan top-up reminders are generated from it
+    @Column(name = "disbursed_at")
+    private LocalDate disbursedAt;
+    
+    // Loan details are stored and returned verbatim, never parsed (see RawJson)
+    @Convert(converter = RawJson.ColumnConverter.class)
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(name = "business_details", columnDefinition = "jsonb")
-    private JsonNode businessDetails;
+    private RawJson businessDetails;
     
+    @Convert(converter = RawJson.ColumnConverter.class)
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(name = "property_details", columnDefinition = "jsonb")
-    private JsonNode propertyDetails;
+    private RawJson propertyDetails;
     
+    @Convert(converter = RawJson.ColumnConverter.class)
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(name = "auto_loan_details", columnDefinition = "jsonb")
-    private JsonNode autoLoanDetails;
+    private RawJson autoLoanDetails;
     
+    @Convert(converter = RawJson.ColumnConverter.class)
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(name = "machinery_loan_details", columnDefinition = "jsonb")
-    private JsonNode machineryLoanDetails;
+    private RawJson machineryLoanDetails;
+    
+    // Optimistic lock: bumped on every update, checked by PUT, PATCH and If-Match
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
     
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -79,6 +106,9 @@ public class LeadExtension {
     
     @PrePersist
     protected void onCreate() {
+        if (stage == null) {
+            stage = "new";
+        }
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
     }
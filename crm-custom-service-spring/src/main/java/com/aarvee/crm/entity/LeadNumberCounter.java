@@ -0,0 +1,26 @@
+package com.aarvee.crm.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Highest lead number sequence value reserved so far for a given day.
+ */
+@Entity
+@Table(name = "lead_number_counters", schema = "custom_features")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeadNumberCounter {
+
+    @Id
+    @Column(name = "day")
+    private LocalDate day;
+
+    @Column(name = "last_value", nullable = false)
+    private Long lastValue;
+}
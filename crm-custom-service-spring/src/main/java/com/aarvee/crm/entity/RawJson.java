@@ -0,0 +1,94 @@
+package com.aarvee.crm.entity;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * A JSON object or array carried as its text, for jsonb columns the service stores and returns
+ * but never looks inside.
+ * <p>
+ * Read from the database, the column's text goes into the response with {@code writeRawValue}:
+ * no {@code JsonNode} tree is built on the way in or out. In request bodies the value is copied
+ * token by token into text, which checks that it is well-formed JSON without building a tree.
+ * Columns opt in with {@code @Convert(converter = RawJson.ColumnConverter.class)} and
+ * {@code @JdbcTypeCode(SqlTypes.JSON)}; Hibernate passes String-typed JSON through unparsed.
+ */
+@JsonSerialize(using = RawJson.Serializer.class)
+@JsonDeserialize(using = RawJson.Deserializer.class)
+public record RawJson(String json) {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    public RawJson {
+        if (json == null) {
+            throw new IllegalArgumentException("json must not be null");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return json;
+    }
+
+    static class Serializer extends JsonSerializer<RawJson> {
+        @Override
+        public void serialize(RawJson value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeRawValue(value.json());
+        }
+    }
+
+    static class Deserializer extends JsonDeserializer<RawJson> {
+        @Override
+        public RawJson deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonToken token = p.currentToken();
+            if (token != JsonToken.START_OBJECT && token != JsonToken.START_ARRAY) {
+                return (RawJson) ctxt.handleUnexpectedToken(RawJson.class, p);
+            }
+            StringWriter text = new StringWriter();
+            try (JsonGenerator copy = FACTORY.createGenerator(text)) {
+                int depth = 0;
+                do {
+                    token = p.currentToken();
+                    if (token.isNumeric()) {
+                        // as written: amounts like 12.50 must not go through double
+                        copy.writeNumber(p.getText());
+                    } else {
+                        copy.copyCurrentEvent(p);
+                    }
+                    if (token.isStructStart()) {
+                        depth++;
+                    } else if (token.isStructEnd()) {
+                        depth--;
+                    }
+                } while (depth > 0 && p.nextToken() != null);
+            }
+            return new RawJson(text.toString());
+        }
+    }
+
+    @Converter
+    public static class ColumnConverter implements AttributeConverter<RawJson, String> {
+        @Override
+        public String convertToDatabaseColumn(RawJson attribute) {
+            return attribute == null ? null : attribute.json();
+        }
+
+        @Override
+        public RawJson convertToEntityAttribute(String dbData) {
+            return dbData == null ? null : new RawJson(dbData);
+        }
+    }
+}
@@ -19,9 +19,14 @@ public class Reminder {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @Column(name = "contact_id", nullable = false)
+    // null for loan top-up reminders on leads that have no contact
+    @Column(name = "contact_id")
     private Long contactId;
     
+    // The lead a loan top-up reminder is about
+    @Column(name = "lead_extension_id")
+    private Long leadExtensionId;
+    
     @Column(name = "type", length = 50, nullable = false)
     private String type; // 'birthday', 'loan_topup'
     
@@ -32,11 +37,24 @@ public class Reminder {
     private String message;
     
     @Column(name = "status", length = 20, nullable = false)
-    private String status = "pending"; // 'pending', 'sent', 'dismissed'
+    private String status = "pending"; // 'pending', 'sending', 'sent', 'failed', 'dismissed'
     
     @Column(name = "sent_at")
     private LocalDateTime sentAt;
     
+    // Dispatch state, maintained by ReminderDispatcher
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+    
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+    
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+    
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+    
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
@@ -46,5 +64,8 @@ public class Reminder {
         if (status == null) {
             status = "pending";
         }
+        if (attempts == null) {
+            attempts = 0;
+        }
     }
 }
@@ -0,0 +1,23 @@
+package com.aarvee.crm.repository;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registers {@code jsonb_contains(column, document)}, rendered as Postgres' {@code @>} operator
+ * so criteria queries can match inside JSONB columns and still use their GIN indexes.
+ * Loaded by Hibernate through {@code META-INF/services/org.hibernate.boot.model.FunctionContributor}.
+ */
+public class JsonbFunctionContributor implements FunctionContributor {
+
+    public static final String JSONB_CONTAINS = "jsonb_contains";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        functionContributions.getFunctionRegistry().registerPattern(
+            JSONB_CONTAINS,
+            "(?1 @> cast(?2 as jsonb))",
+            functionContributions.getTypeConfiguration().getBasicTypeRegistry().resolve(StandardBasicTypes.BOOLEAN));
+    }
+}
@@ -0,0 +1,163 @@
+package com.aarvee.crm.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads, folds and reconciles {@code custom_features.lead_pipeline_rollups}: lead counts and
+ * loan_amount_required totals per creation day, status, product and assignee. Triggers on
+ * lead_extensions append each statement's per-group changes to
+ * {@code custom_features.lead_pipeline_deltas}, which {@link #fold()} moves into the rollups;
+ * every read adds the pending deltas, so totals are current without a fold. Dashboard queries
+ * group rollup and delta rows only, so their cost follows the number of groups, not the
+ * number of leads.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LeadAnalyticsRepository {
+
+    /** Rollup dimensions a summary can be grouped by. */
+    public static final List<String> DIMENSIONS = List.of("day", "lead_status", "product", "lead_assigned_to");
+
+    // Rollup rows plus the deltas not yet folded into them
+    private static final String TOTALS_SQL = "SELECT day, lead_status, product, lead_assigned_to, "
+        + "lead_count, loan_amount_required FROM custom_features.lead_pipeline_rollups "
+        + "UNION ALL "
+        + "SELECT day, lead_status, product, lead_assigned_to, "
+        + "lead_count, loan_amount_required FROM custom_features.lead_pipeline_deltas";
+
+    // Per group, what the rollups are missing: each lead counts +1, each rollup or delta row its negation
+    private static final String CORRECTIONS_SQL = "SELECT day, lead_status, product, lead_assigned_to, "
+        + "sum(lead_count) AS lead_count, sum(loan_amount_required) AS loan_amount_required FROM ("
+        + "SELECT created_at::date AS day, lead_status, product, lead_assigned_to, "
+        + "1 AS lead_count, coalesce(loan_amount_required, 0) AS loan_amount_required "
+        + "FROM custom_features.lead_extensions "
+        + "UNION ALL "
+        + "SELECT day, lead_status, product, lead_assigned_to, -lead_count, -loan_amount_required "
+        + "FROM (" + TOTALS_SQL + ") totals) changes "
+        + "GROUP BY 1, 2, 3, 4 HAVING sum(lead_count) <> 0 OR sum(loan_amount_required) <> 0";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Lead count and loan amount total per combination of the given dimensions, over creation
+     * days {@code from} to {@code to} (either may be null for no bound). Groups without leads
+     * are left out; no dimensions gives a single overall row.
+     *
+     * @param dimensions names from {@link #DIMENSIONS}
+     */
+    public List<Map<String, Object>> summary(List<String> dimensions, LocalDate from, LocalDate to) {
+        for (String dimension : dimensions) {
+            if (!DIMENSIONS.contains(dimension)) {
+                throw new IllegalArgumentException("Invalid dimension: " + dimension);
+            }
+        }
+        String columns = String.join(", ", dimensions);
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT ");
+        if (!dimensions.isEmpty()) {
+            sql.append(columns).append(", ");
+        }
+        sql.append("sum(lead_count) AS lead_count, sum(loan_amount_required) AS loan_amount_required "
+            + "FROM (" + TOTALS_SQL + ") totals");
+        String separator = " WHERE ";
+        if (from != null) {
+            sql.append(separator).append("day >= ?");
+            separator = " AND ";
+            params.add(from);
+        }
+        if (to != null) {
+            sql.append(separator).append("day <= ?");
+            params.add(to);
+        }
+        if (!dimensions.isEmpty()) {
+            sql.append(" GROUP BY ").append(columns);
+        }
+        sql.append(" HAVING sum(lead_count) <> 0");
+        if (!dimensions.isEmpty()) {
+            sql.append(" ORDER BY ").append(columns);
+        }
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String dimension : dimensions) {
+                row.put(dimension, "day".equals(dimension)
+                    ? rs.getObject(dimension, LocalDate.class)
+                    : rs.getObject(dimension));
+            }
+            row.put("lead_count", rs.getLong("lead_count"));
+            row.put("loan_amount_required", rs.getBigDecimal("loan_amount_required"));
+            return row;
+        }, params.toArray());
+    }
+
+    /**
+     * Moves the committed deltas into the rollups, leaving every read total as it was.
+     *
+     * @return deltas folded, or -1 if another node is folding
+     */
+    public long fold() {
+        Long folded = jdbcTemplate.queryForObject("SELECT custom_features.fold_lead_pipeline_deltas()", Long.class);
+        return folded == null ? 0 : folded;
+    }
+
+    /**
+     * Takes the cluster-wide reconciliation lock for the surrounding transaction.
+     *
+     * @return false if another node holds it
+     */
+    public boolean tryLockReconciliation() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+            "SELECT pg_try_advisory_xact_lock(hashtext('lead_pipeline_rollups'))", Boolean.class));
+    }
+
+    /**
+     * Groups whose rollup row and pending deltas disagree with the leads. All three tables are
+     * read in one statement, hence one snapshot, and the triggers write deltas in the leads'
+     * own transactions, so this is exact even while leads are being written.
+     */
+    public long countDrift() {
+        Long drift = jdbcTemplate.queryForObject("SELECT count(*) FROM (" + CORRECTIONS_SQL + ") drift", Long.class);
+        return drift == null ? 0 : drift;
+    }
+
+    /**
+     * Blocks lead writes until the surrounding transaction ends, so a repair cannot race the triggers.
+     */
+    public void lockLeads() {
+        jdbcTemplate.execute("LOCK TABLE custom_features.lead_extensions IN SHARE MODE");
+    }
+
+    /**
+     * Adds each group's correction to its rollup row; call with {@link #lockLeads()} held.
+     * A concurrent {@link #fold()} moves deltas without changing any group's total, so the
+     * corrections stay right.
+     *
+     * @return groups corrected
+     */
+    public int repair() {
+        return jdbcTemplate.update("INSERT INTO custom_features.lead_pipeline_rollups AS r "
+            + "(day, lead_status, product, lead_assigned_to, lead_count, loan_amount_required) "
+            + CORRECTIONS_SQL + " ORDER BY 1, 2, 3, 4 "
+            + "ON CONFLICT ON CONSTRAINT uq_lead_pipeline_rollups DO UPDATE "
+            + "SET lead_count = r.lead_count + EXCLUDED.lead_count, "
+            + "loan_amount_required = r.loan_amount_required + EXCLUDED.loan_amount_required");
+    }
+
+    /**
+     * Drops rollup rows left empty by deletes and status changes.
+     *
+     * @return rows deleted
+     */
+    public int deleteEmptyGroups() {
+        return jdbcTemplate.update("DELETE FROM custom_features.lead_pipeline_rollups "
+            + "WHERE lead_count = 0 AND loan_amount_required = 0");
+    }
+}
@@ -0,0 +1,183 @@
+package com.aarvee.crm.repository;
+
+import com.aarvee.crm.dto.BoardColumn;
+import com.aarvee.crm.util.LeadFilter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Card positions on the lead board: each lead sits in a {@code stage} column at a sparse
+ * {@code index} key, ordered by (index, id). Keys are spaced {@link #GAP} apart when a column
+ * is respaced, so a move can almost always pick a free key between its new neighbours and
+ * write only the moved row. All reads go through the (stage, index, id) index.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LeadBoardRepository {
+
+    /** Distance between neighbouring keys after a respace; 16 halvings before it runs out. */
+    public static final long GAP = 1L << 16;
+
+    private static final String NEXT_SQL = "SELECT index FROM custom_features.lead_extensions "
+        + "WHERE stage = ? AND (index, id) > (?, ?) AND id <> ? ORDER BY index, id LIMIT 1";
+
+    private static final String FIRST_SQL = "SELECT index FROM custom_features.lead_extensions "
+        + "WHERE stage = ? AND id <> ? ORDER BY index, id LIMIT 1";
+
+    // A respace can meet cards that moved between columns during it; locking them in id order
+    // first keeps two respaces of different columns from waiting on each other
+    private static final String LOCK_COLUMN_ROWS_SQL = "SELECT id FROM custom_features.lead_extensions "
+        + "WHERE stage = ? ORDER BY id FOR UPDATE";
+
+    private static final String RESPACE_SQL = "UPDATE custom_features.lead_extensions l "
+        + "SET index = r.position * ?, version = l.version + 1 "
+        + "FROM (SELECT id, ROW_NUMBER() OVER (ORDER BY index, id) AS position "
+        + "FROM custom_features.lead_extensions WHERE stage = ?) r "
+        + "WHERE l.id = r.id AND l.stage = ? AND l.index <> r.position * ? "
+        + "RETURNING l.id";
+
+    // What a board card shows; the JSONB details and long text stay unread
+    private static final List<String> CARD_COLUMNS = List.of("id", "lead_number", "customer_name",
+        "contact_number", "product", "loan_amount_required", "lead_status", "lead_assigned_to", "index", "version");
+
+    /**
+     * Where a card is: its column and key.
+     */
+    public record Position(String stage, long index) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Serializes writers of one column until the surrounding transaction ends, so two moves
+     * never pick keys from the same stale neighbours and a respace never overwrites a move.
+     */
+    public void lockColumn(String stage) {
+        jdbcTemplate.query("SELECT pg_advisory_xact_lock(hashtext('lead_board:' || ?))", rs -> null, stage);
+    }
+
+    public Optional<Position> findPosition(long id) {
+        List<Position> found = jdbcTemplate.query(
+            "SELECT stage, index FROM custom_features.lead_extensions WHERE id = ?",
+            (rs, rowNum) -> new Position(rs.getString(1), rs.getLong(2)), id);
+        return found.isEmpty() ? Optional.empty() : Optional.of(found.get(0));
+    }
+
+    /**
+     * Key of the card right after (index, id) in the column, ignoring {@code excludeId}; empty at the end.
+     */
+    public Optional<Long> nextKey(String stage, long index, long id, long excludeId) {
+        return first(jdbcTemplate.query(NEXT_SQL, (rs, rowNum) -> rs.getLong(1), stage, index, id, excludeId));
+    }
+
+    /**
+     * Key of the column's top card, ignoring {@code excludeId}; empty if there is none.
+     */
+    public Optional<Long> firstKey(String stage, long excludeId) {
+        return first(jdbcTemplate.query(FIRST_SQL, (rs, rowNum) -> rs.getLong(1), stage, excludeId));
+    }
+
+    /**
+     * Puts one card at the given column and key, bumping its version.
+     *
+     * @return the new version, or empty if there is no lead with that id
+     */
+    public Optional<Long> move(long id, String stage, long index) {
+        return first(jdbcTemplate.query("UPDATE custom_features.lead_extensions "
+                + "SET stage = ?, index = ?, version = version + 1, updated_at = ? WHERE id = ? RETURNING version",
+            (rs, rowNum) -> rs.getLong(1), stage, index, LocalDateTime.now(), id));
+    }
+
+    /**
+     * Rewrites the column's keys to {@link #GAP}, 2 * GAP, ... keeping the card order, in one
+     * UPDATE that skips cards already at their key. The column's rows are locked in id order first.
+     *
+     * @return ids of the cards whose key changed
+     */
+    public List<Long> respace(String stage) {
+        jdbcTemplate.query(LOCK_COLUMN_ROWS_SQL, rs -> null, stage);
+        return jdbcTemplate.query(RESPACE_SQL, (rs, rowNum) -> rs.getLong(1), GAP, stage, stage, GAP);
+    }
+
+    /**
+     * The whole board in one statement: per stage, the number of matching leads and their
+     * loan_amount_required total, plus the top {@code perStage} cards, read by a LATERAL join
+     * that walks the (stage, index, id) index of each column and stops after the limit.
+     *
+     * @param stages the columns to return, in this order, empty ones included; null for every
+     *               stage that has leads, by name
+     */
+    public List<BoardColumn> board(List<String> stages, int perStage, LeadFilter filter) {
+        StringBuilder filterSql = new StringBuilder();
+        List<Object> filterParams = new ArrayList<>();
+        LeadFilterSql.appendWhere(filterSql, filterParams, filter);
+        String conditions = filterSql.isEmpty() ? null : filterSql.substring(" WHERE ".length());
+
+        List<Object> params = new ArrayList<>();
+        String stage = stages == null ? "a.stage" : "w.stage";
+        StringBuilder sql = new StringBuilder("SELECT ").append(stage)
+            .append(" AS board_stage, coalesce(a.total, 0) AS board_total, coalesce(a.amount, 0) AS board_amount, c.* FROM ");
+        if (stages != null) {
+            sql.append("unnest(?) WITH ORDINALITY AS w(stage, position) LEFT JOIN ");
+            params.add(stages);
+        }
+        sql.append("(SELECT stage, count(*) AS total, sum(loan_amount_required) AS amount "
+            + "FROM custom_features.lead_extensions");
+        String separator = " WHERE ";
+        if (stages != null) {
+            sql.append(separator).append("stage = ANY(?)");
+            separator = " AND ";
+            params.add(stages);
+        }
+        if (conditions != null) {
+            sql.append(separator).append(conditions);
+            params.addAll(filterParams);
+        }
+        sql.append(" GROUP BY stage) a");
+        if (stages != null) {
+            sql.append(" ON a.stage = w.stage");
+        }
+        sql.append(" LEFT JOIN LATERAL (SELECT ").append(String.join(", ", CARD_COLUMNS))
+            .append(" FROM custom_features.lead_extensions WHERE stage = ").append(stage);
+        if (conditions != null) {
+            sql.append(" AND ").append(conditions);
+            params.addAll(filterParams);
+        }
+        sql.append(" ORDER BY index, id LIMIT ?) c ON true ORDER BY ")
+            .append(stages == null ? "a.stage" : "w.position").append(", c.index, c.id");
+        params.add(perStage);
+
+        Map<String, BoardColumn> columns = new LinkedHashMap<>();
+        jdbcTemplate.query(LeadFilterSql.statement(sql.toString(), params), rs -> {
+            BoardColumn column = columns.computeIfAbsent(rs.getString("board_stage"), ignored -> new BoardColumn());
+            if (column.getCards() == null) {
+                column.setStage(rs.getString("board_stage"));
+                column.setTotal(rs.getLong("board_total"));
+                column.setLoanAmountRequired(rs.getBigDecimal("board_amount"));
+                column.setCards(new ArrayList<>());
+            }
+            if (rs.getObject("id") == null) {
+                // a stage without matching leads
+                return;
+            }
+            Map<String, Object> card = new LinkedHashMap<>();
+            for (String name : CARD_COLUMNS) {
+                card.put(name, rs.getObject(name));
+            }
+            column.getCards().add(card);
+        });
+        return new ArrayList<>(columns.values());
+    }
+
+    private static <T> Optional<T> first(List<T> rows) {
+        return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+    }
+}
@@ -0,0 +1,27 @@
+package com.aarvee.crm.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * The lead change log behind the list watermark ({@link LeadExtensionRepository#changeWatermark()}):
+ * one row per statement that wrote lead_extensions, appended by a trigger without locking
+ * anything other writers touch.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LeadChangeLogRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Moves the committed log rows into the watermark's counter row, leaving the watermark as it was.
+     *
+     * @return rows folded, or -1 if another node is folding
+     */
+    public long fold() {
+        Long folded = jdbcTemplate.queryForObject("SELECT custom_features.fold_lead_extensions_changes()", Long.class);
+        return folded == null ? 0 : folded;
+    }
+}
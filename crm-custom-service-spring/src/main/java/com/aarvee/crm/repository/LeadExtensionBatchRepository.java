@@ -0,0 +1,159 @@
+package com.aarvee.crm.repository;
+
+import com.aarvee.crm.entity.LeadExtension;
+import com.aarvee.crm.entity.RawJson;
+import com.aarvee.crm.util.LeadFilter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plain JDBC writes for lead extensions that Hibernate cannot do efficiently: batched inserts
+ * (IDENTITY ids keep Hibernate from batching; with the driver's reWriteBatchedInserts each
+ * batch is sent as a few multi-row INSERTs) and set-based updates and deletes that return
+ * the affected ids in the same statement.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LeadExtensionBatchRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO custom_features.lead_extensions ("
+        + "contact_id, lead_number, customer_name, contact_number, product, loan_amount_required, "
+        + "location, lead_referred_by, short_description, lead_assigned_to, lead_status, disbursed_at, "
+        + "business_details, property_details, auto_loan_details, machinery_loan_details, "
+        + "created_at, updated_at) "
+        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, "
+        + "CAST(? AS jsonb), CAST(? AS jsonb), CAST(? AS jsonb), CAST(? AS jsonb), ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts all leads in one JDBC batch. Lead numbers must already be assigned.
+     */
+    public void insertAll(List<LeadExtension> leads) {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(INSERT_SQL, leads, leads.size(), (ps, lead) -> {
+            ps.setObject(1, lead.getContactId(), Types.BIGINT);
+            ps.setString(2, lead.getLeadNumber());
+            ps.setString(3, lead.getCustomerName());
+            ps.setString(4, lead.getContactNumber());
+            ps.setString(5, lead.getProduct());
+            ps.setBigDecimal(6, lead.getLoanAmountRequired());
+            ps.setString(7, lead.getLocation());
+            ps.setString(8, lead.getLeadReferredBy());
+            ps.setString(9, lead.getShortDescription());
+            ps.setObject(10, lead.getLeadAssignedTo(), Types.BIGINT);
+            ps.setString(11, lead.getLeadStatus());
+            ps.setObject(12, lead.getDisbursedAt(), Types.DATE);
+            setJson(ps, 13, lead.getBusinessDetails());
+            setJson(ps, 14, lead.getPropertyDetails());
+            setJson(ps, 15, lead.getAutoLoanDetails());
+            setJson(ps, 16, lead.getMachineryLoanDetails());
+            ps.setObject(17, now);
+            ps.setObject(18, now);
+        });
+    }
+
+    private static void setJson(PreparedStatement ps, int index, RawJson value) throws SQLException {
+        ps.setString(index, value == null ? null : value.json());
+    }
+
+    /**
+     * Applies the column changes to every row matching the scope in one UPDATE.
+     *
+     * @param changes column name to new value; names must be lead_extensions columns
+     * @return ids of the updated rows
+     */
+    public List<Long> updateWhere(LeadFilter scope, Map<String, Object> changes) {
+        if (scope.isEmpty()) {
+            throw new IllegalArgumentException("A bulk operation needs ids or a filter");
+        }
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("UPDATE custom_features.lead_extensions SET ");
+        for (Map.Entry<String, Object> change : changes.entrySet()) {
+            if (!change.getKey().matches("[a-z_]+")) {
+                throw new IllegalArgumentException("Invalid column: " + change.getKey());
+            }
+            sql.append(change.getKey()).append(" = ?, ");
+            params.add(change.getValue());
+        }
+        sql.append("version = version + 1, updated_at = ?");
+        params.add(LocalDateTime.now());
+        LeadFilterSql.appendWhere(sql, params, scope);
+        sql.append(" RETURNING id");
+        return queryIds(sql.toString(), params);
+    }
+
+    /**
+     * Moves every row matching the scope into the board column {@code stage}, below its last
+     * card and in their current board order, and applies the other column changes, in one
+     * UPDATE. Rows already in that column keep their key. The rows are locked in id order
+     * first, the same order a column respace uses. The caller holds the column's board lock.
+     *
+     * @param changes other column name to new value; names must be lead_extensions columns
+     * @return ids of the updated rows
+     */
+    public List<Long> appendToColumn(LeadFilter scope, String stage, Map<String, Object> changes) {
+        if (scope.isEmpty()) {
+            throw new IllegalArgumentException("A bulk operation needs ids or a filter");
+        }
+        List<Object> lockParams = new ArrayList<>();
+        StringBuilder lock = new StringBuilder("SELECT id FROM custom_features.lead_extensions");
+        LeadFilterSql.appendWhere(lock, lockParams, scope);
+        lock.append(" ORDER BY id FOR UPDATE");
+        jdbcTemplate.query(LeadFilterSql.statement(lock.toString(), lockParams), rs -> null);
+
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("UPDATE custom_features.lead_extensions l SET ");
+        for (Map.Entry<String, Object> change : changes.entrySet()) {
+            if (!change.getKey().matches("[a-z_]+")) {
+                throw new IllegalArgumentException("Invalid column: " + change.getKey());
+            }
+            sql.append(change.getKey()).append(" = ?, ");
+            params.add(change.getValue());
+        }
+        sql.append("stage = ?, index = CASE WHEN r.moving THEN coalesce(b.last_key, 0) + r.position * ? ELSE l.index END, "
+            + "version = l.version + 1, updated_at = ? "
+            + "FROM (SELECT id, stage <> ? AS moving, "
+            + "ROW_NUMBER() OVER (PARTITION BY stage <> ? ORDER BY stage, index, id) AS position "
+            + "FROM custom_features.lead_extensions");
+        params.add(stage);
+        params.add(LeadBoardRepository.GAP);
+        params.add(LocalDateTime.now());
+        params.add(stage);
+        params.add(stage);
+        LeadFilterSql.appendWhere(sql, params, scope);
+        sql.append(") r, (SELECT max(index) AS last_key FROM custom_features.lead_extensions WHERE stage = ?) b "
+            + "WHERE l.id = r.id RETURNING l.id");
+        params.add(stage);
+        return queryIds(sql.toString(), params);
+    }
+
+    /**
+     * Deletes every row matching the scope in one DELETE.
+     *
+     * @return ids of the deleted rows
+     */
+    public List<Long> deleteWhere(LeadFilter scope) {
+        if (scope.isEmpty()) {
+            throw new IllegalArgumentException("A bulk operation needs ids or a filter");
+        }
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("DELETE FROM custom_features.lead_extensions");
+        LeadFilterSql.appendWhere(sql, params, scope);
+        sql.append(" RETURNING id");
+        return queryIds(sql.toString(), params);
+    }
+
+    private List<Long> queryIds(String sql, List<Object> params) {
+        return jdbcTemplate.query(LeadFilterSql.statement(sql, params), (rs, rowNum) -> rs.getLong(1));
+    }
+}
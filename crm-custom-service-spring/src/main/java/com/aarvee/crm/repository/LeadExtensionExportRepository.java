@@ -0,0 +1,59 @@
+package com.aarvee.crm.repository;
+
+import com.aarvee.crm.util.LeadFilter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Forward-only reads of lead extensions for exports. Rows are handed to the callback one at
+ * a time straight from the JDBC result set; with a fetch size inside a transaction the
+ * Postgres driver uses a server-side cursor, so only one fetch worth of rows is ever held.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LeadExtensionExportRepository {
+
+    /**
+     * Exported columns, in output order.
+     */
+    public static final List<String> COLUMNS = List.of(
+        "id", "contact_id", "lead_number", "customer_name", "contact_number", "product",
+        "loan_amount_required", "location", "lead_referred_by", "short_description",
+        "lead_assigned_to", "lead_status", "disbursed_at", "business_details", "property_details",
+        "auto_loan_details", "machinery_loan_details", "created_at", "updated_at");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Streams every row matching the filter, ordered by (sortField, id). Must run inside a
+     * transaction for the fetch size to take effect.
+     *
+     * @param sortField entity property name, already validated against the sort allow-list
+     */
+    public void streamAll(LeadFilter filter, String sortField, boolean descending, int fetchSize,
+                          RowCallbackHandler handler) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT ")
+            .append(String.join(", ", COLUMNS))
+            .append(" FROM custom_features.lead_extensions");
+        LeadFilterSql.appendWhere(sql, params, filter);
+        String direction = descending ? " DESC" : " ASC";
+        sql.append(" ORDER BY ").append(LeadFilterSql.column(sortField)).append(direction);
+        if (!"id".equals(sortField)) {
+            sql.append(", id").append(direction);
+        }
+
+        PreparedStatementCreator statement = LeadFilterSql.statement(sql.toString(), params);
+        jdbcTemplate.query(connection -> {
+            var ps = statement.createPreparedStatement(connection);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, handler);
+    }
+}
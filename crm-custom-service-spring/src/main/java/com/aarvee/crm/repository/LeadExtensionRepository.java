@@ -2,12 +2,44 @@ package com.aarvee.crm.repository;
 
 import com.aarvee.crm.entity.LeadExtension;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface LeadExtensionRepository extends JpaRepository<LeadExtension, Long> {
+public interface LeadExtensionRepository extends JpaRepository<LeadExtension, Long>,
+        JpaSpecificationExecutor<LeadExtension>, LeadExtensionRepositoryCustom {
     List<LeadExtension> findByLeadNumberStartingWith(String prefix);
-    long countByLeadNumberStartingWith(String prefix);
+
+    /**
+     * Planner row estimate for the whole table (maintained by ANALYZE/autovacuum); -1 if never analyzed.
+     */
+    @Query(value = "SELECT CAST(reltuples AS BIGINT) FROM pg_class "
+        + "WHERE oid = to_regclass('custom_features.lead_extensions')", nativeQuery = true)
+    Long estimateRowCount();
+
+    /**
+     * All rows with one of the given ids, as a single array-bound query; order is unspecified.
+     */
+    @Query(value = "SELECT * FROM custom_features.lead_extensions WHERE id = ANY(:ids)", nativeQuery = true)
+    List<LeadExtension> findAllByIdAny(@Param("ids") Long[] ids);
+
+    /**
+     * Current version of one lead, without loading the row's JSONB columns.
+     */
+    @Query("SELECT l.version FROM LeadExtension l WHERE l.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Number of committed statements that wrote lead_extensions: the folded counter plus the
+     * change log rows a trigger appends per statement, read in one snapshot.
+     */
+    @Query(value = "SELECT (SELECT change_seq FROM custom_features.lead_extensions_watermark WHERE id = 1) "
+        + "+ (SELECT count(*) FROM custom_features.lead_extensions_changes)",
+        nativeQuery = true)
+    long changeWatermark();
 }
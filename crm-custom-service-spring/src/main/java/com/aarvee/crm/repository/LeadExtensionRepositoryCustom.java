@@ -0,0 +1,41 @@
+package com.aarvee.crm.repository;
+
+import com.aarvee.crm.entity.LeadExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Queries on {@link LeadExtension} that Spring Data cannot derive.
+ */
+public interface LeadExtensionRepositoryCustom {
+
+    /**
+     * Returns one page of matching rows without running the count query that
+     * {@code findAll(Specification, Pageable)} always issues.
+     */
+    List<LeadExtension> findPageContent(Specification<LeadExtension> spec, Pageable pageable);
+
+    /**
+     * Like {@link #findPageContent} but selects only the given attributes, so unselected
+     * columns (TEXT, JSONB) are neither read nor hydrated.
+     *
+     * @param attributes entity attribute names to select
+     * @return one map per row, keyed by the attributes' JSON (snake_case) names
+     */
+    List<Map<String, Object>> findProjection(Specification<LeadExtension> spec, Sort sort, long offset, int limit,
+                                             List<String> attributes);
+
+    /**
+     * Updates only the given columns of one row in a single statement, bumping its version.
+     *
+     * @param columns column name to new value; JSONB columns take JSON text
+     * @param expectedVersion apply only if the row is still at this version; null skips the check
+     * @return the updated row, or empty if no row has that id (and version)
+     */
+    Optional<LeadExtension> patch(Long id, Long expectedVersion, Map<String, Object> columns);
+}
@@ -0,0 +1,123 @@
+package com.aarvee.crm.repository;
+
+import com.aarvee.crm.entity.LeadExtension;
+import com.aarvee.crm.util.LeadFields;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+class LeadExtensionRepositoryCustomImpl implements LeadExtensionRepositoryCustom {
+
+    private static final Set<String> JSON_COLUMNS = Set.of(
+        "business_details", "property_details", "auto_loan_details", "machinery_loan_details");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<LeadExtension> findPageContent(Specification<LeadExtension> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<LeadExtension> query = cb.createQuery(LeadExtension.class);
+        Root<LeadExtension> root = query.from(LeadExtension.class);
+
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        return entityManager.createQuery(query)
+            .setFirstResult((int) pageable.getOffset())
+            .setMaxResults(pageable.getPageSize())
+            .getResultList();
+    }
+
+    @Override
+    public List<Map<String, Object>> findProjection(Specification<LeadExtension> spec, Sort sort, long offset, int limit,
+                                                    List<String> attributes) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<LeadExtension> root = query.from(LeadExtension.class);
+        query.multiselect(attributes.stream().<Selection<?>>map(a -> root.get(a).alias(a)).toList());
+
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+
+        List<Tuple> tuples = entityManager.createQuery(query)
+            .setFirstResult((int) offset)
+            .setMaxResults(limit)
+            .getResultList();
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String attribute : attributes) {
+                row.put(LeadFields.jsonName(attribute), tuple.get(attribute));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @Override
+    public Optional<LeadExtension> patch(Long id, Long expectedVersion, Map<String, Object> columns) {
+        StringBuilder sql = new StringBuilder("UPDATE custom_features.lead_extensions SET ");
+        int index = 0;
+        for (Map.Entry<String, Object> column : columns.entrySet()) {
+            if (!column.getKey().matches("[a-z_]+")) {
+                throw new IllegalArgumentException("Invalid column: " + column.getKey());
+            }
+            sql.append(column.getKey()).append(" = ");
+            if (column.getValue() == null) {
+                // an untyped null parameter would be bound as varchar
+                sql.append("NULL");
+            } else if (JSON_COLUMNS.contains(column.getKey())) {
+                sql.append("CAST(:p").append(index).append(" AS jsonb)");
+            } else {
+                sql.append(":p").append(index);
+            }
+            sql.append(", ");
+            index++;
+        }
+        sql.append("version = version + 1, updated_at = :updatedAt WHERE id = :id");
+        if (expectedVersion != null) {
+            sql.append(" AND version = :version");
+        }
+        sql.append(" RETURNING *");
+
+        Query query = entityManager.createNativeQuery(sql.toString(), LeadExtension.class);
+        index = 0;
+        for (Object value : columns.values()) {
+            if (value != null) {
+                query.setParameter("p" + index, value);
+            }
+            index++;
+        }
+        query.setParameter("updatedAt", LocalDateTime.now());
+        query.setParameter("id", id);
+        if (expectedVersion != null) {
+            query.setParameter("version", expectedVersion);
+        }
+        return query.getResultList().stream().map(LeadExtension.class::cast).findFirst();
+    }
+}
@@ -0,0 +1,123 @@
+package com.aarvee.crm.repository;
+
+import com.aarvee.crm.util.LeadFilter;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * SQL rendering of {@link LeadFilter} for the plain JDBC repositories.
+ */
+final class LeadFilterSql {
+
+    private LeadFilterSql() {
+        // utility
+    }
+
+    /**
+     * Prepared statement for the SQL with every parameter bound; lists bind as one array.
+     */
+    static PreparedStatementCreator statement(String sql, List<Object> params) {
+        return connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            for (int i = 0; i < params.size(); i++) {
+                bind(connection, ps, i + 1, params.get(i));
+            }
+            return ps;
+        };
+    }
+
+    /**
+     * Renders a parsed filter as SQL. Field names come from the filter's allow-list and
+     * every value is bound, mirroring {@link LeadSpecifications#matching(LeadFilter)}.
+     * Appends nothing for an empty filter.
+     */
+    static void appendWhere(StringBuilder sql, List<Object> params, LeadFilter scope) {
+        String separator = " WHERE ";
+        for (LeadFilter.Condition condition : scope.conditions()) {
+            sql.append(separator);
+            separator = " AND ";
+            List<Object> values = condition.values();
+            if (condition.operator() == LeadFilter.Operator.SEARCH) {
+                String pattern = LeadSpecifications.likePrefix((String) values.get(0));
+                sql.append('(');
+                for (int i = 0; i < LeadFilter.SEARCH_FIELDS.size(); i++) {
+                    sql.append(i > 0 ? " OR " : "").append(column(LeadFilter.SEARCH_FIELDS.get(i)))
+                        .append(" LIKE ? ESCAPE '\\'");
+                    params.add(pattern);
+                }
+                sql.append(')');
+                continue;
+            }
+            if (condition.operator() == LeadFilter.Operator.CONTAINS) {
+                // one @> per document so each can use the column's GIN index
+                sql.append('(');
+                for (int i = 0; i < values.size(); i++) {
+                    sql.append(i > 0 ? " OR " : "").append(column(condition.field())).append(" @> CAST(? AS jsonb)");
+                    params.add(values.get(i));
+                }
+                sql.append(')');
+                continue;
+            }
+            sql.append(column(condition.field()));
+            switch (condition.operator()) {
+                case EQ -> sql.append(" = ?");
+                case NEQ -> sql.append(" <> ?");
+                case GT -> sql.append(" > ?");
+                case GTE -> sql.append(" >= ?");
+                case LT -> sql.append(" < ?");
+                case LTE -> sql.append(" <= ?");
+                case PREFIX -> sql.append(" LIKE ? ESCAPE '\\'");
+                case IN -> sql.append(" = ANY(?)");
+                default -> throw new IllegalArgumentException("Unsupported filter operator: " + condition.operator());
+            }
+            if (condition.operator() == LeadFilter.Operator.IN) {
+                params.add(values);
+            } else if (condition.operator() == LeadFilter.Operator.PREFIX) {
+                params.add(LeadSpecifications.likePrefix((String) values.get(0)));
+            } else {
+                params.add(values.get(0));
+            }
+        }
+    }
+
+    static String column(String field) {
+        return field.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toLowerCase();
+    }
+
+    private static void bind(Connection connection, PreparedStatement ps, int index, Object value) throws SQLException {
+        if (value instanceof List<?> list) {
+            // one array parameter however many values there are
+            Object first = list.get(0);
+            Object[] elements = list.stream().map(LeadFilterSql::jdbcValue).toArray();
+            ps.setArray(index, connection.createArrayOf(sqlArrayType(first), elements));
+        } else if (value == null) {
+            ps.setNull(index, Types.NULL);
+        } else {
+            ps.setObject(index, jdbcValue(value));
+        }
+    }
+
+    private static Object jdbcValue(Object value) {
+        return value instanceof LocalDateTime dateTime ? Timestamp.valueOf(dateTime) : value;
+    }
+
+    private static String sqlArrayType(Object sample) {
+        if (sample instanceof Long) {
+            return "bigint";
+        } else if (sample instanceof BigDecimal) {
+            return "numeric";
+        } else if (sample instanceof LocalDateTime) {
+            return "timestamp";
+        }
+        return "text";
+    }
+
+}
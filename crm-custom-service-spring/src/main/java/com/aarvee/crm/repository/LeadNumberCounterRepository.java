@@ -0,0 +1,23 @@
+package com.aarvee.crm.repository;
+
+import com.aarvee.crm.entity.LeadNumberCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+@Repository
+public interface LeadNumberCounterRepository extends JpaRepository<LeadNumberCounter, LocalDate> {
+
+    /**
+     * Atomically reserves the next {@code blockSize} sequence values for the day and
+     * returns the highest one. The row lock is held only for this single statement.
+     */
+    @Query(value = "INSERT INTO custom_features.lead_number_counters AS c (day, last_value) "
+        + "VALUES (:day, :blockSize) "
+        + "ON CONFLICT (day) DO UPDATE SET last_value = c.last_value + EXCLUDED.last_value "
+        + "RETURNING c.last_value", nativeQuery = true)
+    long reserveBlock(@Param("day") LocalDate day, @Param("blockSize") int blockSize);
+}
@@ -0,0 +1,162 @@
+package com.aarvee.crm.repository;
+
+import com.aarvee.crm.entity.LeadExtension;
+import com.aarvee.crm.util.KeysetCursor;
+import com.aarvee.crm.util.LeadFilter;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reusable query predicates for {@link LeadExtension}.
+ */
+public final class LeadSpecifications {
+
+    private LeadSpecifications() {
+        // utility
+    }
+
+    /**
+     * Seek predicate selecting the rows that come after the cursor when ordered by
+     * (sortField, id) in the cursor's direction, within the cursor's block: the rows whose
+     * sort key is null, or the rows whose key is not. The predicate always carries a plain
+     * bound on the sort field ({@code field <= v} descending, {@code field >= v} ascending,
+     * or {@code field IS NULL}), so a (sortField, id) index is entered at the cursor rather
+     * than scanned from its start. Rows of the block that follows are selected by
+     * {@link #blockAfter(KeysetCursor)}.
+     * <p>
+     * Mirrors Postgres' default null ordering (nulls sort last ascending, first descending),
+     * so nullable sort columns page correctly without NULLS FIRST/LAST clauses.
+     *
+     * @throws IllegalArgumentException if the cursor's sort key does not fit the sort field's type
+     */
+    public static Specification<LeadExtension> after(KeysetCursor cursor) {
+        Comparable<Object> value = cursor.value() == null || "id".equals(cursor.sortField())
+            ? null
+            : convert(cursor.value(), BeanUtils.findPropertyType(cursor.sortField(), LeadExtension.class));
+        return (root, query, cb) -> {
+            Path<Long> id = root.get("id");
+            Predicate idAfter = cursor.descending() ? cb.lessThan(id, cursor.id()) : cb.greaterThan(id, cursor.id());
+            if ("id".equals(cursor.sortField())) {
+                return idAfter;
+            }
+
+            Path<Comparable<Object>> field = root.get(cursor.sortField());
+            if (cursor.value() == null) {
+                return cb.and(cb.isNull(field), idAfter);
+            }
+
+            Predicate sameKey = cb.and(cb.equal(field, value), idAfter);
+            if (cursor.descending()) {
+                return cb.and(cb.lessThanOrEqualTo(field, value), cb.or(cb.lessThan(field, value), sameKey));
+            }
+            return cb.and(cb.greaterThanOrEqualTo(field, value), cb.or(cb.greaterThan(field, value), sameKey));
+        };
+    }
+
+    /**
+     * The block of rows that follows the cursor's block, read once {@link #after(KeysetCursor)}
+     * runs out: the null keys after the last value ascending, the non-null keys after the
+     * nulls descending. Null when nothing follows (id sorts, or the cursor is in the last block).
+     */
+    public static Specification<LeadExtension> blockAfter(KeysetCursor cursor) {
+        if ("id".equals(cursor.sortField()) || cursor.descending() != (cursor.value() == null)) {
+            return null;
+        }
+        return (root, query, cb) -> cursor.descending()
+            ? cb.isNotNull(root.get(cursor.sortField()))
+            : cb.isNull(root.get(cursor.sortField()));
+    }
+
+    /**
+     * Predicate for a parsed list filter: all conditions must hold. Values were already
+     * type-checked against the filter allow-list, so they bind as typed parameters.
+     */
+    public static Specification<LeadExtension> matching(LeadFilter filter) {
+        if (filter.isEmpty()) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            for (LeadFilter.Condition condition : filter.conditions()) {
+                predicates.add(toPredicate(condition, root, cb));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Predicate toPredicate(LeadFilter.Condition condition, Root<LeadExtension> root, CriteriaBuilder cb) {
+        List<Object> values = condition.values();
+        if (condition.operator() == LeadFilter.Operator.SEARCH) {
+            String pattern = likePrefix((String) values.get(0));
+            List<Predicate> any = new ArrayList<>();
+            for (String field : LeadFilter.SEARCH_FIELDS) {
+                any.add(cb.like(root.get(field), pattern, '\\'));
+            }
+            return cb.or(any.toArray(new Predicate[0]));
+        }
+        if (condition.operator() == LeadFilter.Operator.CONTAINS) {
+            // value() binds the document; cb.literal would inline it into the SQL text
+            HibernateCriteriaBuilder hcb = (HibernateCriteriaBuilder) cb;
+            List<Predicate> any = new ArrayList<>();
+            for (Object document : values) {
+                any.add(cb.isTrue(cb.function(JsonbFunctionContributor.JSONB_CONTAINS, Boolean.class,
+                    root.get(condition.field()), hcb.value((String) document))));
+            }
+            return any.size() == 1 ? any.get(0) : cb.or(any.toArray(new Predicate[0]));
+        }
+
+        Path<Comparable<Object>> field = root.get(condition.field());
+        Comparable<Object> value = (Comparable<Object>) values.get(0);
+        return switch (condition.operator()) {
+            case EQ -> cb.equal(field, value);
+            case NEQ -> cb.notEqual(field, value);
+            case IN -> field.in(values);
+            case GT -> cb.greaterThan(field, value);
+            case GTE -> cb.greaterThanOrEqualTo(field, value);
+            case LT -> cb.lessThan(field, value);
+            case LTE -> cb.lessThanOrEqualTo(field, value);
+            case PREFIX -> cb.like(root.get(condition.field()), likePrefix((String) values.get(0)), '\\');
+            default -> throw new IllegalArgumentException("Unsupported filter operator: " + condition.operator());
+        };
+    }
+
+    // Escapes LIKE wildcards so user input only ever matches as a literal prefix
+    static String likePrefix(String prefix) {
+        return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> convert(String raw, Class<?> type) {
+        try {
+            return (Comparable<Object>) parse(raw, type);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private static Object parse(String raw, Class<?> type) {
+        if (type == Long.class) {
+            return Long.valueOf(raw);
+        } else if (type == Integer.class) {
+            return Integer.valueOf(raw);
+        } else if (type == Short.class) {
+            return Short.valueOf(raw);
+        } else if (type == BigDecimal.class) {
+            return new BigDecimal(raw);
+        } else if (type == LocalDateTime.class) {
+            return LocalDateTime.parse(raw);
+        }
+        return raw;
+    }
+}
@@ -0,0 +1,131 @@
+package com.aarvee.crm.repository;
+
+import com.aarvee.crm.entity.Reminder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Set-based reminder queue operations for {@code ReminderDispatcher}. Every method is a single
+ * auto-committed statement: a claim locks its rows only while it runs, and skips rows another
+ * node is claiming at the same moment instead of waiting for them.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReminderDispatchRepository {
+
+    private static final String CLAIM_SQL = "WITH due AS ("
+        + "SELECT id FROM custom_features.reminders "
+        + "WHERE status = 'pending' AND due_date <= ? AND (next_attempt_at IS NULL OR next_attempt_at <= ?) "
+        + "ORDER BY due_date, id LIMIT ? FOR UPDATE SKIP LOCKED) "
+        + "UPDATE custom_features.reminders r "
+        + "SET status = 'sending', claimed_until = ?, attempts = r.attempts + 1 "
+        + "FROM due WHERE r.id = due.id "
+        + "RETURNING r.id, r.contact_id, r.type, r.due_date, r.message, r.attempts, r.created_at";
+
+    private static final String RETRY_SQL = "UPDATE custom_features.reminders "
+        + "SET status = ?, next_attempt_at = ?, claimed_until = NULL, last_error = ? "
+        + "WHERE id = ? AND status = 'sending'";
+
+    private static final RowMapper<Reminder> CLAIMED = (rs, rowNum) -> {
+        Reminder reminder = new Reminder();
+        reminder.setId(rs.getLong("id"));
+        reminder.setContactId(rs.getObject("contact_id", Long.class));
+        reminder.setType(rs.getString("type"));
+        reminder.setDueDate(rs.getObject("due_date", LocalDate.class));
+        reminder.setMessage(rs.getString("message"));
+        reminder.setStatus("sending");
+        reminder.setAttempts(rs.getInt("attempts"));
+        reminder.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        return reminder;
+    };
+
+    /**
+     * A failed delivery: back to {@code pending} until {@code nextAttemptAt}, or {@code failed}
+     * for good when {@code nextAttemptAt} is null.
+     */
+    public record Retry(long id, LocalDateTime nextAttemptAt, String error) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Moves up to {@code limit} due pending reminders to {@code sending}, leased until
+     * {@code leaseUntil}, and returns them with their attempt count already incremented.
+     */
+    public List<Reminder> claim(LocalDateTime now, int limit, LocalDateTime leaseUntil) {
+        return jdbcTemplate.query(CLAIM_SQL, CLAIMED,
+            now.toLocalDate(), Timestamp.valueOf(now), limit, Timestamp.valueOf(leaseUntil));
+    }
+
+    /**
+     * Marks claimed reminders as sent in one UPDATE.
+     *
+     * @return rows updated; rows whose lease already expired and were released are left
+     *         alone and will be delivered again
+     */
+    public int markSent(List<Long> ids, LocalDateTime sentAt) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Object> params = new ArrayList<>();
+        params.add(sentAt);
+        params.add(ids);
+        return jdbcTemplate.update(LeadFilterSql.statement("UPDATE custom_features.reminders "
+            + "SET status = 'sent', sent_at = ?, claimed_until = NULL, last_error = NULL "
+            + "WHERE id = ANY(?) AND status = 'sending'", params));
+    }
+
+    /**
+     * Marks claimed reminders whose delivery was cut off as {@code unknown} in one UPDATE: the
+     * sender may or may not have delivered them, so they are never retried automatically.
+     */
+    public int markUnknown(List<Long> ids, String error) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Object> params = new ArrayList<>();
+        params.add(error);
+        params.add(ids);
+        return jdbcTemplate.update(LeadFilterSql.statement("UPDATE custom_features.reminders "
+            + "SET status = 'unknown', claimed_until = NULL, last_error = ? "
+            + "WHERE id = ANY(?) AND status = 'sending'", params));
+    }
+
+    /**
+     * Records failed deliveries in one JDBC batch.
+     */
+    public void reschedule(List<Retry> retries) {
+        if (retries.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(RETRY_SQL, retries, retries.size(), (ps, retry) -> {
+            ps.setString(1, retry.nextAttemptAt() == null ? "failed" : "pending");
+            ps.setObject(2, retry.nextAttemptAt() == null ? null : Timestamp.valueOf(retry.nextAttemptAt()), Types.TIMESTAMP);
+            ps.setString(3, retry.error());
+            ps.setLong(4, retry.id());
+        });
+    }
+
+    /**
+     * Returns reminders whose lease ran out (their node stopped mid-batch) to {@code pending}.
+     * Their attempt stays counted, so a reminder that keeps killing its node ends up
+     * {@code failed} once it has had {@code maxAttempts}.
+     *
+     * @return reminders released
+     */
+    public int releaseExpiredClaims(LocalDateTime now, int maxAttempts) {
+        return jdbcTemplate.update("UPDATE custom_features.reminders "
+            + "SET status = CASE WHEN attempts >= ? THEN 'failed' ELSE 'pending' END, "
+            + "claimed_until = NULL, last_error = 'claim expired' "
+            + "WHERE status = 'sending' AND claimed_until < ?", maxAttempts, Timestamp.valueOf(now));
+    }
+}
@@ -0,0 +1,90 @@
+package com.aarvee.crm.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Set-based reminder generation for {@code ReminderGenerator}. Each insert covers one due day
+ * in a single INSERT ... SELECT that finds its rows through an index (the birthday month-day
+ * expression, or the disbursal date), and skips reminders that already exist, so running a
+ * day twice is harmless.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReminderGenerationRepository {
+
+    public static final String BIRTHDAY = "birthday";
+    public static final String LOAN_TOPUP = "loan_topup";
+
+    private static final String BIRTHDAY_SQL = "INSERT INTO custom_features.reminders "
+        + "(contact_id, type, due_date, message, status, created_at) "
+        + "SELECT c.id, 'birthday', ?, "
+        + "'Birthday: ' || trim(coalesce(c.first_name, '') || ' ' || coalesce(c.last_name, '')), 'pending', now() "
+        + "FROM public.contacts c "
+        + "WHERE custom_features.month_day(c.birthday) IN (?, ?) AND c.birthday IS NOT NULL "
+        + "ON CONFLICT DO NOTHING";
+
+    private static final String LOAN_TOPUP_SQL = "INSERT INTO custom_features.reminders "
+        + "(contact_id, lead_extension_id, type, due_date, message, status, created_at) "
+        + "SELECT l.contact_id, l.id, 'loan_topup', ?, "
+        + "'Loan top-up: ' || coalesce(l.customer_name, l.lead_number) || ' (' || l.lead_number || '), "
+        + "disbursed ' || l.disbursed_at || ', is eligible for a top-up', 'pending', now() "
+        + "FROM custom_features.lead_extensions l "
+        + "WHERE l.disbursed_at BETWEEN ? AND ? "
+        + "AND (l.disbursed_at + make_interval(months => ?))::date = ? "
+        + "ON CONFLICT DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return the last day the type was generated through, or null if it never ran
+     */
+    public LocalDate generatedThrough(String type) {
+        List<LocalDate> days = jdbcTemplate.query(
+            "SELECT generated_through FROM custom_features.reminder_generation_watermarks WHERE type = ?",
+            (rs, rowNum) -> rs.getObject(1, LocalDate.class), type);
+        return days.isEmpty() ? null : days.get(0);
+    }
+
+    /**
+     * Moves the type's watermark forward to {@code day}; never backwards.
+     */
+    public void advance(String type, LocalDate day) {
+        jdbcTemplate.update("INSERT INTO custom_features.reminder_generation_watermarks AS w (type, generated_through) "
+            + "VALUES (?, ?) ON CONFLICT (type) DO UPDATE "
+            + "SET generated_through = GREATEST(w.generated_through, EXCLUDED.generated_through)", type, day);
+    }
+
+    /**
+     * Creates the day's birthday reminders. Contacts born on 29 February are reminded on
+     * 28 February in other years.
+     *
+     * @return reminders created
+     */
+    public int insertBirthdays(LocalDate day) {
+        int monthDay = monthDay(day);
+        int leapDayToo = day.getMonthValue() == 2 && day.getDayOfMonth() == 28 && !day.isLeapYear() ? 229 : monthDay;
+        return jdbcTemplate.update(BIRTHDAY_SQL, day, monthDay, leapDayToo);
+    }
+
+    /**
+     * Creates top-up reminders for loans that become eligible on {@code day}, i.e. were
+     * disbursed {@code months} months earlier. Several disbursal days can map to the same
+     * month-end day (31 January plus one month is 28 February), hence the short range, which
+     * the exact check then narrows down.
+     *
+     * @return reminders created
+     */
+    public int insertLoanTopups(LocalDate day, int months) {
+        LocalDate earliest = day.minusMonths(months);
+        return jdbcTemplate.update(LOAN_TOPUP_SQL, day, earliest, earliest.plusDays(3), months, day);
+    }
+
+    static int monthDay(LocalDate day) {
+        return day.getMonthValue() * 100 + day.getDayOfMonth();
+    }
+}
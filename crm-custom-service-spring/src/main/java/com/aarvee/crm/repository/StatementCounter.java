@@ -0,0 +1,95 @@
+package com.aarvee.crm.repository;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts and times the JDBC statements executed on the current thread between {@link #begin()}
+ * and {@link #end()}. Executions are reported by {@link StatementCountingDataSource}, so JPA and
+ * JdbcTemplate statements are both counted; a batch counts once per {@code executeBatch}.
+ * Statements on threads that did not call {@link #begin()} are ignored.
+ */
+public final class StatementCounter {
+
+    // Distinct SQL strings remembered per request for repeat detection; later ones are only counted
+    private static final int MAX_DISTINCT_SQL = 256;
+
+    private static final ThreadLocal<Stats> CURRENT = new ThreadLocal<>();
+
+    private StatementCounter() {
+        // utility
+    }
+
+    public static void begin() {
+        CURRENT.set(new Stats());
+    }
+
+    /**
+     * Statements executed since {@link #begin()}, or null when this thread is not counting.
+     */
+    public static Stats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Statements executed since {@link #begin()}; stops counting on this thread.
+     */
+    public static Stats end() {
+        Stats stats = CURRENT.get();
+        CURRENT.remove();
+        return stats == null ? new Stats() : stats;
+    }
+
+    /**
+     * @param sql   the statement text, or null when it is not known (plain {@code executeBatch})
+     * @param batch whether this was an {@code executeBatch}; batches are never repeat suspects
+     */
+    static void record(String sql, long nanos, boolean batch) {
+        Stats stats = CURRENT.get();
+        if (stats != null) {
+            stats.record(sql, nanos, batch);
+        }
+    }
+
+    public static final class Stats {
+
+        private long count;
+        private long nanos;
+        private final Map<String, Integer> executions = new HashMap<>();
+
+        private void record(String sql, long elapsedNanos, boolean batch) {
+            count++;
+            nanos += elapsedNanos;
+            if (sql != null && !batch && (executions.size() < MAX_DISTINCT_SQL || executions.containsKey(sql))) {
+                executions.merge(sql, 1, Integer::sum);
+            }
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public long nanos() {
+            return nanos;
+        }
+
+        public double millis() {
+            return nanos / 1_000_000.0;
+        }
+
+        /**
+         * Statements executed individually at least {@code threshold} times, with their counts.
+         * The same SQL text run over and over with different parameters is the N+1 pattern.
+         */
+        public Map<String, Integer> repeated(int threshold) {
+            Map<String, Integer> repeated = new LinkedHashMap<>();
+            executions.forEach((sql, times) -> {
+                if (times >= threshold) {
+                    repeated.put(sql, times);
+                }
+            });
+            return repeated;
+        }
+    }
+}
@@ -4,6 +4,13 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.jsonwebtoken.Header;
 import io.jsonwebtoken.Locator;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -17,84 +24,240 @@ import java.security.Key;
 import java.security.KeyFactory;
 import java.security.spec.ECPublicKeySpec;
 import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Fetches and caches public keys from Supabase's JWKS endpoint for JWT validation.
  * Supports both RSA and EC (Elliptic Curve) keys.
+ * <p>
+ * Keys are served from an immutable snapshot that a background thread replaces every
+ * {@code supabase.auth.jwks.refresh-interval-ms}, so request threads never block on the
+ * JWKS endpoint while a key set is available. At most one fetch is in flight at a time.
+ * A token with an unknown {@code kid} triggers an on-demand refresh (at most one per
+ * {@code min-refresh-interval-ms}); kids still missing afterwards are negatively cached
+ * for the same interval.
+ * Fetches are published as the {@code jwks.fetch} timer and {@code jwks.fetch.failures}.
  */
 @Component
 @Slf4j
-public class JwksKeyProvider implements Locator<Key> {
-    
-    @Value("${supabase.auth.url:http://127.0.0.1:54321/auth/v1}")
-    private String supabaseAuthUrl;
-    
+public class JwksKeyProvider implements Locator<Key>, MeterBinder {
+
+    private static final int MAX_UNKNOWN_KIDS = 1000;
+
+    private final String jwksUrl;
+    private final long refreshIntervalMs;
+    private final long minRefreshIntervalMs;
+    private final long fetchTimeoutMs;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private final HttpClient httpClient = HttpClient.newHttpClient();
-    private final Map<String, Key> keyCache = new ConcurrentHashMap<>();
-    private volatile long lastFetchTime = 0;
-    private static final long CACHE_DURATION_MS = 3600000; // 1 hour
-    
+    private final HttpClient httpClient;
+    private final ScheduledExecutorService refresher;
+
+    private volatile KeySnapshot snapshot = KeySnapshot.EMPTY;
+    private final AtomicReference<CompletableFuture<KeySnapshot>> inFlight = new AtomicReference<>();
+    private final AtomicLong lastOnDemandRefresh = new AtomicLong();
+    private final Map<String, Long> unknownKids = new ConcurrentHashMap<>();
+
+    private final AtomicLong fetchCount = new AtomicLong();
+    private final AtomicLong fetchFailures = new AtomicLong();
+    private final AtomicLong fetchNanos = new AtomicLong();
+
+    /**
+     * An immutable set of keys and the time it was fetched.
+     */
+    record KeySnapshot(Map<String, Key> keys, long fetchedAt) {
+        static final KeySnapshot EMPTY = new KeySnapshot(Map.of(), 0);
+    }
+
+    public JwksKeyProvider(
+            @Value("${supabase.auth.url:http://127.0.0.1:54321/auth/v1}") String supabaseAuthUrl,
+            @Value("${supabase.auth.jwks.refresh-interval-ms:600000}") long refreshIntervalMs,
+            @Value("${supabase.auth.jwks.min-refresh-interval-ms:30000}") long minRefreshIntervalMs,
+            @Value("${supabase.auth.jwks.fetch-timeout-ms:5000}") long fetchTimeoutMs,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.jwksUrl = supabaseAuthUrl + "/.well-known/jwks.json";
+        this.refreshIntervalMs = refreshIntervalMs;
+        this.minRefreshIntervalMs = minRefreshIntervalMs;
+        this.fetchTimeoutMs = fetchTimeoutMs;
+        HttpClient.Builder http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(fetchTimeoutMs));
+        if (virtualThreads) {
+            // the client's own async work (connect, response handling) off platform threads too
+            http.executor(Executors.newVirtualThreadPerTaskExecutor());
+            this.refresher = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("jwks-refresher").factory());
+        } else {
+            this.refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "jwks-refresher");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        this.httpClient = http.build();
+    }
+
+    @PostConstruct
+    void start() {
+        // Warm the cache without holding up startup if Supabase is unreachable
+        refresh();
+        refresher.scheduleWithFixedDelay(this::refresh, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        refresher.shutdownNow();
+    }
+
     @Override
     public Key locate(Header header) {
-        String kid = header.get("kid").toString();
+        Object kid = header.get("kid");
         if (kid == null) {
             log.warn("No 'kid' (Key ID) found in JWT header");
             return null;
         }
-        
-        // Check cache first
-        Key cachedKey = keyCache.get(kid);
-        if (cachedKey != null && System.currentTimeMillis() - lastFetchTime < CACHE_DURATION_MS) {
-            return cachedKey;
+        return locateKey(kid.toString());
+    }
+
+    Key locateKey(String kid) {
+        KeySnapshot current = snapshot;
+        Key key = current.keys().get(kid);
+        if (key != null) {
+            // Serve the current key; if the scheduler fell behind, revalidate in the background
+            if (System.currentTimeMillis() - current.fetchedAt() > refreshIntervalMs) {
+                refresh();
+            }
+            return key;
         }
-        
-        // Fetch from JWKS endpoint
+
+        Long negativeUntil = unknownKids.get(kid);
+        if (negativeUntil != null && negativeUntil > System.currentTimeMillis()) {
+            return null;
+        }
+
+        // Unknown kid (key rotation or cold start): join the in-flight fetch or start a rate-limited one
+        CompletableFuture<KeySnapshot> pending = inFlight.get();
+        if (pending == null && tryAcquireOnDemandRefresh()) {
+            pending = refresh();
+        }
+        if (pending == null) {
+            return null;
+        }
+
         try {
-            fetchAndCacheKeys();
-            return keyCache.get(kid);
-        } catch (Exception e) {
-            log.error("Failed to fetch JWKS keys", e);
+            pending.get(fetchTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("JWKS refresh for kid {} did not complete: {}", kid, e.toString());
             return null;
         }
+
+        key = snapshot.keys().get(kid);
+        if (key == null) {
+            rememberUnknownKid(kid);
+        }
+        return key;
     }
-    
-    private synchronized void fetchAndCacheKeys() throws Exception {
-        // Double-check to avoid redundant fetches
-        if (System.currentTimeMillis() - lastFetchTime < CACHE_DURATION_MS) {
-            return;
+
+    /**
+     * Starts a fetch unless one is already running, and returns the in-flight fetch.
+     */
+    CompletableFuture<KeySnapshot> refresh() {
+        while (true) {
+            CompletableFuture<KeySnapshot> existing = inFlight.get();
+            if (existing != null) {
+                return existing;
+            }
+            CompletableFuture<KeySnapshot> fetch = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, fetch)) {
+                refresher.execute(() -> runFetch(fetch));
+                return fetch;
+            }
         }
-        
-        String jwksUrl = supabaseAuthUrl + "/.well-known/jwks.json";
+    }
+
+    private void runFetch(CompletableFuture<KeySnapshot> fetch) {
+        try {
+            KeySnapshot fetched = fetchKeys();
+            snapshot = fetched;
+            inFlight.set(null);
+            fetch.complete(fetched);
+        } catch (Exception e) {
+            fetchFailures.incrementAndGet();
+            log.error("Failed to fetch JWKS keys, continuing with {} cached key(s)", snapshot.keys().size(), e);
+            inFlight.set(null);
+            fetch.completeExceptionally(e);
+        }
+    }
+
+    private boolean tryAcquireOnDemandRefresh() {
+        long now = System.currentTimeMillis();
+        long last = lastOnDemandRefresh.get();
+        return now - last >= minRefreshIntervalMs && lastOnDemandRefresh.compareAndSet(last, now);
+    }
+
+    private void rememberUnknownKid(String kid) {
+        if (unknownKids.size() >= MAX_UNKNOWN_KIDS) {
+            unknownKids.clear();
+        }
+        unknownKids.put(kid, System.currentTimeMillis() + minRefreshIntervalMs);
+        log.warn("No JWKS key found for kid: {}", kid);
+    }
+
+    private KeySnapshot fetchKeys() throws Exception {
         log.info("Fetching JWKS from: {}", jwksUrl);
-        
+        fetchCount.incrementAndGet();
+        long start = System.nanoTime();
+
         HttpRequest request = HttpRequest.newBuilder()
             .uri(URI.create(jwksUrl))
+            .timeout(Duration.ofMillis(fetchTimeoutMs))
             .GET()
             .build();
-        
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        
+
+        HttpResponse<String> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } finally {
+            fetchNanos.addAndGet(System.nanoTime() - start);
+        }
+
         if (response.statusCode() != 200) {
             throw new RuntimeException("Failed to fetch JWKS: HTTP " + response.statusCode());
         }
-        
-        JsonNode jwks = objectMapper.readTree(response.body());
+
+        Map<String, Key> parsed = parseKeys(objectMapper.readTree(response.body()));
+        return new KeySnapshot(parsed, System.currentTimeMillis());
+    }
+
+    /**
+     * The supported (RSA and EC) public keys of a JWKS document by kid.
+     */
+    static Map<String, Key> parseKeys(JsonNode jwks) throws Exception {
         JsonNode keys = jwks.get("keys");
-        
+
         if (keys == null || !keys.isArray()) {
             throw new RuntimeException("Invalid JWKS response: no 'keys' array");
         }
-        
-        keyCache.clear();
-        
+
+        Map<String, Key> parsed = new HashMap<>();
         for (JsonNode keyNode : keys) {
             String kid = keyNode.get("kid").asText();
             String kty = keyNode.get("kty").asText(); // Key type: RSA or EC
-            
+
             Key publicKey;
             if ("RSA".equals(kty)) {
                 publicKey = parseRSAKey(keyNode);
@@ -104,31 +267,62 @@ public class JwksKeyProvider implements Locator<Key> {
                 log.warn("Unsupported key type: {}", kty);
                 continue;
             }
-            
-            keyCache.put(kid, publicKey);
+
+            parsed.put(kid, publicKey);
             log.info("Cached public key with kid: {} (type: {})", kid, kty);
         }
-        
-        lastFetchTime = System.currentTimeMillis();
+
+        if (parsed.isEmpty()) {
+            throw new RuntimeException("Invalid JWKS response: no supported keys");
+        }
+        return Map.copyOf(parsed);
+    }
+
+    public Map<String, Object> stats() {
+        KeySnapshot current = snapshot;
+        long fetches = fetchCount.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("keys", current.keys().size());
+        stats.put("ageSeconds", current.fetchedAt() == 0 ? null : (System.currentTimeMillis() - current.fetchedAt()) / 1000);
+        stats.put("fetches", fetches);
+        stats.put("fetchFailures", fetchFailures.get());
+        stats.put("avgFetchMillis", fetches == 0 ? 0.0 : fetchNanos.get() / 1_000_000.0 / fetches);
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionTimer.builder("jwks.fetch", this, provider -> provider.fetchCount.get(),
+                provider -> provider.fetchNanos.get(), TimeUnit.NANOSECONDS)
+            .description("JWKS document fetches, including failed ones")
+            .register(registry);
+        FunctionCounter.builder("jwks.fetch.failures", fetchFailures, AtomicLong::get)
+            .register(registry);
+        Gauge.builder("jwks.keys", this, provider -> provider.snapshot.keys().size())
+            .register(registry);
+    }
+
+    long getFetchCount() {
+        return fetchCount.get();
     }
-    
-    private Key parseRSAKey(JsonNode keyNode) throws Exception {
+
+    private static Key parseRSAKey(JsonNode keyNode) throws Exception {
         String n = keyNode.get("n").asText(); // Modulus
         String e = keyNode.get("e").asText(); // Exponent
-        
+
         BigInteger modulus = new BigInteger(1, Base64.getUrlDecoder().decode(n));
         BigInteger exponent = new BigInteger(1, Base64.getUrlDecoder().decode(e));
-        
+
         RSAPublicKeySpec spec = new RSAPublicKeySpec(modulus, exponent);
         KeyFactory factory = KeyFactory.getInstance("RSA");
         return factory.generatePublic(spec);
     }
-    
-    private Key parseECKey(JsonNode keyNode) throws Exception {
+
+    private static Key parseECKey(JsonNode keyNode) throws Exception {
         String crv = keyNode.get("crv").asText(); // Curve name
         String x = keyNode.get("x").asText();     // X coordinate
         String y = keyNode.get("y").asText();     // Y coordinate
-        
+
         // Map the curve name to Java's algorithm parameters
         String curveName;
         switch (crv) {
@@ -144,25 +338,25 @@ public class JwksKeyProvider implements Locator<Key> {
             default:
                 throw new IllegalArgumentException("Unsupported curve: " + crv);
         }
-        
+
         byte[] xBytes = Base64.getUrlDecoder().decode(x);
         byte[] yBytes = Base64.getUrlDecoder().decode(y);
-        
+
         BigInteger xCoord = new BigInteger(1, xBytes);
         BigInteger yCoord = new BigInteger(1, yBytes);
-        
+
         // Create the EC point and get curve parameters
         java.security.spec.ECPoint point = new java.security.spec.ECPoint(xCoord, yCoord);
-        
+
         // Use standard Java cryptography API (no external libraries needed)
-        ECPublicKeySpec spec = new ECPublicKeySpec(point, 
+        ECPublicKeySpec spec = new ECPublicKeySpec(point,
             getECParameterSpec(curveName));
-        
+
         KeyFactory factory = KeyFactory.getInstance("EC");
         return factory.generatePublic(spec);
     }
-    
-    private java.security.spec.ECParameterSpec getECParameterSpec(String curveName) throws Exception {
+
+    private static java.security.spec.ECParameterSpec getECParameterSpec(String curveName) throws Exception {
         java.security.AlgorithmParameters parameters = java.security.AlgorithmParameters.getInstance("EC");
         parameters.init(new java.security.spec.ECGenParameterSpec(curveName));
         return parameters.getParameterSpec(java.security.spec.ECParameterSpec.class);
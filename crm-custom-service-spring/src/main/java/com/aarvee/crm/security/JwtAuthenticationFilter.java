@@ -1,6 +1,7 @@
 package com.aarvee.crm.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -15,47 +16,67 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Date;
 
 @Component
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
-    
-    private final JwksKeyProvider jwksKeyProvider;
-    
+
+    private final JwtParser jwtParser;
+    private final VerifiedTokenCache tokenCache;
+
     @Value("${supabase.auth.url:http://127.0.0.1:54321/auth/v1}")
     private String supabaseAuthUrl;
-    
-    public JwtAuthenticationFilter(JwksKeyProvider jwksKeyProvider) {
-        this.jwksKeyProvider = jwksKeyProvider;
+
+    public JwtAuthenticationFilter(JwksKeyProvider jwksKeyProvider, VerifiedTokenCache tokenCache) {
+        // JwtParser is immutable and thread-safe, so one instance serves every request
+        this.jwtParser = Jwts.parser()
+            .keyLocator(jwksKeyProvider)
+            .build();
+        this.tokenCache = tokenCache;
     }
-    
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
-        
+
         String authHeader = request.getHeader("Authorization");
-        
+
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
-            
+
             try {
-                // Parse the JWT using the JWKS key provider
-                Claims claims = Jwts.parser()
-                    .keyLocator(jwksKeyProvider)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-                
-                String userId = claims.getSubject();
-                UsernamePasswordAuthenticationToken authentication = 
+                String userId = authenticate(token);
+                UsernamePasswordAuthenticationToken authentication =
                     new UsernamePasswordAuthenticationToken(userId, null, new ArrayList<>());
                 SecurityContextHolder.getContext().setAuthentication(authentication);
-                
+
             } catch (Exception e) {
                 log.error("JWT token validation failed: {}", e.getMessage());
             }
         }
-        
+
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Returns the subject of a valid token, skipping signature verification when the same
+     * token was already verified and has not expired yet.
+     */
+    private String authenticate(String token) {
+        String digest = tokenCache.digest(token);
+        VerifiedTokenCache.CachedToken cached = tokenCache.get(digest);
+        if (cached != null) {
+            return cached.subject();
+        }
+
+        // Parse the JWT using the JWKS key provider
+        long start = System.nanoTime();
+        Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+        tokenCache.recordVerification(System.nanoTime() - start);
+
+        Date expiration = claims.getExpiration();
+        tokenCache.put(digest, claims.getSubject(), expiration != null ? expiration.getTime() : null);
+        return claims.getSubject();
+    }
 }
@@ -0,0 +1,190 @@
+package com.aarvee.crm.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of bearer tokens whose signature has already been verified.
+ * Entries are keyed by a SHA-256 digest of the raw token (the token itself is never kept)
+ * and expire at the token's {@code exp} claim, capped by {@code jwt.cache.max-ttl-seconds}.
+ * Backed by a bounded Caffeine cache: expired entries are dropped from its timer wheel and,
+ * once full, the least valuable entries are evicted, both in constant time per write.
+ * Lookups are published as {@code cache.gets} tagged {@code cache=jwt}, and full signature
+ * verifications as the {@code jwt.verify} timer.
+ */
+@Component
+public class VerifiedTokenCache implements MeterBinder {
+
+    // null when caching is switched off (max-entries <= 0)
+    private final Cache<String, CachedToken> entries;
+    private final long maxTtlMs;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong verifications = new AtomicLong();
+    private final AtomicLong verifyNanos = new AtomicLong();
+
+    public VerifiedTokenCache(
+            @Value("${jwt.cache.max-entries:10000}") int maxEntries,
+            @Value("${jwt.cache.max-ttl-seconds:300}") long maxTtlSeconds) {
+        this.maxTtlMs = maxTtlSeconds * 1000;
+        this.entries = maxEntries > 0
+            ? Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, CachedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedToken token, long currentTime) {
+                        return remainingNanos(token);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedToken token, long currentTime, long currentDuration) {
+                        return remainingNanos(token);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                // eviction runs on the writing thread, so the bound holds as soon as put returns
+                .executor(Runnable::run)
+                .build()
+            : null;
+    }
+
+    private static long remainingNanos(CachedToken token) {
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, token.expiresAtMillis() - System.currentTimeMillis()));
+    }
+
+    /**
+     * A verified token: the subject to authenticate as and the instant the entry stops being valid.
+     */
+    public record CachedToken(String subject, long expiresAtMillis) {
+    }
+
+    /**
+     * Returns the cached verification result for the token, or null on a miss or expired entry.
+     */
+    public CachedToken get(String digest) {
+        CachedToken cached = entries == null ? null : entries.getIfPresent(digest);
+        if (cached == null || cached.expiresAtMillis() <= System.currentTimeMillis()) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return cached;
+    }
+
+    /**
+     * Caches a verified token until its expiry. Tokens without an expiry are not cached.
+     */
+    public void put(String digest, String subject, Long expiresAtMillis) {
+        if (entries == null || expiresAtMillis == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long expiry = Math.min(expiresAtMillis, now + maxTtlMs);
+        if (expiry <= now) {
+            return;
+        }
+        entries.put(digest, new CachedToken(subject, expiry));
+    }
+
+    /**
+     * Records the wall time of one full signature verification, used to estimate the CPU saved by hits.
+     */
+    public void recordVerification(long nanos) {
+        verifications.incrementAndGet();
+        verifyNanos.addAndGet(nanos);
+    }
+
+    public String digest(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] hash = md.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is mandatory on every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public long size() {
+        return entries == null ? 0 : entries.estimatedSize();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    /**
+     * Average cost of one signature verification in microseconds.
+     */
+    public double getAverageVerifyMicros() {
+        long n = verifications.get();
+        return n == 0 ? 0.0 : verifyNanos.get() / 1000.0 / n;
+    }
+
+    /**
+     * Estimated verification time avoided by cache hits, in milliseconds.
+     */
+    public double getEstimatedSavedMillis() {
+        return hits.get() * getAverageVerifyMicros() / 1000.0;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, AtomicLong::get)
+            .tags("cache", "jwt", "result", "hit")
+            .register(registry);
+        FunctionCounter.builder("cache.gets", misses, AtomicLong::get)
+            .tags("cache", "jwt", "result", "miss")
+            .register(registry);
+        Gauge.builder("cache.size", this, VerifiedTokenCache::size)
+            .tag("cache", "jwt")
+            .register(registry);
+        FunctionTimer.builder("jwt.verify", this, cache -> cache.verifications.get(),
+                cache -> cache.verifyNanos.get(), TimeUnit.NANOSECONDS)
+            .description("Bearer token signature verifications (cache misses)")
+            .register(registry);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size());
+        stats.put("hits", getHits());
+        stats.put("misses", getMisses());
+        stats.put("hitRate", getHitRate());
+        stats.put("avgVerifyMicros", getAverageVerifyMicros());
+        stats.put("estimatedSavedMillis", getEstimatedSavedMillis());
+        return stats;
+    }
+}
@@ -0,0 +1,34 @@
+package com.aarvee.crm.service;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * How a paginated list computes its total.
+ */
+public enum CountStrategy {
+    /** count(*) on every request */
+    EXACT,
+    /** exact count memoized per filter signature for a short TTL, invalidated on writes */
+    CACHED,
+    /** Postgres planner statistics; no scan */
+    ESTIMATED;
+
+    public String value() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value is not one of exact, cached or estimated
+     */
+    public static CountStrategy from(String value) {
+        for (CountStrategy strategy : values()) {
+            if (strategy.value().equalsIgnoreCase(value == null ? "" : value.trim())) {
+                return strategy;
+            }
+        }
+        throw new IllegalArgumentException("Invalid count strategy: " + value + ". Allowed: "
+            + Arrays.stream(values()).map(CountStrategy::value).collect(Collectors.joining(", ")));
+    }
+}
@@ -0,0 +1,190 @@
+package com.aarvee.crm.service;
+
+import com.aarvee.crm.repository.LeadAnalyticsRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pipeline analytics served from the lead rollups plus the deltas that triggers on
+ * lead_extensions append in the writing transaction (so imports, bulk writes and direct
+ * Supabase writes are covered too). Every {@code leads.analytics.fold-interval-ms} the deltas
+ * are folded into the rollups, so reads add only recent ones. Every
+ * {@code leads.analytics.reconcile-interval-ms} the rollups are checked against the leads with
+ * one read-only query; only if they disagree are lead writes blocked briefly while the
+ * difference is added back. One node folds, and one reconciles, at a time.
+ */
+@Service
+@Slf4j
+public class LeadAnalyticsService implements MeterBinder {
+
+    private final LeadAnalyticsRepository repository;
+    private final TransactionTemplate transaction;
+    private final boolean reconcileEnabled;
+    private final long reconcileIntervalMs;
+    private final long foldIntervalMs;
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicLong folds = new AtomicLong();
+    private final AtomicLong foldedDeltas = new AtomicLong();
+    private final AtomicLong reconciliations = new AtomicLong();
+    private final AtomicLong repairedGroups = new AtomicLong();
+    private volatile LocalDateTime lastReconciledAt;
+    private volatile long lastDrift;
+
+    public LeadAnalyticsService(
+            LeadAnalyticsRepository repository,
+            PlatformTransactionManager transactionManager,
+            @Value("${leads.analytics.reconcile-enabled:true}") boolean reconcileEnabled,
+            @Value("${leads.analytics.reconcile-interval-ms:21600000}") long reconcileIntervalMs,
+            @Value("${leads.analytics.fold-interval-ms:60000}") long foldIntervalMs,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.repository = repository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.reconcileEnabled = reconcileEnabled;
+        this.reconcileIntervalMs = reconcileIntervalMs;
+        this.foldIntervalMs = foldIntervalMs;
+        if (virtualThreads) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("lead-rollup-reconciler").factory());
+        } else {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "lead-rollup-reconciler");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        if (foldIntervalMs > 0) {
+            scheduler.scheduleWithFixedDelay(this::foldSafely, foldIntervalMs, foldIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        if (reconcileEnabled) {
+            scheduler.scheduleWithFixedDelay(this::reconcileSafely, reconcileIntervalMs, reconcileIntervalMs,
+                TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    private void foldSafely() {
+        try {
+            fold();
+        } catch (Exception e) {
+            log.warn("Folding the lead rollup deltas failed, retrying in {} ms", foldIntervalMs, e);
+        }
+    }
+
+    private void reconcileSafely() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.error("Lead rollup reconciliation failed, retrying in {} ms", reconcileIntervalMs, e);
+        }
+    }
+
+    /**
+     * Lead counts and loan amount totals grouped by the given dimensions (snake_case or
+     * camelCase, see {@link LeadAnalyticsRepository#DIMENSIONS}), for leads created between
+     * {@code from} and {@code to} inclusive; either bound may be null.
+     *
+     * @throws IllegalArgumentException if a dimension is unknown or the range is reversed
+     */
+    public List<Map<String, Object>> summary(List<String> groupBy, LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        LinkedHashSet<String> dimensions = new LinkedHashSet<>();
+        if (groupBy != null) {
+            for (String name : groupBy) {
+                String dimension = name.trim().replaceAll("([a-z0-9])([A-Z])", "$1_$2").toLowerCase();
+                if (!LeadAnalyticsRepository.DIMENSIONS.contains(dimension)) {
+                    throw new IllegalArgumentException("Invalid groupBy: " + name);
+                }
+                dimensions.add(dimension);
+            }
+        }
+        return repository.summary(new ArrayList<>(dimensions), from, to);
+    }
+
+    /**
+     * @return deltas folded into the rollups, or -1 if another node was folding
+     */
+    public long fold() {
+        long rows = repository.fold();
+        if (rows >= 0) {
+            folds.incrementAndGet();
+            foldedDeltas.addAndGet(rows);
+        }
+        return rows;
+    }
+
+    /**
+     * Checks the rollups against the leads and corrects any group that drifted.
+     *
+     * @return groups corrected, or -1 if another node was already reconciling
+     */
+    public int reconcile() {
+        Integer repaired = transaction.execute(status -> {
+            if (!repository.tryLockReconciliation()) {
+                return -1;
+            }
+            lastDrift = repository.countDrift();
+            int fixed = 0;
+            if (lastDrift > 0) {
+                repository.lockLeads();
+                fixed = repository.repair();
+                log.warn("Lead rollups had drifted in {} groups; corrected {}", lastDrift, fixed);
+            }
+            repository.deleteEmptyGroups();
+            return fixed;
+        });
+        if (repaired != null && repaired >= 0) {
+            reconciliations.incrementAndGet();
+            repairedGroups.addAndGet(repaired);
+            lastReconciledAt = LocalDateTime.now();
+        }
+        return repaired == null ? -1 : repaired;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("leads.rollups.repaired", repairedGroups, AtomicLong::get)
+            .register(registry);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("folds", folds.get());
+        stats.put("foldedDeltas", foldedDeltas.get());
+        stats.put("reconcileEnabled", reconcileEnabled);
+        stats.put("reconciliations", reconciliations.get());
+        stats.put("lastReconciledAt", lastReconciledAt == null ? null : lastReconciledAt.toString());
+        stats.put("lastDrift", lastDrift);
+        stats.put("repairedGroups", repairedGroups.get());
+        return stats;
+    }
+}
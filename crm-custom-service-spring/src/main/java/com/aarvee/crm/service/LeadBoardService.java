@@ -0,0 +1,222 @@
+package com.aarvee.crm.service;
+
+import com.aarvee.crm.dto.BoardColumn;
+import com.aarvee.crm.repository.LeadBoardRepository;
+import com.aarvee.crm.util.LeadFilter;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves cards on the lead board. A move takes the key halfway between the card's new
+ * neighbours and updates that one row; the rest of the column is left alone. Only when the
+ * neighbours' keys are adjacent (or equal) is the column respaced first, in the same
+ * transaction. Moves that leave a gap narrower than {@code leads.board.respace-below-gap}
+ * also queue a respace of the column in the background, so later moves there stay single-row.
+ * <p>
+ * Writers of a column are serialized with a transaction-scoped advisory lock, so concurrent
+ * moves into one column never lose each other's updates, on one node or several.
+ */
+@Service
+@Slf4j
+public class LeadBoardService {
+
+    public record MoveResult(long id, String stage, long index, long version) {
+    }
+
+    private final LeadBoardRepository repository;
+    private final TransactionTemplate transaction;
+    private final LeadCountCache countCache;
+    private final LeadEntityCache entityCache;
+    private final long respaceBelowGap;
+    private final int maxCardsPerStage;
+    private final ExecutorService respacer;
+
+    // columns queued for a background respace, so a burst of moves queues each one once
+    private final Set<String> respacePending = ConcurrentHashMap.newKeySet();
+    private final AtomicLong moves = new AtomicLong();
+    private final AtomicLong inlineRespaces = new AtomicLong();
+    private final AtomicLong backgroundRespaces = new AtomicLong();
+
+    public LeadBoardService(
+            LeadBoardRepository repository,
+            PlatformTransactionManager transactionManager,
+            LeadCountCache countCache,
+            LeadEntityCache entityCache,
+            @Value("${leads.board.respace-below-gap:64}") long respaceBelowGap,
+            @Value("${leads.board.max-cards-per-stage:200}") int maxCardsPerStage,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.repository = repository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.countCache = countCache;
+        this.entityCache = entityCache;
+        this.respaceBelowGap = respaceBelowGap;
+        this.maxCardsPerStage = maxCardsPerStage;
+        if (virtualThreads) {
+            this.respacer = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("lead-board-respace").factory());
+        } else {
+            this.respacer = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "lead-board-respace");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        respacer.shutdownNow();
+    }
+
+    /**
+     * Board snapshot: per stage, the lead count and loan amount total and the top
+     * {@code perStage} cards, all from one query.
+     *
+     * @param stages columns to return in this order, empty ones included; null or empty for
+     *               every stage that has leads
+     * @throws IllegalArgumentException if perStage is out of range or a stage is blank
+     */
+    public List<BoardColumn> board(List<String> stages, int perStage, LeadFilter filter) {
+        if (perStage < 1 || perStage > maxCardsPerStage) {
+            throw new IllegalArgumentException("perStage must be between 1 and " + maxCardsPerStage);
+        }
+        List<String> columns = null;
+        if (stages != null && !stages.isEmpty()) {
+            LinkedHashSet<String> distinct = new LinkedHashSet<>();
+            for (String stage : stages) {
+                if (stage == null || stage.isBlank() || stage.length() > 50) {
+                    throw new IllegalArgumentException("Invalid stage");
+                }
+                distinct.add(stage.trim());
+            }
+            columns = new ArrayList<>(distinct);
+        }
+        return repository.board(columns, perStage, filter);
+    }
+
+    /**
+     * Moves a card into {@code stage}, right below the card {@code afterId}, or to the top of
+     * the column when {@code afterId} is null.
+     *
+     * @throws IllegalArgumentException if the stage is blank or too long, or {@code afterId} is
+     *                                  the card itself or not in that stage
+     * @throws EntityNotFoundException if there is no lead with that id
+     */
+    public MoveResult move(long id, String stage, Long afterId) {
+        if (stage == null || stage.isBlank() || stage.length() > 50) {
+            throw new IllegalArgumentException("Invalid stage");
+        }
+        if (afterId != null && afterId == id) {
+            throw new IllegalArgumentException("A card cannot be moved after itself");
+        }
+        MoveResult result = transaction.execute(status -> {
+            repository.lockColumn(stage);
+            Slot slot = slot(id, stage, afterId);
+            if (slot.key() == null) {
+                // neighbours' keys are adjacent: make room, then look again
+                respace(stage);
+                inlineRespaces.incrementAndGet();
+                slot = slot(id, stage, afterId);
+            }
+            long version = repository.move(id, stage, slot.key())
+                .orElseThrow(() -> new EntityNotFoundException("Lead extension not found with id: " + id));
+            entityCache.invalidate(id);
+            if (slot.narrowest() < respaceBelowGap) {
+                scheduleRespace(stage);
+            }
+            return new MoveResult(id, stage, slot.key(), version);
+        });
+        countCache.invalidateAll();
+        moves.incrementAndGet();
+        return result;
+    }
+
+    /**
+     * The key a card gets between {@code lower} and {@code upper} (either may be absent), and the
+     * narrower of the two gaps it leaves; a null key means there is no free key in between.
+     */
+    record Slot(Long key, long narrowest) {
+    }
+
+    private Slot slot(long id, String stage, Long afterId) {
+        Optional<Long> lower;
+        Optional<Long> upper;
+        if (afterId == null) {
+            lower = Optional.empty();
+            upper = repository.firstKey(stage, id);
+        } else {
+            LeadBoardRepository.Position after = repository.findPosition(afterId)
+                .filter(position -> position.stage().equals(stage))
+                .orElseThrow(() -> new IllegalArgumentException("Lead " + afterId + " is not in stage " + stage));
+            lower = Optional.of(after.index());
+            upper = repository.nextKey(stage, after.index(), afterId, id);
+        }
+        return between(lower.orElse(null), upper.orElse(null));
+    }
+
+    static Slot between(Long lower, Long upper) {
+        if (lower == null && upper == null) {
+            return new Slot(LeadBoardRepository.GAP, Long.MAX_VALUE);
+        }
+        if (lower == null) {
+            return new Slot(upper - LeadBoardRepository.GAP, LeadBoardRepository.GAP);
+        }
+        if (upper == null) {
+            return new Slot(lower + LeadBoardRepository.GAP, LeadBoardRepository.GAP);
+        }
+        if (upper - lower < 2) {
+            return new Slot(null, 0);
+        }
+        long key = lower + (upper - lower) / 2;
+        return new Slot(key, Math.min(key - lower, upper - key));
+    }
+
+    private void scheduleRespace(String stage) {
+        if (!respacePending.add(stage)) {
+            return;
+        }
+        respacer.execute(() -> {
+            respacePending.remove(stage);
+            try {
+                transaction.executeWithoutResult(status -> {
+                    repository.lockColumn(stage);
+                    respace(stage);
+                });
+                backgroundRespaces.incrementAndGet();
+            } catch (Exception e) {
+                log.warn("Respacing board column {} failed; the next crowded move will retry", stage, e);
+            }
+        });
+    }
+
+    // caller holds the column lock
+    private void respace(String stage) {
+        List<Long> changed = repository.respace(stage);
+        entityCache.invalidate(changed);
+        log.info("Respaced board column {}: {} cards rekeyed", stage, changed.size());
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("moves", moves.get());
+        stats.put("inlineRespaces", inlineRespaces.get());
+        stats.put("backgroundRespaces", backgroundRespaces.get());
+        return stats;
+    }
+}
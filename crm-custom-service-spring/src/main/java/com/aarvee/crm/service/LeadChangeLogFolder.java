@@ -0,0 +1,92 @@
+package com.aarvee.crm.service;
+
+import com.aarvee.crm.repository.LeadChangeLogRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the lead change log short: every {@code leads.watermark.fold-interval-ms} its rows are
+ * folded into the watermark's counter row, so reading the list watermark counts only the
+ * writes since the last fold. One node folds at a time; the others skip that round.
+ */
+@Service
+@Slf4j
+public class LeadChangeLogFolder {
+
+    private final LeadChangeLogRepository repository;
+    private final long intervalMs;
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicLong folds = new AtomicLong();
+    private final AtomicLong folded = new AtomicLong();
+    private volatile LocalDateTime lastFoldedAt;
+
+    public LeadChangeLogFolder(
+            LeadChangeLogRepository repository,
+            @Value("${leads.watermark.fold-interval-ms:60000}") long intervalMs,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.repository = repository;
+        this.intervalMs = intervalMs;
+        if (virtualThreads) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("lead-change-log-folder").factory());
+        } else {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "lead-change-log-folder");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        if (intervalMs > 0) {
+            scheduler.scheduleWithFixedDelay(this::foldSafely, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    private void foldSafely() {
+        try {
+            fold();
+        } catch (Exception e) {
+            log.warn("Folding the lead change log failed, retrying in {} ms", intervalMs, e);
+        }
+    }
+
+    /**
+     * @return log rows folded, or -1 if another node was folding
+     */
+    public long fold() {
+        long rows = repository.fold();
+        if (rows >= 0) {
+            folds.incrementAndGet();
+            folded.addAndGet(rows);
+            lastFoldedAt = LocalDateTime.now();
+        }
+        return rows;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("folds", folds.get());
+        stats.put("foldedChanges", folded.get());
+        stats.put("lastFoldedAt", lastFoldedAt == null ? null : lastFoldedAt.toString());
+        return stats;
+    }
+}
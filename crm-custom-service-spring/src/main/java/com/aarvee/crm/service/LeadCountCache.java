@@ -0,0 +1,108 @@
+package com.aarvee.crm.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short-lived memo of exact lead counts keyed by filter signature.
+ * <p>
+ * Writes through {@link LeadExtensionService} call {@link #invalidateAll()}, which takes effect
+ * immediately and again when the writing transaction completes; other nodes' writes become
+ * visible once {@code leads.count.cache-ttl-ms} elapses. A generation number keeps a count
+ * that was computed while a write was in flight (and so could not see it) from being cached
+ * after it commits.
+ * Lookups are published as {@code cache.gets} tagged {@code cache=lead-counts}.
+ */
+@Component
+public class LeadCountCache implements MeterBinder {
+
+    private static final int MAX_ENTRIES = 1000;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final long ttlMs;
+
+    private record Entry(long count, long expiresAt) {
+    }
+
+    public LeadCountCache(@Value("${leads.count.cache-ttl-ms:30000}") long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    public Long get(String signature) {
+        Entry entry = entries.get(signature);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (entry.expiresAt() <= System.currentTimeMillis()) {
+            entries.remove(signature, entry);
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.count();
+    }
+
+    /**
+     * Current generation; pass it back to {@link #put} so counts racing a write are dropped.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    public void put(String signature, long count, long observedGeneration) {
+        if (observedGeneration != generation.get()) {
+            return;
+        }
+        if (entries.size() >= MAX_ENTRIES) {
+            entries.clear();
+        }
+        entries.put(signature, new Entry(count, System.currentTimeMillis() + ttlMs));
+    }
+
+    /**
+     * Drops every count now and, inside a transaction, once more after it completes.
+     */
+    public void invalidateAll() {
+        clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    clear();
+                }
+            });
+        }
+    }
+
+    private void clear() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, AtomicLong::get)
+            .tags("cache", "lead-counts", "result", "hit")
+            .register(registry);
+        FunctionCounter.builder("cache.gets", misses, AtomicLong::get)
+            .tags("cache", "lead-counts", "result", "miss")
+            .register(registry);
+        Gauge.builder("cache.size", entries, Map::size)
+            .tag("cache", "lead-counts")
+            .register(registry);
+    }
+}
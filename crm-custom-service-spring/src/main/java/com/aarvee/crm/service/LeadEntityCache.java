@@ -0,0 +1,139 @@
+package com.aarvee.crm.service;
+
+import com.aarvee.crm.entity.LeadExtension;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Bounded in-heap cache of single leads by id, for the hot leads whose detail view is polled.
+ * <p>
+ * Caffeine evicts by size (W-TinyLFU, so a burst of one-off reads does not flush the hot set)
+ * and by {@code leads.cache.ttl-ms} after load. Writes through {@link LeadExtensionService}
+ * invalidate their ids immediately and again when the transaction completes, so a read that
+ * loaded the old row while the write was in flight is not left behind. Writes made by other
+ * nodes or directly in Supabase become visible once the TTL elapses.
+ * <p>
+ * Entries are futures: a miss installs one and loads on the caller's thread outside the map's
+ * locks, so a query never runs while holding a monitor (which would pin a virtual thread's
+ * carrier), and concurrent readers of the same id wait for that one load.
+ * Set {@code leads.cache.enabled=false} to read straight from the database.
+ * Hit/miss/eviction counts are published as the {@code cache.*} meters tagged {@code cache=leads}.
+ */
+@Component
+public class LeadEntityCache implements MeterBinder {
+
+    // null when the cache is switched off
+    private final AsyncCache<Long, LeadExtension> cache;
+
+    public LeadEntityCache(
+            @Value("${leads.cache.enabled:true}") boolean enabled,
+            @Value("${leads.cache.max-entries:10000}") long maxEntries,
+            @Value("${leads.cache.ttl-ms:30000}") long ttlMs) {
+        this.cache = enabled && maxEntries > 0
+            ? Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .buildAsync()
+            : null;
+    }
+
+    /**
+     * The cached lead, or the loader's result, which is cached if present. Missing leads are not cached.
+     */
+    public Optional<LeadExtension> get(Long id, Function<Long, Optional<LeadExtension>> loader) {
+        if (cache == null) {
+            return loader.apply(id);
+        }
+        CompletableFuture<LeadExtension> load = new CompletableFuture<>();
+        CompletableFuture<LeadExtension> entry = cache.get(id, (key, executor) -> load);
+        if (entry == load) {
+            try {
+                // a null result removes the entry
+                load.complete(loader.apply(id).orElse(null));
+            } catch (RuntimeException e) {
+                load.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return Optional.ofNullable(entry.join());
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * The cached lead without loading it; empty on a miss. Not counted in the hit/miss stats.
+     */
+    public Optional<LeadExtension> peek(Long id) {
+        return cache == null ? Optional.empty() : Optional.ofNullable(cache.synchronous().policy().getIfPresentQuietly(id));
+    }
+
+    public void invalidate(Long id) {
+        invalidate(List.of(id));
+    }
+
+    /**
+     * Drops the leads now and, inside a transaction, once more after it completes.
+     */
+    public void invalidate(Collection<Long> ids) {
+        if (cache == null || ids.isEmpty()) {
+            return;
+        }
+        cache.synchronous().invalidateAll(ids);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.synchronous().invalidateAll(ids);
+                }
+            });
+        }
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (cache != null) {
+            CaffeineCacheMetrics.monitor(registry, cache, "leads");
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        if (cache == null) {
+            return stats;
+        }
+        CacheStats snapshot = cache.synchronous().stats();
+        stats.put("size", cache.synchronous().estimatedSize());
+        stats.put("hits", snapshot.hitCount());
+        stats.put("misses", snapshot.missCount());
+        stats.put("hitRate", snapshot.hitRate());
+        stats.put("evictions", snapshot.evictionCount());
+        stats.put("avgLoadMicros", snapshot.averageLoadPenalty() / 1000.0);
+        return stats;
+    }
+}
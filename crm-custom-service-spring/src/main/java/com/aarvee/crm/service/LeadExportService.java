@@ -0,0 +1,223 @@
+package com.aarvee.crm.service;
+
+import com.aarvee.crm.repository.LeadExtensionExportRepository;
+import com.aarvee.crm.util.LeadFilter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Writes leads matching a list filter as CSV or NDJSON, row by row from a database cursor.
+ * <p>
+ * Nothing is materialized: each row goes from the result set to the output writer, and JSONB
+ * columns are copied as raw text instead of being parsed into JSON trees, so heap use does
+ * not depend on how many leads are exported.
+ */
+@Service
+@Slf4j
+public class LeadExportService {
+
+    public enum Format {
+        CSV("text/csv"), NDJSON("application/x-ndjson");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        /**
+         * @throws IllegalArgumentException if the format is not csv or ndjson
+         */
+        public static Format from(String value) {
+            try {
+                return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid format: " + value + ". Allowed: csv, ndjson");
+            }
+        }
+    }
+
+    private static final Set<String> JSON_COLUMNS = Set.of(
+        "business_details", "property_details", "auto_loan_details", "machinery_loan_details");
+
+    private final LeadExtensionExportRepository exportRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readTransaction;
+    private final int fetchSize;
+
+    public LeadExportService(
+            LeadExtensionExportRepository exportRepository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${leads.export.fetch-size:1000}") int fetchSize) {
+        this.exportRepository = exportRepository;
+        this.objectMapper = objectMapper;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * @param sortField entity property name, already validated against the sort allow-list
+     * @return number of rows written
+     */
+    public long export(OutputStream output, Format format, LeadFilter filter, String sortField, boolean descending)
+            throws IOException {
+        long start = System.nanoTime();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+        RowWriter rows = format == Format.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+        rows.start();
+        long[] count = {0};
+        try {
+            // the cursor only streams inside a transaction
+            readTransaction.executeWithoutResult(status ->
+                exportRepository.streamAll(filter, sortField, descending, fetchSize, rs -> {
+                    try {
+                        rows.write(rs);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    count[0]++;
+                }));
+        } catch (UncheckedIOException e) {
+            // usually the client went away mid-download
+            throw e.getCause();
+        }
+        rows.finish();
+        writer.flush();
+        log.info("Exported {} leads as {} in {} ms", count[0], format, (System.nanoTime() - start) / 1_000_000);
+        return count[0];
+    }
+
+    private interface RowWriter {
+        default void start() throws IOException {
+        }
+
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        default void finish() throws IOException {
+        }
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void start() throws IOException {
+            writer.write(String.join(",", LeadExtensionExportRepository.COLUMNS));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            List<String> columns = LeadExtensionExportRepository.COLUMNS;
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                String value = text(rs, i + 1);
+                if (value != null) {
+                    writer.write(quote(value));
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        private static String quote(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    private final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(Writer writer) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(writer);
+            this.generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            // rows are separated by the newline alone, not Jackson's default space
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            List<String> columns = LeadExtensionExportRepository.COLUMNS;
+            generator.writeStartObject();
+            for (int i = 0; i < columns.size(); i++) {
+                String column = columns.get(i);
+                Object value = rs.getObject(i + 1);
+                generator.writeFieldName(column);
+                if (value == null) {
+                    generator.writeNull();
+                } else if (JSON_COLUMNS.contains(column)) {
+                    // stored JSON is already valid JSON text
+                    generator.writeRawValue(rs.getString(i + 1));
+                } else if (value instanceof Number number) {
+                    writeNumber(number);
+                } else {
+                    generator.writeString(text(rs, i + 1));
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        private void writeNumber(Number number) throws IOException {
+            if (number instanceof BigDecimal decimal) {
+                generator.writeNumber(decimal);
+            } else {
+                generator.writeNumber(number.longValue());
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+
+    // Timestamps in the same ISO-8601 form the JSON API uses
+    private static String text(ResultSet rs, int index) throws SQLException {
+        Object value = rs.getObject(index);
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof java.sql.Timestamp) {
+            return rs.getObject(index, LocalDateTime.class).toString();
+        }
+        if (value instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        }
+        return rs.getString(index);
+    }
+}
@@ -1,21 +1,42 @@
 package com.aarvee.crm.service;
 
+import com.aarvee.crm.dto.BatchResponse;
+import com.aarvee.crm.dto.PageResponse;
 import com.aarvee.crm.entity.LeadExtension;
+import com.aarvee.crm.repository.LeadBoardRepository;
+import com.aarvee.crm.repository.LeadExtensionBatchRepository;
 import com.aarvee.crm.repository.LeadExtensionRepository;
+import com.aarvee.crm.repository.LeadSpecifications;
+import com.aarvee.crm.util.KeysetCursor;
+import com.aarvee.crm.util.LeadFields;
+import com.aarvee.crm.util.LeadFilter;
 import com.aarvee.crm.util.SortParamMapper;
+import com.fasterxml.jackson.databind.JsonNode;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -23,30 +44,79 @@ import java.util.Optional;
 public class LeadExtensionService {
     
     private final LeadExtensionRepository repository;
+    private final LeadExtensionBatchRepository batchRepository;
+    private final LeadNumberAllocator leadNumberAllocator;
+    private final LeadCountCache countCache;
+    private final LeadEntityCache entityCache;
+    private final LeadBoardRepository boardRepository;
 
-    /**
-     * Generate a unique lead number
-     */
-    private String generateLeadNumber() {
-        String today = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        String prefix = "LEAD-" + today;
-        long count = repository.countByLeadNumberStartingWith(prefix);
-        return String.format("%s-%05d", prefix, count + 1);
+    private record PatchField(Class<?> type, int maxLength, boolean nullable) {
+        PatchField(Class<?> type, int maxLength) {
+            this(type, maxLength, true);
+        }
     }
+
+    // Columns a PATCH may set, with their column limits; lead_number and timestamps are server-managed.
+    // stage and index let the board's drag-and-drop save a card's column and key in one narrow UPDATE.
+    private static final Map<String, PatchField> PATCHABLE = Map.ofEntries(
+        Map.entry("contact_id", new PatchField(Long.class, 0)),
+        Map.entry("customer_name", new PatchField(String.class, 255)),
+        Map.entry("contact_number", new PatchField(String.class, 50)),
+        Map.entry("product", new PatchField(String.class, 255)),
+        Map.entry("loan_amount_required", new PatchField(BigDecimal.class, 0)),
+        Map.entry("location", new PatchField(String.class, 500)),
+        Map.entry("lead_referred_by", new PatchField(String.class, 255)),
+        Map.entry("short_description", new PatchField(String.class, Integer.MAX_VALUE)),
+        Map.entry("lead_assigned_to", new PatchField(Long.class, 0)),
+        Map.entry("lead_status", new PatchField(String.class, 50)),
+        Map.entry("stage", new PatchField(String.class, 50, false)),
+        Map.entry("index", new PatchField(Long.class, 0, false)),
+        Map.entry("disbursed_at", new PatchField(LocalDate.class, 0)),
+        Map.entry("business_details", new PatchField(JsonNode.class, 0)),
+        Map.entry("property_details", new PatchField(JsonNode.class, 0)),
+        Map.entry("auto_loan_details", new PatchField(JsonNode.class, 0)),
+        Map.entry("machinery_loan_details", new PatchField(JsonNode.class, 0)));
     
     @Transactional
     public LeadExtension create(LeadExtension leadExtension) {
         if (leadExtension.getLeadNumber() == null || leadExtension.getLeadNumber().isEmpty()) {
-            leadExtension.setLeadNumber(generateLeadNumber());
+            leadExtension.setLeadNumber(leadNumberAllocator.next());
         }
         if (leadExtension.getLeadStatus() == null || leadExtension.getLeadStatus().isEmpty()) {
             leadExtension.setLeadStatus("new");
         }
-        log.info("Creating lead extension: {}", leadExtension.getLeadNumber());
-        return repository.save(leadExtension);
+        log.debug("Creating lead extension: {}", leadExtension.getLeadNumber());
+        LeadExtension created = repository.save(leadExtension);
+        countCache.invalidateAll();
+        return created;
     }
 
-    public Page<LeadExtension> getList(int page, int perPage, String sortField, String sortOrder) {
+    /**
+     * Offset pagination. The total is computed with the given count strategy, except when the
+     * page itself reveals it (a short page), in which case no count query runs at all.
+     * Planner estimates only exist for the whole table, so filtered lists asked for an
+     * estimated count get a cached one instead.
+     */
+    public PageResponse<LeadExtension> getList(int page, int perPage, String sortField, String sortOrder,
+                                               LeadFilter filter, CountStrategy countStrategy) {
+        return page(page, perPage, sortField, sortOrder, filter, countStrategy, repository::findPageContent);
+    }
+
+    /**
+     * {@link #getList} returning only the selected fields of each row, read with a column-limited query.
+     *
+     * @param fields the fields to return; must not be {@link LeadFields#all()}
+     */
+    public PageResponse<Map<String, Object>> getList(int page, int perPage, String sortField, String sortOrder,
+                                                     LeadFilter filter, CountStrategy countStrategy, LeadFields fields) {
+        return page(page, perPage, sortField, sortOrder, filter, countStrategy, (spec, pageable) ->
+            repository.findProjection(spec, pageable.getSort(), pageable.getOffset(), pageable.getPageSize(),
+                fields.attributes()));
+    }
+
+    private <T> PageResponse<T> page(int page, int perPage, String sortField, String sortOrder, LeadFilter filter,
+                                     CountStrategy countStrategy,
+                                     BiFunction<Specification<LeadExtension>, Pageable, List<T>> fetch) {
         String normalized = SortParamMapper.map(sortField);
         if (normalized == null) {
             // default to createdAt to avoid PropertyReferenceException
@@ -56,17 +126,197 @@ public class LeadExtensionService {
 
         Sort.Direction direction = "desc".equalsIgnoreCase(sortOrder) ? Sort.Direction.DESC : Sort.Direction.ASC;
         Pageable pageable = PageRequest.of(page - 1, perPage, Sort.by(direction, normalized));
-        return repository.findAll(pageable);
+        Specification<LeadExtension> spec = Specification.where(LeadSpecifications.matching(filter));
+        List<T> content = fetch.apply(spec, pageable);
+
+        long seen = pageable.getOffset() + content.size();
+        if (content.size() < perPage && (!content.isEmpty() || pageable.getOffset() == 0)) {
+            return new PageResponse<>(content, seen, null, CountStrategy.EXACT.value());
+        }
+
+        CountStrategy used = countStrategy;
+        if (used == CountStrategy.ESTIMATED && !filter.isEmpty()) {
+            used = CountStrategy.CACHED;
+        }
+        long total;
+        switch (used) {
+            case ESTIMATED -> {
+                Long estimate = repository.estimateRowCount();
+                if (estimate != null && estimate >= 0) {
+                    // never report fewer rows than the client has already paged through
+                    total = Math.max(estimate, seen);
+                } else {
+                    // table never analyzed: no statistics to estimate from
+                    used = CountStrategy.EXACT;
+                    total = repository.count(spec);
+                }
+            }
+            case CACHED -> total = cachedCount(filter.signature(), spec);
+            default -> total = repository.count(spec);
+        }
+        return new PageResponse<>(content, total, null, used.value());
+    }
+
+    private long cachedCount(String signature, Specification<LeadExtension> spec) {
+        Long cached = countCache.get(signature);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = countCache.generation();
+        long count = repository.count(spec);
+        countCache.put(signature, count, generation);
+        return count;
+    }
+
+    /**
+     * Keyset pagination: returns the rows after the cursor (or the first page when it is blank)
+     * using a seek predicate on (sortField, id) instead of OFFSET, and without a count query.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed or was issued for another sort
+     */
+    public PageResponse<LeadExtension> getListAfter(String after, int perPage, String sortField, String sortOrder,
+                                                    LeadFilter filter) {
+        return seek(after, perPage, sortField, sortOrder, filter,
+            (spec, sort, limit) -> repository.findBy(spec, query -> query.sortBy(sort).limit(limit).all()),
+            (lead, field) -> PropertyAccessorFactory.forBeanPropertyAccess(lead).getPropertyValue(field),
+            LeadExtension::getId);
+    }
+
+    /**
+     * {@link #getListAfter} returning only the selected fields (plus the sort field, which the
+     * next cursor is built from) of each row, read with a column-limited query.
+     *
+     * @param fields the fields to return; must not be {@link LeadFields#all()}
+     */
+    public PageResponse<Map<String, Object>> getListAfter(String after, int perPage, String sortField, String sortOrder,
+                                                          LeadFilter filter, LeadFields fields) {
+        return seek(after, perPage, sortField, sortOrder, filter,
+            (spec, sort, limit) -> {
+                LeadFields selected = fields;
+                for (Sort.Order order : sort) {
+                    selected = selected.including(order.getProperty());
+                }
+                return repository.findProjection(spec, sort, 0, limit, selected.attributes());
+            },
+            (row, field) -> row.get(LeadFields.jsonName(field)),
+            row -> (Long) row.get("id"));
+    }
+
+    private <T> PageResponse<T> seek(String after, int perPage, String sortField, String sortOrder, LeadFilter filter,
+                                     SeekFetch<T> fetch,
+                                     BiFunction<T, String, Object> valueOf, Function<T, Long> idOf) {
+        if (perPage < 1) {
+            throw new IllegalArgumentException("perPage must be at least 1");
+        }
+        String normalized = SortParamMapper.map(sortField);
+        if (normalized == null) {
+            normalized = "createdAt";
+            log.warn("Client requested invalid sort field: {}. Falling back to {}", sortField, normalized);
+        }
+        boolean descending = "desc".equalsIgnoreCase(sortOrder);
+        Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+
+        Specification<LeadExtension> spec = Specification.where(LeadSpecifications.matching(filter));
+        Specification<LeadExtension> nextBlock = null;
+        if (after != null && !after.isBlank()) {
+            KeysetCursor cursor = KeysetCursor.decode(after);
+            if (!cursor.sortField().equals(normalized) || cursor.descending() != descending) {
+                throw new IllegalArgumentException("Cursor does not match the requested sort");
+            }
+            Specification<LeadExtension> blockAfter = LeadSpecifications.blockAfter(cursor);
+            if (blockAfter != null) {
+                nextBlock = Specification.where(LeadSpecifications.matching(filter)).and(blockAfter);
+            }
+            spec = spec.and(LeadSpecifications.after(cursor));
+        }
+
+        // id breaks ties so the seek position is unique
+        Sort sort = "id".equals(normalized)
+            ? Sort.by(direction, "id")
+            : Sort.by(direction, normalized).and(Sort.by(direction, "id"));
+        List<T> rows = fetch.apply(spec, sort, perPage + 1);
+        // the null and non-null sort keys are read as separate index ranges
+        if (nextBlock != null && rows.size() <= perPage) {
+            rows = new ArrayList<>(rows);
+            rows.addAll(fetch.apply(nextBlock, sort, perPage + 1 - rows.size()));
+        }
+
+        if (rows.size() <= perPage) {
+            return new PageResponse<>(rows, null, null, null);
+        }
+        List<T> content = rows.subList(0, perPage);
+        T last = content.get(perPage - 1);
+        KeysetCursor next = new KeysetCursor(normalized, descending, sortKey(valueOf.apply(last, normalized)), idOf.apply(last));
+        return new PageResponse<>(content, null, next.encode(), null);
+    }
+
+    @FunctionalInterface
+    private interface SeekFetch<T> {
+        List<T> apply(Specification<LeadExtension> spec, Sort sort, int limit);
+    }
+
+    private static String sortKey(Object value) {
+        if (value == null) {
+            return null;
+        }
+        return value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
     }
     
     public Optional<LeadExtension> getOne(Long id) {
-        return repository.findById(id);
+        return entityCache.get(id, repository::findById);
+    }
+
+    /**
+     * Version of the lead for conditional reads, or empty if it does not exist.
+     */
+    public Optional<Long> getVersion(Long id) {
+        Optional<LeadExtension> cached = entityCache.peek(id);
+        if (cached.isPresent()) {
+            return Optional.ofNullable(cached.get().getVersion());
+        }
+        return repository.findVersionById(id);
+    }
+
+    /**
+     * Table-wide change watermark: if it has not moved, no list page has changed.
+     */
+    public long getChangeWatermark() {
+        return repository.changeWatermark();
+    }
+    
+    /**
+     * Batch read for react-admin's getMany: one query for all ids, results in request order
+     * (duplicates collapsed) and the ids that matched nothing listed separately.
+     */
+    public BatchResponse<LeadExtension> getMany(List<Long> ids) {
+        LinkedHashSet<Long> requested = new LinkedHashSet<>(ids);
+        if (requested.isEmpty()) {
+            return new BatchResponse<>(List.of(), List.of());
+        }
+        Map<Long, LeadExtension> byId = repository.findAllByIdAny(requested.toArray(new Long[0])).stream()
+            .collect(Collectors.toMap(LeadExtension::getId, Function.identity()));
+
+        List<LeadExtension> found = new ArrayList<>(byId.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : requested) {
+            LeadExtension lead = byId.get(id);
+            if (lead != null) {
+                found.add(lead);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new BatchResponse<>(found, missing);
     }
     
     @Transactional
     public LeadExtension update(Long id, LeadExtension leadExtension) {
         LeadExtension existing = repository.findById(id)
             .orElseThrow(() -> new EntityNotFoundException("Lead extension not found with id: " + id));
+        if (leadExtension.getVersion() != null && !leadExtension.getVersion().equals(existing.getVersion())) {
+            // the client edited a copy that someone else has since changed
+            throw new OptimisticLockingFailureException("Lead extension " + id + " was modified by someone else");
+        }
         
         // Update fields
         if (leadExtension.getProduct() != null) existing.setProduct(leadExtension.getProduct());
@@ -76,19 +326,213 @@ public class LeadExtensionService {
         if (leadExtension.getShortDescription() != null) existing.setShortDescription(leadExtension.getShortDescription());
         if (leadExtension.getLeadAssignedTo() != null) existing.setLeadAssignedTo(leadExtension.getLeadAssignedTo());
         if (leadExtension.getLeadStatus() != null) existing.setLeadStatus(leadExtension.getLeadStatus());
+        // a card's column and key, as sent; the move endpoint picks a key between neighbours instead
+        if (leadExtension.getStage() != null) existing.setStage(leadExtension.getStage());
+        if (leadExtension.getIndex() != null) existing.setIndex(leadExtension.getIndex());
+        if (leadExtension.getDisbursedAt() != null) existing.setDisbursedAt(leadExtension.getDisbursedAt());
         if (leadExtension.getBusinessDetails() != null) existing.setBusinessDetails(leadExtension.getBusinessDetails());
         if (leadExtension.getPropertyDetails() != null) existing.setPropertyDetails(leadExtension.getPropertyDetails());
         if (leadExtension.getAutoLoanDetails() != null) existing.setAutoLoanDetails(leadExtension.getAutoLoanDetails());
         if (leadExtension.getMachineryLoanDetails() != null) existing.setMachineryLoanDetails(leadExtension.getMachineryLoanDetails());
         
         LeadExtension updated = repository.save(existing);
+        countCache.invalidateAll();
+        entityCache.invalidate(id);
         log.info("Updated lead extension: {}", id);
         return updated;
     }
     
+    /**
+     * Partial update: writes only the fields present in {@code changes} (null clears a field)
+     * with one UPDATE, without reading the row first.
+     *
+     * @param expectedVersion apply only if the lead is still at this version; null skips the check
+     * @throws IllegalArgumentException if a field is unknown, read-only or has an invalid value
+     * @throws EntityNotFoundException if there is no lead with that id
+     * @throws OptimisticLockingFailureException if the lead has moved past the expected version
+     */
+    @Transactional
+    public LeadExtension patch(Long id, JsonNode changes, Long expectedVersion) {
+        if (changes == null || !changes.isObject()) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        Map<String, Object> columns = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = changes.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String column = field.getKey().replaceAll("([a-z0-9])([A-Z])", "$1_$2").toLowerCase();
+            if ("version".equals(column)) {
+                if (expectedVersion == null && field.getValue().canConvertToLong()) {
+                    expectedVersion = field.getValue().asLong();
+                }
+                continue;
+            }
+            if ("id".equals(column)) {
+                // react-admin sends the id back; it cannot change
+                continue;
+            }
+            PatchField spec = PATCHABLE.get(column);
+            if (spec == null) {
+                throw new IllegalArgumentException("Field cannot be patched: " + field.getKey());
+            }
+            columns.put(column, patchValue(column, spec, field.getValue()));
+        }
+        if (columns.isEmpty()) {
+            throw new IllegalArgumentException("No changes given");
+        }
+
+        Optional<LeadExtension> patched = repository.patch(id, expectedVersion, columns);
+        if (patched.isEmpty()) {
+            if (expectedVersion != null && repository.existsById(id)) {
+                throw new OptimisticLockingFailureException("Lead extension " + id + " was modified by someone else");
+            }
+            throw new EntityNotFoundException("Lead extension not found with id: " + id);
+        }
+        countCache.invalidateAll();
+        entityCache.invalidate(id);
+        log.debug("Patched lead extension {}: {}", id, columns.keySet());
+        return patched.get();
+    }
+
+    private static Object patchValue(String column, PatchField spec, JsonNode value) {
+        if (value.isNull()) {
+            if (!spec.nullable()) {
+                throw new IllegalArgumentException("Invalid value for " + column + ": cannot be null");
+            }
+            return null;
+        }
+        if (spec.type() == JsonNode.class) {
+            if (!value.isContainerNode()) {
+                throw new IllegalArgumentException("Invalid value for " + column + ": expected an object");
+            }
+            return value.toString();
+        }
+        if (spec.type() == Long.class) {
+            if (value.isIntegralNumber() && value.canConvertToLong()) {
+                return value.asLong();
+            }
+            try {
+                return Long.valueOf(value.isTextual() ? value.asText() : "invalid");
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + column);
+            }
+        }
+        if (spec.type() == LocalDate.class) {
+            try {
+                return LocalDate.parse(value.isTextual() ? value.asText() : "invalid");
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid value for " + column + ": expected yyyy-MM-dd");
+            }
+        }
+        if (spec.type() == BigDecimal.class) {
+            if (!value.isNumber() && !value.isTextual()) {
+                throw new IllegalArgumentException("Invalid value for " + column);
+            }
+            try {
+                BigDecimal amount = value.isNumber() ? value.decimalValue() : new BigDecimal(value.asText());
+                if (amount.signum() < 0 || amount.precision() - amount.scale() > 17) {
+                    throw new IllegalArgumentException("Invalid value for " + column);
+                }
+                return amount;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + column);
+            }
+        }
+        if (!value.isValueNode() || value.asText().length() > spec.maxLength()
+                || (!spec.nullable() && value.asText().isBlank())) {
+            throw new IllegalArgumentException("Invalid value for " + column);
+        }
+        return value.asText();
+    }
+    
     @Transactional
     public void delete(Long id) {
         repository.deleteById(id);
+        countCache.invalidateAll();
+        entityCache.invalidate(id);
         log.info("Deleted lead extension: {}", id);
     }
+
+    /**
+     * Applies a status, assignee and/or board column change to every lead in scope with a
+     * single UPDATE. Leads moved to another column go below its last card, in their board order.
+     *
+     * @param data changes keyed by field name (lead_status, lead_assigned_to, stage; null unassigns)
+     * @return ids of the updated leads
+     * @throws IllegalArgumentException if the scope is empty or a change is not allowed
+     */
+    @Transactional
+    public List<Long> bulkUpdate(LeadFilter scope, Map<String, Object> data) {
+        requireScope(scope);
+        if (data == null || data.isEmpty()) {
+            throw new IllegalArgumentException("No changes given");
+        }
+        Map<String, Object> changes = new LinkedHashMap<>();
+        String stage = null;
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            String field = entry.getKey().replaceAll("([a-z0-9])([A-Z])", "$1_$2").toLowerCase();
+            Object value = entry.getValue();
+            switch (field) {
+                case "lead_status" -> {
+                    if (!(value instanceof String status) || status.isBlank() || status.length() > 50) {
+                        throw new IllegalArgumentException("Invalid value for lead_status");
+                    }
+                    changes.put(field, status);
+                }
+                case "lead_assigned_to" -> {
+                    if (value != null && !(value instanceof Integer || value instanceof Long)) {
+                        throw new IllegalArgumentException("Invalid value for lead_assigned_to");
+                    }
+                    changes.put(field, value == null ? null : ((Number) value).longValue());
+                }
+                case "stage" -> {
+                    if (!(value instanceof String column) || column.isBlank() || column.length() > 50) {
+                        throw new IllegalArgumentException("Invalid value for stage");
+                    }
+                    stage = column;
+                }
+                default -> throw new IllegalArgumentException("Field cannot be bulk updated: " + entry.getKey());
+            }
+        }
+
+        List<Long> updated;
+        if (stage != null) {
+            // new keys are taken from the column's last card, so moves into it must wait
+            boardRepository.lockColumn(stage);
+            updated = batchRepository.appendToColumn(scope, stage, changes);
+        } else {
+            updated = batchRepository.updateWhere(scope, changes);
+        }
+        if (!updated.isEmpty()) {
+            countCache.invalidateAll();
+            entityCache.invalidate(updated);
+        }
+        log.info("Bulk updated {} lead extensions", updated.size());
+        return updated;
+    }
+
+    /**
+     * Deletes every lead in scope with a single DELETE.
+     *
+     * @return ids of the deleted leads
+     * @throws IllegalArgumentException if the scope is empty
+     */
+    @Transactional
+    public List<Long> bulkDelete(LeadFilter scope) {
+        requireScope(scope);
+        List<Long> deleted = batchRepository.deleteWhere(scope);
+        if (!deleted.isEmpty()) {
+            countCache.invalidateAll();
+            entityCache.invalidate(deleted);
+        }
+        log.info("Bulk deleted {} lead extensions", deleted.size());
+        return deleted;
+    }
+
+    private static void requireScope(LeadFilter scope) {
+        if (scope.isEmpty()) {
+            // bulk writes must never silently hit the whole table
+            throw new IllegalArgumentException("A bulk operation needs ids or a filter");
+        }
+    }
 }
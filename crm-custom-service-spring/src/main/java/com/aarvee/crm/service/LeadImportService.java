@@ -0,0 +1,378 @@
+package com.aarvee.crm.service;
+
+import com.aarvee.crm.dto.ImportResult;
+import com.aarvee.crm.entity.LeadExtension;
+import com.aarvee.crm.repository.LeadExtensionBatchRepository;
+import com.aarvee.crm.util.CsvReader;
+import com.aarvee.crm.util.LeadFields;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Streams lead rows from CSV or NDJSON into lead_extensions.
+ * <p>
+ * Rows are validated as they are read and written in chunks of {@code leads.import.batch-size}:
+ * each chunk gets its lead numbers from one counter update and is inserted as one JDBC batch
+ * in its own transaction, so memory stays bounded and a bad row only costs its own chunk a
+ * retry. When a chunk fails in the database, its rows are retried one at a time to pin the
+ * error on the offending rows; the rest of the import carries on.
+ * <p>
+ * CSV headers name lead fields; columns of the CRM's contact export are mapped too
+ * ({@code first_name}/{@code last_name} to customer_name, {@code phone_*} to contact_number)
+ * and other columns are ignored. A header without any of these is rejected, and so is a row
+ * that leaves every lead field empty.
+ */
+@Service
+@Slf4j
+public class LeadImportService {
+
+    public enum Format { CSV, NDJSON }
+
+    // Server-managed columns are never taken from the input
+    private static final Set<String> IGNORED_FIELDS = Set.of("id", "version", "created_at", "updated_at");
+    private static final Set<String> JSON_FIELDS = Set.of(
+        "business_details", "property_details", "auto_loan_details", "machinery_loan_details");
+    private static final Set<String> LEAD_COLUMNS = Arrays.stream(LeadFields.ALLOWED_FIELDS())
+        .filter(field -> !IGNORED_FIELDS.contains(field))
+        .collect(Collectors.toUnmodifiableSet());
+    private static final Set<String> NAME_PARTS = Set.of("first_name", "last_name");
+
+    private final ObjectMapper objectMapper;
+    private final ObjectReader leadReader;
+    private final LeadExtensionBatchRepository batchRepository;
+    private final LeadNumberAllocator leadNumberAllocator;
+    private final LeadCountCache countCache;
+    private final TransactionTemplate chunkTransaction;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    private record Row(long number, LeadExtension lead) {
+    }
+
+    public LeadImportService(
+            ObjectMapper objectMapper,
+            LeadExtensionBatchRepository batchRepository,
+            LeadNumberAllocator leadNumberAllocator,
+            LeadCountCache countCache,
+            PlatformTransactionManager transactionManager,
+            @Value("${leads.import.batch-size:1000}") int batchSize,
+            @Value("${leads.import.max-reported-errors:100}") int maxReportedErrors) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("leads.import.batch-size must be at least 1");
+        }
+        this.objectMapper = objectMapper;
+        this.leadReader = objectMapper.readerFor(LeadExtension.class);
+        this.batchRepository = batchRepository;
+        this.leadNumberAllocator = leadNumberAllocator;
+        this.countCache = countCache;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * Picks the input format from a request Content-Type, or null if it is not supported.
+     */
+    public static Format formatOf(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        if (type.startsWith("text/csv")) {
+            return Format.CSV;
+        }
+        if (type.startsWith("application/x-ndjson") || type.startsWith("application/jsonl")) {
+            return Format.NDJSON;
+        }
+        return null;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a CSV header is unreadable or names no lead column
+     */
+    public ImportResult importLeads(InputStream input, Format format) throws IOException {
+        long start = System.nanoTime();
+        ImportResult result = new ImportResult();
+        List<Row> chunk = new ArrayList<>(batchSize);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+
+        if (format == Format.CSV) {
+            readCsv(reader, result, chunk);
+        } else {
+            readNdjson(reader, result, chunk);
+        }
+        flush(chunk, result);
+
+        if (result.getImported() > 0) {
+            countCache.invalidateAll();
+        }
+        long nanos = System.nanoTime() - start;
+        result.setDurationMs(TimeUnit.NANOSECONDS.toMillis(nanos));
+        result.setRowsPerSecond(nanos > 0 ? result.getReceived() * 1_000_000_000L / nanos : 0);
+        log.info("Imported {} of {} leads ({} failed) in {} ms, {} rows/s", result.getImported(),
+            result.getReceived(), result.getFailed(), result.getDurationMs(), result.getRowsPerSecond());
+        return result;
+    }
+
+    private void readCsv(BufferedReader reader, ImportResult result, List<Row> chunk) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            return;
+        }
+        List<String> columns = header.stream().map(LeadImportService::columnName).toList();
+        List<String> targets = columns.stream().map(LeadImportService::targetField).toList();
+        if (targets.stream().allMatch(target -> target == null)) {
+            throw new IllegalArgumentException("The CSV header has no lead columns (such as customer_name, "
+                + "contact_number, product or loan_amount_required): " + String.join(", ", header));
+        }
+        long rowNumber = 0;
+        try {
+            List<String> fields;
+            while ((fields = csv.next()) != null) {
+                if (fields.size() == 1 && fields.get(0).isBlank()) {
+                    continue;
+                }
+                rowNumber++;
+                result.setReceived(result.getReceived() + 1);
+                ObjectNode node = objectMapper.createObjectNode();
+                List<String> nameParts = new ArrayList<>(2);
+                String phone = null;
+                try {
+                    for (int i = 0; i < columns.size() && i < fields.size(); i++) {
+                        String value = fields.get(i);
+                        String target = targets.get(i);
+                        if (value.isEmpty() || target == null) {
+                            continue;
+                        }
+                        String column = columns.get(i);
+                        if (NAME_PARTS.contains(column)) {
+                            nameParts.add(value);
+                        } else if (!column.equals(target)) {
+                            phone = phone == null ? value : phone;
+                        } else {
+                            node.set(column, JSON_FIELDS.contains(column)
+                                ? objectMapper.readTree(value)
+                                : node.textNode(value));
+                        }
+                    }
+                } catch (JsonProcessingException e) {
+                    fail(result, rowNumber, "Invalid JSON in a details column");
+                    continue;
+                }
+                // fields named directly win over the contact export's columns
+                if (!node.has("customer_name") && !nameParts.isEmpty()) {
+                    node.put("customer_name", String.join(" ", nameParts));
+                }
+                if (!node.has("contact_number") && phone != null) {
+                    node.put("contact_number", phone);
+                }
+                if (node.isEmpty()) {
+                    fail(result, rowNumber, "No lead fields in this row");
+                    continue;
+                }
+                accept(rowNumber, node, result, chunk);
+            }
+        } catch (IllegalArgumentException e) {
+            // the rest of the stream cannot be split into rows reliably
+            result.setReceived(result.getReceived() + 1);
+            fail(result, rowNumber + 1, "Unreadable CSV: " + e.getMessage());
+        }
+    }
+
+    private void readNdjson(BufferedReader reader, ImportResult result, List<Row> chunk) throws IOException {
+        long rowNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            rowNumber++;
+            result.setReceived(result.getReceived() + 1);
+            if (line.stripLeading().charAt(0) != '{') {
+                fail(result, rowNumber, "Expected a JSON object");
+                continue;
+            }
+            // Bound straight to the entity: details columns are copied as text, never built into trees
+            LeadExtension lead;
+            try {
+                lead = leadReader.readValue(line);
+            } catch (JsonMappingException e) {
+                fail(result, rowNumber, mappingError(e));
+                continue;
+            } catch (JsonProcessingException e) {
+                fail(result, rowNumber, "Invalid JSON");
+                continue;
+            }
+            lead.setId(null);
+            lead.setVersion(null);
+            lead.setCreatedAt(null);
+            lead.setUpdatedAt(null);
+            add(rowNumber, lead, result, chunk);
+        }
+    }
+
+    private void accept(long rowNumber, ObjectNode node, ImportResult result, List<Row> chunk) {
+        node.remove(IGNORED_FIELDS);
+        LeadExtension lead;
+        try {
+            lead = objectMapper.treeToValue(node, LeadExtension.class);
+        } catch (JsonMappingException e) {
+            fail(result, rowNumber, mappingError(e));
+            return;
+        } catch (JsonProcessingException e) {
+            fail(result, rowNumber, "Invalid row");
+            return;
+        }
+        add(rowNumber, lead, result, chunk);
+    }
+
+    private static String mappingError(JsonMappingException e) {
+        String field = e.getPath().isEmpty() ? null : e.getPath().get(e.getPath().size() - 1).getFieldName();
+        return field != null ? "Invalid value for " + field : "Invalid row";
+    }
+
+    private void add(long rowNumber, LeadExtension lead, ImportResult result, List<Row> chunk) {
+        String error = validate(lead);
+        if (error != null) {
+            fail(result, rowNumber, error);
+            return;
+        }
+        if (lead.getLeadStatus() == null || lead.getLeadStatus().isEmpty()) {
+            lead.setLeadStatus("new");
+        }
+        chunk.add(new Row(rowNumber, lead));
+        if (chunk.size() >= batchSize) {
+            flush(chunk, result);
+        }
+    }
+
+    /**
+     * Column limits from lead_extensions, so bad rows are reported instead of failing a chunk.
+     */
+    static String validate(LeadExtension lead) {
+        if (lead.getContactId() == null && isBlank(lead.getCustomerName())) {
+            return "customer_name or contact_id is required";
+        }
+        if (lead.getLoanAmountRequired() != null && lead.getLoanAmountRequired().signum() < 0) {
+            return "loan_amount_required must not be negative";
+        }
+        if (lead.getLoanAmountRequired() != null
+                && lead.getLoanAmountRequired().precision() - lead.getLoanAmountRequired().scale() > 17) {
+            return "loan_amount_required is too large";
+        }
+        if (tooLong(lead.getLeadNumber(), 50)) return "lead_number is longer than 50 characters";
+        if (tooLong(lead.getCustomerName(), 255)) return "customer_name is longer than 255 characters";
+        if (tooLong(lead.getContactNumber(), 50)) return "contact_number is longer than 50 characters";
+        if (tooLong(lead.getProduct(), 255)) return "product is longer than 255 characters";
+        if (tooLong(lead.getLocation(), 500)) return "location is longer than 500 characters";
+        if (tooLong(lead.getLeadReferredBy(), 255)) return "lead_referred_by is longer than 255 characters";
+        if (tooLong(lead.getLeadStatus(), 50)) return "lead_status is longer than 50 characters";
+        return null;
+    }
+
+    private void flush(List<Row> chunk, ImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        int unnumbered = (int) chunk.stream().filter(row -> isBlank(row.lead().getLeadNumber())).count();
+        Iterator<String> numbers = leadNumberAllocator.nextBatch(unnumbered).iterator();
+        List<LeadExtension> leads = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (isBlank(row.lead().getLeadNumber())) {
+                row.lead().setLeadNumber(numbers.next());
+            }
+            leads.add(row.lead());
+        }
+
+        try {
+            chunkTransaction.executeWithoutResult(status -> batchRepository.insertAll(leads));
+            result.setImported(result.getImported() + leads.size());
+        } catch (DataAccessException e) {
+            log.debug("Import chunk failed, retrying its rows one by one: {}", e.getMessage());
+            for (Row row : chunk) {
+                try {
+                    chunkTransaction.executeWithoutResult(status -> batchRepository.insertAll(List.of(row.lead())));
+                    result.setImported(result.getImported() + 1);
+                } catch (DataAccessException rowError) {
+                    fail(result, row.number(), databaseMessage(rowError));
+                }
+            }
+        }
+        chunk.clear();
+    }
+
+    private void fail(ImportResult result, long rowNumber, String error) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < maxReportedErrors) {
+            result.getErrors().add(new ImportResult.RowError(rowNumber, error));
+        } else {
+            result.setErrorsTruncated(true);
+        }
+    }
+
+    private static String databaseMessage(DataAccessException e) {
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+        String message = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+        // drop the driver's "Detail:"/"Position:" lines
+        int newline = message.indexOf('\n');
+        return (newline > 0 ? message.substring(0, newline) : message).replaceFirst("^ERROR: ", "");
+    }
+
+    // Header cells like "Customer Name", "customerName" or "customer_name" all map to customer_name
+    static String columnName(String header) {
+        return header.trim()
+            .replaceAll("([a-z0-9])([A-Z])", "$1_$2")
+            .replaceAll("[^A-Za-z0-9]+", "_")
+            .replaceAll("^_|_$", "")
+            .toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Lead field a normalized header column feeds, or null if the column is ignored.
+     */
+    static String targetField(String column) {
+        if (LEAD_COLUMNS.contains(column)) {
+            return column;
+        }
+        if (NAME_PARTS.contains(column)) {
+            return "customer_name";
+        }
+        if (column.equals("phone") || column.equals("mobile") || column.startsWith("phone_")) {
+            return "contact_number";
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static boolean tooLong(String value, int max) {
+        return value != null && value.length() > max;
+    }
+}
@@ -0,0 +1,109 @@
+package com.aarvee.crm.service;
+
+import com.aarvee.crm.repository.LeadNumberCounterRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out lead numbers of the form LEAD-yyyyMMdd-NNNNN without querying the lead table.
+ * <p>
+ * Each node reserves a block of sequence values from the per-day counter row in
+ * {@code custom_features.lead_number_counters} (hi/lo style) and dispenses them from
+ * memory with an atomic counter, so only one create in every {@code leads.number.block-size}
+ * touches the database. Blocks are reserved in their own transaction so a rolled-back
+ * create can never hand the same block to another node. Numbers left in a block when
+ * the node stops or the day changes are skipped, so numbers are unique but not gapless.
+ */
+@Component
+@Slf4j
+public class LeadNumberAllocator {
+
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final LeadNumberCounterRepository counterRepository;
+    private final TransactionTemplate reserveTransaction;
+    private final int blockSize;
+
+    private volatile Block current;
+
+    // not synchronized: a virtual thread blocked on the reservation query would pin its carrier
+    private final ReentrantLock refillLock = new ReentrantLock();
+
+    private record Block(LocalDate day, String prefix, AtomicLong next, long last) {
+    }
+
+    public LeadNumberAllocator(
+            LeadNumberCounterRepository counterRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${leads.number.block-size:20}") int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("leads.number.block-size must be at least 1");
+        }
+        this.counterRepository = counterRepository;
+        this.reserveTransaction = new TransactionTemplate(transactionManager);
+        this.reserveTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Generate a unique lead number
+     */
+    public String next() {
+        LocalDate today = LocalDate.now();
+        while (true) {
+            Block block = current;
+            if (block != null && block.day().equals(today)) {
+                long value = block.next().getAndIncrement();
+                if (value <= block.last()) {
+                    return String.format("%s-%05d", block.prefix(), value);
+                }
+            }
+            refill(block, today);
+        }
+    }
+
+    /**
+     * Reserve {@code count} consecutive lead numbers with a single counter update, for bulk
+     * inserts. Does not touch the shared in-memory block.
+     */
+    public List<String> nextBatch(int count) {
+        List<String> numbers = new ArrayList<>(count);
+        if (count < 1) {
+            return numbers;
+        }
+        LocalDate today = LocalDate.now();
+        Long last = reserveTransaction.execute(status -> counterRepository.reserveBlock(today, count));
+        String prefix = "LEAD-" + today.format(DAY_FORMAT);
+        for (long value = last - count + 1; value <= last; value++) {
+            numbers.add(String.format("%s-%05d", prefix, value));
+        }
+        return numbers;
+    }
+
+    private void refill(Block exhausted, LocalDate today) {
+        refillLock.lock();
+        try {
+            if (current != exhausted) {
+                // another thread already installed a fresh block
+                return;
+            }
+            Long last = reserveTransaction.execute(status -> counterRepository.reserveBlock(today, blockSize));
+            long first = last - blockSize + 1;
+            current = new Block(today, "LEAD-" + today.format(DAY_FORMAT), new AtomicLong(first), last);
+            log.debug("Reserved lead numbers {}..{} for {}", first, last, today);
+        } finally {
+            refillLock.unlock();
+        }
+    }
+}
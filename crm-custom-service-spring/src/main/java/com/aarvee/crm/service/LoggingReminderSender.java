@@ -0,0 +1,21 @@
+package com.aarvee.crm.service;
+
+import com.aarvee.crm.entity.Reminder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Logs each reminder. No delivery channel (email, SMS, push) is wired up yet; this lets the
+ * dispatch queue run end to end until one is, which replaces it as a {@code @Primary}
+ * {@link ReminderSender}.
+ */
+@Component
+@Slf4j
+public class LoggingReminderSender implements ReminderSender {
+
+    @Override
+    public void send(Reminder reminder) {
+        log.info("Reminder {} ({}) due {} for contact {}: {}", reminder.getId(), reminder.getType(),
+            reminder.getDueDate(), reminder.getContactId(), reminder.getMessage());
+    }
+}
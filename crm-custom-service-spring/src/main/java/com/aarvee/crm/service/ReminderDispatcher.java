@@ -0,0 +1,259 @@
+package com.aarvee.crm.service;
+
+import com.aarvee.crm.entity.Reminder;
+import com.aarvee.crm.repository.ReminderDispatchRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends due reminders through the {@link ReminderSender}. Any number of nodes can run it at once.
+ * <p>
+ * A poller thread claims up to {@code reminders.dispatch.batch-size} due pending reminders in one
+ * {@code FOR UPDATE SKIP LOCKED} statement, so nodes never wait on each other's rows. Claimed rows
+ * are leased for {@code lease-ms} and delivered outside any transaction by a pool of
+ * {@code workers} threads, which get half the lease to finish. The batch's outcome is then
+ * written back in one UPDATE for the sent reminders and one JDBC batch for the failed ones.
+ * Failures are retried after {@code retry-base-ms} doubling per attempt up to
+ * {@code retry-max-ms}, and marked {@code failed} after {@code max-attempts}. A delivery still
+ * running when its time is up may already have gone out, so it is interrupted and recorded as
+ * {@code unknown} rather than retried; such reminders need a manual check. Leases left behind
+ * by a stopped node are released once they expire. A full batch is followed straight away by the
+ * next one; otherwise the poller sleeps for {@code poll-interval-ms}.
+ * Published as {@code reminders.dispatched} by outcome and {@code reminders.claims.expired}.
+ */
+@Service
+@Slf4j
+public class ReminderDispatcher implements MeterBinder {
+
+    private final ReminderDispatchRepository repository;
+    private final ReminderSender sender;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long pollIntervalMs;
+    private final long leaseMs;
+    private final int maxAttempts;
+    private final long retryBaseMs;
+    private final long retryMaxMs;
+    private final ExecutorService workers;
+    private final ExecutorService poller;
+
+    private volatile long lastExpiredRelease;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong unknown = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+
+    public ReminderDispatcher(
+            ReminderDispatchRepository repository,
+            ReminderSender sender,
+            @Value("${reminders.dispatch.enabled:false}") boolean enabled,
+            @Value("${reminders.dispatch.batch-size:500}") int batchSize,
+            @Value("${reminders.dispatch.workers:16}") int workers,
+            @Value("${reminders.dispatch.poll-interval-ms:5000}") long pollIntervalMs,
+            @Value("${reminders.dispatch.lease-ms:300000}") long leaseMs,
+            @Value("${reminders.dispatch.max-attempts:5}") int maxAttempts,
+            @Value("${reminders.dispatch.retry-base-ms:60000}") long retryBaseMs,
+            @Value("${reminders.dispatch.retry-max-ms:3600000}") long retryMaxMs,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (batchSize < 1 || workers < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("reminders.dispatch batch-size, workers and max-attempts must be at least 1");
+        }
+        this.repository = repository;
+        this.sender = sender;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.pollIntervalMs = pollIntervalMs;
+        this.leaseMs = leaseMs;
+        this.maxAttempts = maxAttempts;
+        this.retryBaseMs = retryBaseMs;
+        this.retryMaxMs = retryMaxMs;
+        if (virtualThreads) {
+            // still a fixed pool: the worker count bounds concurrent deliveries either way
+            this.workers = Executors.newFixedThreadPool(workers, Thread.ofVirtual().name("reminder-worker-", 0).factory());
+            this.poller = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("reminder-poller").factory());
+        } else {
+            this.workers = Executors.newFixedThreadPool(workers, daemonThreads("reminder-worker-"));
+            this.poller = Executors.newSingleThreadExecutor(daemonThreads("reminder-poller-"));
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + counter.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    @PostConstruct
+    void start() {
+        if (enabled) {
+            log.info("Dispatching reminders in batches of {}", batchSize);
+            poller.execute(this::pollLoop);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        poller.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private void pollLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                releaseExpiredClaims();
+                if (dispatchOnce() < batchSize) {
+                    Thread.sleep(pollIntervalMs);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                log.error("Reminder dispatch failed, retrying in {} ms", pollIntervalMs, e);
+                try {
+                    Thread.sleep(pollIntervalMs);
+                } catch (InterruptedException stopped) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Releases expired leases, at most once per lease interval per node.
+     */
+    void releaseExpiredClaims() {
+        long now = System.currentTimeMillis();
+        if (now - lastExpiredRelease < leaseMs) {
+            return;
+        }
+        lastExpiredRelease = now;
+        int released = repository.releaseExpiredClaims(LocalDateTime.now(), maxAttempts);
+        if (released > 0) {
+            expired.addAndGet(released);
+            log.warn("Released {} reminder(s) whose dispatch lease expired", released);
+        }
+    }
+
+    /**
+     * Claims, delivers and records one batch.
+     *
+     * @return reminders claimed; fewer than the batch size means the queue is drained for now
+     */
+    int dispatchOnce() throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        List<Reminder> batch = repository.claim(now, batchSize, now.plusNanos(TimeUnit.MILLISECONDS.toNanos(leaseMs)));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        batches.incrementAndGet();
+
+        List<Callable<Void>> deliveries = new ArrayList<>(batch.size());
+        for (Reminder reminder : batch) {
+            deliveries.add(() -> {
+                sender.send(reminder);
+                return null;
+            });
+        }
+        // unfinished deliveries are cancelled when the time is up, well before the lease runs out
+        List<Future<Void>> outcomes = workers.invokeAll(deliveries, leaseMs / 2, TimeUnit.MILLISECONDS);
+
+        List<Long> sentIds = new ArrayList<>(batch.size());
+        List<ReminderDispatchRepository.Retry> retries = new ArrayList<>();
+        List<Long> unknownIds = new ArrayList<>();
+        LocalDateTime finished = LocalDateTime.now();
+        for (int i = 0; i < batch.size(); i++) {
+            Reminder reminder = batch.get(i);
+            try {
+                outcomes.get(i).get();
+                sentIds.add(reminder.getId());
+            } catch (ExecutionException e) {
+                retries.add(retry(reminder, finished, String.valueOf(e.getCause())));
+            } catch (CancellationException e) {
+                // the sender may have delivered it before the interrupt, or may still do so
+                unknownIds.add(reminder.getId());
+            }
+        }
+        repository.markSent(sentIds, finished);
+        repository.reschedule(retries);
+        if (!unknownIds.isEmpty()) {
+            repository.markUnknown(unknownIds, "delivery timed out; not retried in case it was sent");
+            log.warn("Reminder deliveries timed out and were marked unknown: {}", unknownIds);
+        }
+        sent.addAndGet(sentIds.size());
+        unknown.addAndGet(unknownIds.size());
+        return batch.size();
+    }
+
+    private ReminderDispatchRepository.Retry retry(Reminder reminder, LocalDateTime now, String error) {
+        int attempts = reminder.getAttempts();
+        if (attempts >= maxAttempts) {
+            failed.incrementAndGet();
+            log.warn("Reminder {} failed after {} attempts: {}", reminder.getId(), attempts, error);
+            return new ReminderDispatchRepository.Retry(reminder.getId(), null, error);
+        }
+        retried.incrementAndGet();
+        long delayMs = retryBaseMs << Math.min(attempts - 1, 30);
+        if (delayMs <= 0 || delayMs > retryMaxMs) {
+            delayMs = retryMaxMs;
+        }
+        return new ReminderDispatchRepository.Retry(reminder.getId(),
+            now.plusNanos(TimeUnit.MILLISECONDS.toNanos(delayMs)), error);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("batches", batches.get());
+        stats.put("sent", sent.get());
+        stats.put("retried", retried.get());
+        stats.put("failed", failed.get());
+        stats.put("unknown", unknown.get());
+        stats.put("expiredClaims", expired.get());
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("reminders.dispatched", sent, AtomicLong::get)
+            .tag("outcome", "sent")
+            .register(registry);
+        FunctionCounter.builder("reminders.dispatched", retried, AtomicLong::get)
+            .tag("outcome", "retried")
+            .register(registry);
+        FunctionCounter.builder("reminders.dispatched", failed, AtomicLong::get)
+            .tag("outcome", "failed")
+            .register(registry);
+        FunctionCounter.builder("reminders.dispatched", unknown, AtomicLong::get)
+            .tag("outcome", "unknown")
+            .register(registry);
+        FunctionCounter.builder("reminders.claims.expired", expired, AtomicLong::get)
+            .register(registry);
+    }
+}
@@ -0,0 +1,140 @@
+package com.aarvee.crm.service;
+
+import com.aarvee.crm.repository.ReminderGenerationRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates birthday and loan top-up reminders for {@link ReminderDispatcher} to send.
+ * <p>
+ * Each type keeps a watermark: the last day it was generated through. A run covers the days
+ * after the watermark (catching up after downtime) up to {@code reminders.generate.lookahead-days}
+ * ahead, and always regenerates today onwards so contacts and loans entered since the last run
+ * are not missed. Every day is one set-based insert per type, committed together with the
+ * watermark, and reruns create no duplicates. Runs every {@code interval-ms}; any number of
+ * nodes can run it.
+ */
+@Service
+@Slf4j
+public class ReminderGenerator {
+
+    private final ReminderGenerationRepository repository;
+    private final TransactionTemplate dayTransaction;
+    private final boolean enabled;
+    private final long intervalMs;
+    private final int lookaheadDays;
+    private final int topupAfterMonths;
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicLong birthdaysCreated = new AtomicLong();
+    private final AtomicLong topupsCreated = new AtomicLong();
+    private volatile LocalDate lastRunThrough;
+
+    public ReminderGenerator(
+            ReminderGenerationRepository repository,
+            PlatformTransactionManager transactionManager,
+            @Value("${reminders.generate.enabled:false}") boolean enabled,
+            @Value("${reminders.generate.interval-ms:3600000}") long intervalMs,
+            @Value("${reminders.generate.lookahead-days:1}") int lookaheadDays,
+            @Value("${reminders.generate.topup-after-months:12}") int topupAfterMonths,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (lookaheadDays < 0 || topupAfterMonths < 1) {
+            throw new IllegalArgumentException("reminders.generate lookahead-days must be >= 0 and topup-after-months >= 1");
+        }
+        this.repository = repository;
+        this.dayTransaction = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.intervalMs = intervalMs;
+        this.lookaheadDays = lookaheadDays;
+        this.topupAfterMonths = topupAfterMonths;
+        if (virtualThreads) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("reminder-generator").factory());
+        } else {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "reminder-generator");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        if (enabled) {
+            scheduler.scheduleWithFixedDelay(this::runSafely, 0, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    private void runSafely() {
+        try {
+            generate(LocalDate.now());
+        } catch (Exception e) {
+            log.error("Reminder generation failed, retrying in {} ms", intervalMs, e);
+        }
+    }
+
+    /**
+     * Generates both types through {@code today + lookahead-days}.
+     *
+     * @return reminders created per type
+     */
+    public Map<String, Integer> generate(LocalDate today) {
+        LocalDate through = today.plusDays(lookaheadDays);
+        Map<String, Integer> created = new LinkedHashMap<>();
+        created.put(ReminderGenerationRepository.BIRTHDAY,
+            generate(ReminderGenerationRepository.BIRTHDAY, today, through));
+        created.put(ReminderGenerationRepository.LOAN_TOPUP,
+            generate(ReminderGenerationRepository.LOAN_TOPUP, today, through));
+        birthdaysCreated.addAndGet(created.get(ReminderGenerationRepository.BIRTHDAY));
+        topupsCreated.addAndGet(created.get(ReminderGenerationRepository.LOAN_TOPUP));
+        lastRunThrough = through;
+        if (created.values().stream().anyMatch(count -> count > 0)) {
+            log.info("Generated reminders through {}: {}", through, created);
+        }
+        return created;
+    }
+
+    private int generate(String type, LocalDate today, LocalDate through) {
+        LocalDate watermark = repository.generatedThrough(type);
+        LocalDate from = watermark == null || !watermark.plusDays(1).isBefore(today) ? today : watermark.plusDays(1);
+        int created = 0;
+        for (LocalDate day = from; !day.isAfter(through); day = day.plusDays(1)) {
+            LocalDate due = day;
+            created += dayTransaction.execute(status -> {
+                int inserted = ReminderGenerationRepository.BIRTHDAY.equals(type)
+                    ? repository.insertBirthdays(due)
+                    : repository.insertLoanTopups(due, topupAfterMonths);
+                repository.advance(type, due);
+                return inserted;
+            });
+        }
+        return created;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("generatedThrough", lastRunThrough == null ? null : lastRunThrough.toString());
+        stats.put("birthdaysCreated", birthdaysCreated.get());
+        stats.put("topupsCreated", topupsCreated.get());
+        return stats;
+    }
+}
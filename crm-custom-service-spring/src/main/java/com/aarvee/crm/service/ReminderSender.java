@@ -0,0 +1,16 @@
+package com.aarvee.crm.service;
+
+import com.aarvee.crm.entity.Reminder;
+
+/**
+ * Delivers one claimed reminder for {@link ReminderDispatcher}, on one of its worker threads.
+ * Throwing fails the attempt and schedules a retry. A send still running when the dispatcher's
+ * time is up is interrupted and the reminder is marked {@code unknown}, never retried. A node
+ * that stops after sending but before recording it releases the reminder once its lease runs
+ * out, so it can still be sent twice: channels that support it should pass the reminder id
+ * as the idempotency key.
+ */
+public interface ReminderSender {
+
+    void send(Reminder reminder) throws Exception;
+}
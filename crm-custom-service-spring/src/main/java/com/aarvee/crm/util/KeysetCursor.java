@@ -0,0 +1,50 @@
+package com.aarvee.crm.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque cursor for keyset pagination: the sort field and direction of the listing plus the
+ * sort key and id of the last row returned. Encoded as base64url JSON so clients treat it as
+ * a token rather than something to construct.
+ */
+public record KeysetCursor(String sortField, boolean descending, String value, long id) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public String encode() {
+        ObjectNode node = MAPPER.createObjectNode();
+        node.put("f", sortField);
+        node.put("d", descending);
+        node.put("v", value);
+        node.put("i", id);
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(node.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously returned as next_cursor.
+     *
+     * @throws IllegalArgumentException if the token is not a valid cursor
+     */
+    public static KeysetCursor decode(String token) {
+        try {
+            JsonNode node = MAPPER.readTree(Base64.getUrlDecoder().decode(token));
+            if (!node.hasNonNull("f") || !node.has("d") || !node.hasNonNull("i")) {
+                throw new IllegalArgumentException("missing cursor fields");
+            }
+            JsonNode value = node.get("v");
+            return new KeysetCursor(
+                node.get("f").asText(),
+                node.get("d").asBoolean(),
+                value == null || value.isNull() ? null : value.asText(),
+                node.get("i").asLong());
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.aarvee.crm.util;
+
+/**
+ * Entity tags for leads: strong {@code "<id>-<version>"} tags for single leads, and weak
+ * list tags built from the table's change watermark and the list query.
+ */
+public final class LeadETags {
+
+    private LeadETags() {
+        // utility
+    }
+
+    public static String of(Long id, Long version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    /**
+     * Weak tag for a list response. Weak because an estimated total can drift with planner
+     * statistics while the rows stay the same.
+     *
+     * @param watermark the lead table's change watermark, read before the page query
+     * @param query canonical form of the list parameters (page, sort, filter, ...)
+     */
+    public static String forList(long watermark, String query) {
+        return "W/\"leads-" + watermark + "-" + Integer.toHexString(query.hashCode()) + "\"";
+    }
+
+    /**
+     * Whether an If-None-Match header matches the tag, using weak comparison (RFC 9110 13.1.2).
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        String opaque = opaqueTag(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if ("*".equals(tag) || opaqueTag(tag).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaqueTag(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    /**
+     * The version an If-Match header expects for the lead, or null when the header is absent
+     * or {@code *}. A tag for a different lead yields -1, which never matches.
+     *
+     * @throws IllegalArgumentException if the header is not a tag this service issued
+     */
+    public static Long expectedVersion(String ifMatch, Long id) {
+        if (ifMatch == null || ifMatch.isBlank() || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            // weak tags cannot be used for If-Match (RFC 9110 strong comparison)
+            throw new IllegalArgumentException("If-Match must be a strong entity tag");
+        }
+        if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new IllegalArgumentException("Invalid If-Match header");
+        }
+        String value = tag.substring(1, tag.length() - 1);
+        int dash = value.lastIndexOf('-');
+        try {
+            long taggedId = Long.parseLong(value.substring(0, dash));
+            long version = Long.parseLong(value.substring(dash + 1));
+            return taggedId == id ? version : -1L;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid If-Match header");
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.aarvee.crm.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parsed form of the {@code fields=} list parameter: which lead attributes a list response
+ * carries. Names may be snake_case or camelCase and must be on the allow-list; {@code id}
+ * is always included. {@code fields=list} selects the lean set the lead grid shows, and an
+ * absent parameter (or {@code all}) keeps whole rows.
+ */
+public final class LeadFields {
+
+    // attribute name -> JSON name (spring.jackson.property-naming-strategy is SNAKE_CASE)
+    private static final Map<String, String> FIELDS = new LinkedHashMap<>();
+
+    static {
+        for (String attribute : List.of("id", "contactId", "leadNumber", "customerName", "contactNumber",
+                "product", "loanAmountRequired", "location", "leadReferredBy", "shortDescription",
+                "leadAssignedTo", "leadStatus", "stage", "index", "disbursedAt", "businessDetails", "propertyDetails", "autoLoanDetails",
+                "machineryLoanDetails", "version", "createdAt", "updatedAt")) {
+            FIELDS.put(attribute, attribute.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toLowerCase());
+        }
+    }
+
+    // The grid's columns, plus version so rows can be edited with If-Match
+    private static final LeadFields LIST = new LeadFields(List.of("id", "leadNumber", "customerName",
+        "contactNumber", "product", "loanAmountRequired", "location", "leadStatus", "leadAssignedTo", "version"));
+
+    private static final LeadFields ALL = new LeadFields(null);
+
+    // null means every column
+    private final List<String> attributes;
+
+    private LeadFields(List<String> attributes) {
+        this.attributes = attributes == null ? null : Collections.unmodifiableList(attributes);
+    }
+
+    public static LeadFields all() {
+        return ALL;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a field is not on the allow-list
+     */
+    public static LeadFields parse(String fields) {
+        if (fields == null || fields.isBlank() || "all".equals(fields.trim())) {
+            return ALL;
+        }
+        if ("list".equals(fields.trim())) {
+            return LIST;
+        }
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add("id");
+        for (String part : fields.split(",")) {
+            String name = part.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            String attribute = attributeName(name);
+            if (!FIELDS.containsKey(attribute)) {
+                throw new IllegalArgumentException("Invalid field: " + name);
+            }
+            selected.add(attribute);
+        }
+        return new LeadFields(new ArrayList<>(selected));
+    }
+
+    private static String attributeName(String name) {
+        StringBuilder sb = new StringBuilder();
+        boolean upper = false;
+        for (char c : name.toCharArray()) {
+            if (c == '_') {
+                upper = true;
+            } else {
+                sb.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * These fields plus one more, e.g. the sort field a keyset cursor is built from.
+     */
+    public LeadFields including(String attribute) {
+        if (attributes == null || attributes.contains(attribute)) {
+            return this;
+        }
+        List<String> widened = new ArrayList<>(attributes);
+        widened.add(attribute);
+        return new LeadFields(widened);
+    }
+
+    public boolean isAll() {
+        return attributes == null;
+    }
+
+    /**
+     * Selected entity attribute names, id first; null when every column is selected.
+     */
+    public List<String> attributes() {
+        return attributes;
+    }
+
+    public static String jsonName(String attribute) {
+        return FIELDS.get(attribute);
+    }
+
+    public String signature() {
+        return attributes == null ? "*" : String.join(",", attributes);
+    }
+
+    public static String[] ALLOWED_FIELDS() {
+        return FIELDS.values().toArray(new String[0]);
+    }
+}
@@ -0,0 +1,352 @@
+package com.aarvee.crm.util;
+
+import com.aarvee.crm.entity.LeadDetailPaths;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Parsed, type-checked form of the react-admin {@code filter=<json>} list parameter.
+ * <p>
+ * Keys are field names (snake_case or camelCase) from an allow-list, optionally suffixed
+ * with an operator in the same {@code field@op} style the Supabase data provider uses:
+ * <pre>
+ *   {"lead_status": "new"}                      equality (an array value means IN)
+ *   {"lead_status@in": ["new", "contacted"]}     IN, also accepts "(new,contacted)"
+ *   {"lead_status@neq": "lost"}                  not equal
+ *   {"loan_amount_required@gte": 100000}         ranges: @gt, @gte, @lt, @lte
+ *   {"customer_name@prefix": "Ram"}              prefix match (string fields)
+ *   {"q": "Ram"}                                 prefix match on name, lead number or phone
+ *   {"business_details.type_of_industry": "IT"}  a key inside a loan detail column (an array means any of)
+ *   {"property_details@contains": {"type_of_property": "Flat", "is_new_purchase": true}}
+ * </pre>
+ * Detail keys are limited to {@link LeadDetailPaths} and compile to JSONB containment
+ * ({@link Operator#CONTAINS}), whose values are the JSON documents to match, any one sufficing.
+ * Unknown fields, unknown operators and values of the wrong type are rejected.
+ */
+public final class LeadFilter {
+
+    public enum Operator { EQ, NEQ, IN, GT, GTE, LT, LTE, PREFIX, SEARCH, CONTAINS }
+
+    public record Condition(String field, Operator operator, List<Object> values) {
+    }
+
+    public static final int MAX_IN_VALUES = 500;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Map<String, Class<?>> FIELDS = new LinkedHashMap<>();
+    private static final LeadFilter EMPTY = new LeadFilter(List.of());
+
+    static {
+        FIELDS.put("id", Long.class);
+        FIELDS.put("contactId", Long.class);
+        FIELDS.put("leadNumber", String.class);
+        FIELDS.put("customerName", String.class);
+        FIELDS.put("contactNumber", String.class);
+        FIELDS.put("product", String.class);
+        FIELDS.put("loanAmountRequired", BigDecimal.class);
+        FIELDS.put("location", String.class);
+        FIELDS.put("leadReferredBy", String.class);
+        FIELDS.put("leadAssignedTo", Long.class);
+        FIELDS.put("leadStatus", String.class);
+        FIELDS.put("stage", String.class);
+        FIELDS.put("index", Long.class);
+        FIELDS.put("createdAt", LocalDateTime.class);
+        FIELDS.put("updatedAt", LocalDateTime.class);
+    }
+
+    // Fields searched by the free-text "q" key, all with prefix matches
+    public static final List<String> SEARCH_FIELDS = List.of("customerName", "leadNumber", "contactNumber");
+
+    private final List<Condition> conditions;
+
+    private LeadFilter(List<Condition> conditions) {
+        this.conditions = conditions;
+    }
+
+    public static LeadFilter empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the JSON is malformed or uses a field, operator or value that is not allowed
+     */
+    public static LeadFilter parse(String json) {
+        if (json == null || json.isBlank()) {
+            return EMPTY;
+        }
+        JsonNode root;
+        try {
+            root = MAPPER.readTree(json);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid filter: not valid JSON");
+        }
+        if (root == null || root.isNull()) {
+            return EMPTY;
+        }
+        if (!root.isObject()) {
+            throw new IllegalArgumentException("Invalid filter: expected a JSON object");
+        }
+
+        List<Condition> conditions = new ArrayList<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = root.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> entry = fields.next();
+            conditions.add(parseCondition(entry.getKey(), entry.getValue()));
+        }
+        conditions.sort(Comparator.comparing(Condition::field).thenComparing(Condition::operator));
+        return new LeadFilter(Collections.unmodifiableList(conditions));
+    }
+
+    private static Condition parseCondition(String key, JsonNode value) {
+        if ("q".equals(key)) {
+            if (!value.isTextual()) {
+                throw new IllegalArgumentException("Invalid filter value for q: expected a string");
+            }
+            return new Condition("q", Operator.SEARCH, List.of(value.asText()));
+        }
+
+        String name = key;
+        String op = null;
+        int at = key.indexOf('@');
+        if (at >= 0) {
+            name = key.substring(0, at);
+            op = key.substring(at + 1);
+        }
+        if (name.contains(".") || Operator.CONTAINS.name().equalsIgnoreCase(op)) {
+            return parseDetailCondition(key, name, op, value);
+        }
+        String field = normalizeField(name);
+        Class<?> type = FIELDS.get(field);
+        if (type == null) {
+            throw new IllegalArgumentException("Invalid filter field: " + name);
+        }
+
+        Operator operator;
+        if (op == null) {
+            operator = value.isArray() ? Operator.IN : Operator.EQ;
+        } else {
+            try {
+                operator = Operator.valueOf(op.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid filter operator: " + op);
+            }
+            if (operator == Operator.SEARCH || operator == Operator.CONTAINS) {
+                throw new IllegalArgumentException("Invalid filter operator: " + op);
+            }
+        }
+        if (operator == Operator.PREFIX && type != String.class) {
+            throw new IllegalArgumentException("Invalid filter: prefix match is only supported on text fields");
+        }
+
+        List<Object> values = new ArrayList<>();
+        if (operator == Operator.IN) {
+            for (String raw : inValues(key, value)) {
+                values.add(convert(key, raw, type));
+            }
+            if (values.isEmpty() || values.size() > MAX_IN_VALUES) {
+                throw new IllegalArgumentException("Invalid filter value for " + key
+                    + ": expected 1 to " + MAX_IN_VALUES + " values");
+            }
+        } else {
+            if (!value.isValueNode() || value.isNull()) {
+                throw new IllegalArgumentException("Invalid filter value for " + key);
+            }
+            values.add(convert(key, value.asText(), type));
+        }
+        return new Condition(field, operator, Collections.unmodifiableList(values));
+    }
+
+    private static Condition parseDetailCondition(String key, String name, String op, JsonNode value) {
+        List<Object> documents = new ArrayList<>();
+        String attribute;
+        if (op != null && Operator.CONTAINS.name().equalsIgnoreCase(op)) {
+            String column = snakeCase(name);
+            attribute = LeadDetailPaths.attributeOf(column);
+            if (attribute == null) {
+                throw new IllegalArgumentException("Invalid filter field: " + name);
+            }
+            if (!value.isObject() || value.isEmpty()) {
+                throw new IllegalArgumentException("Invalid filter value for " + key + ": expected a JSON object");
+            }
+            ObjectNode document = MAPPER.createObjectNode();
+            Iterator<Map.Entry<String, JsonNode>> entries = value.fields();
+            while (entries.hasNext()) {
+                Map.Entry<String, JsonNode> entry = entries.next();
+                LeadDetailPaths.DetailPath path = detailPath(column + "." + entry.getKey());
+                if (!entry.getValue().isValueNode() || entry.getValue().isNull()) {
+                    throw new IllegalArgumentException("Invalid filter value for " + key);
+                }
+                putTyped(document, key, path, entry.getValue().asText());
+            }
+            documents.add(document.toString());
+        } else {
+            if (op != null && !Operator.EQ.name().equalsIgnoreCase(op) && !Operator.IN.name().equalsIgnoreCase(op)) {
+                throw new IllegalArgumentException("Invalid filter operator: " + op);
+            }
+            LeadDetailPaths.DetailPath path = detailPath(name);
+            attribute = path.attribute();
+            List<String> raw;
+            if (op == null ? value.isArray() : Operator.IN.name().equalsIgnoreCase(op)) {
+                raw = inValues(key, value);
+            } else if (value.isValueNode() && !value.isNull()) {
+                raw = List.of(value.asText());
+            } else {
+                throw new IllegalArgumentException("Invalid filter value for " + key);
+            }
+            if (raw.isEmpty() || raw.size() > MAX_IN_VALUES) {
+                throw new IllegalArgumentException("Invalid filter value for " + key
+                    + ": expected 1 to " + MAX_IN_VALUES + " values");
+            }
+            for (String item : raw) {
+                ObjectNode document = MAPPER.createObjectNode();
+                putTyped(document, key, path, item);
+                documents.add(document.toString());
+            }
+        }
+        return new Condition(attribute, Operator.CONTAINS, Collections.unmodifiableList(documents));
+    }
+
+    private static LeadDetailPaths.DetailPath detailPath(String name) {
+        LeadDetailPaths.DetailPath path = LeadDetailPaths.get(snakeCase(name));
+        if (path == null) {
+            throw new IllegalArgumentException("Invalid filter field: " + name);
+        }
+        return path;
+    }
+
+    private static void putTyped(ObjectNode document, String key, LeadDetailPaths.DetailPath path, String raw) {
+        if (path.type() == Boolean.class) {
+            if (!"true".equals(raw) && !"false".equals(raw)) {
+                throw new IllegalArgumentException("Invalid filter value for " + key + ": " + raw);
+            }
+            document.put(path.key(), Boolean.parseBoolean(raw));
+        } else {
+            document.put(path.key(), raw);
+        }
+    }
+
+    private static List<String> inValues(String key, JsonNode value) {
+        List<String> raw = new ArrayList<>();
+        if (value.isArray()) {
+            for (JsonNode item : value) {
+                if (!item.isValueNode() || item.isNull()) {
+                    throw new IllegalArgumentException("Invalid filter value for " + key);
+                }
+                raw.add(item.asText());
+            }
+        } else if (value.isTextual()) {
+            // PostgREST style "(a,b,c)"
+            String text = value.asText().trim();
+            if (text.startsWith("(") && text.endsWith(")")) {
+                text = text.substring(1, text.length() - 1);
+            }
+            for (String part : text.split(",")) {
+                if (!part.isBlank()) {
+                    raw.add(part.trim());
+                }
+            }
+        } else {
+            raw.add(value.asText());
+        }
+        return raw;
+    }
+
+    private static Object convert(String key, String raw, Class<?> type) {
+        try {
+            if (type == Long.class) {
+                return Long.valueOf(raw);
+            } else if (type == BigDecimal.class) {
+                return new BigDecimal(raw);
+            } else if (type == LocalDateTime.class) {
+                return parseDateTime(raw);
+            }
+            return raw;
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid filter value for " + key + ": " + raw);
+        }
+    }
+
+    private static LocalDateTime parseDateTime(String raw) {
+        if (raw.length() == 10) {
+            return LocalDate.parse(raw).atStartOfDay();
+        }
+        if (raw.endsWith("Z") || raw.matches(".*[+-]\\d{2}:\\d{2}$")) {
+            // lead timestamps are written as LocalDateTime.now(), i.e. in the JVM's zone
+            return OffsetDateTime.parse(raw).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        }
+        return LocalDateTime.parse(raw);
+    }
+
+    private static String snakeCase(String name) {
+        return name.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toLowerCase();
+    }
+
+    private static String normalizeField(String name) {
+        if (!name.contains("_")) {
+            return name;
+        }
+        StringBuilder sb = new StringBuilder();
+        String[] parts = name.split("_");
+        sb.append(parts[0]);
+        for (int i = 1; i < parts.length; i++) {
+            if (parts[i].length() > 0) {
+                sb.append(parts[i].substring(0, 1).toUpperCase()).append(parts[i].substring(1));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * This filter narrowed to the given ids. Unlike parsed {@code @in} lists this is not
+     * capped at {@link #MAX_IN_VALUES}; callers bound the size themselves.
+     */
+    public LeadFilter withIds(Collection<Long> ids) {
+        List<Condition> narrowed = new ArrayList<>(conditions);
+        narrowed.add(new Condition("id", Operator.IN, List.<Object>copyOf(ids)));
+        narrowed.sort(Comparator.comparing(Condition::field).thenComparing(Condition::operator));
+        return new LeadFilter(Collections.unmodifiableList(narrowed));
+    }
+
+    public List<Condition> conditions() {
+        return conditions;
+    }
+
+    public boolean isEmpty() {
+        return conditions.isEmpty();
+    }
+
+    /**
+     * Canonical form of the filter, identical for logically equal filters regardless of key order.
+     */
+    public String signature() {
+        if (conditions.isEmpty()) {
+            return "*";
+        }
+        return conditions.stream()
+            .map(c -> c.field() + "@" + c.operator() + "=" + c.values())
+            .collect(Collectors.joining("&"));
+    }
+
+    public static String[] ALLOWED_FIELDS() {
+        return Stream.concat(FIELDS.keySet().stream(), Stream.of(LeadDetailPaths.ALLOWED_PATHS()))
+            .toArray(String[]::new);
+    }
+}
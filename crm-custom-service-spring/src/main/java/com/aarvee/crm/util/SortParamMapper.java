@@ -6,7 +6,6 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicLong;
 
 public final class SortParamMapper {
 
@@ -23,13 +22,12 @@ public final class SortParamMapper {
         "leadReferredBy",
         "leadAssignedTo",
         "leadStatus",
+        "stage",
+        "index",
         "createdAt",
         "updatedAt"
     ));
 
-    // Simple in-memory metric to count invalid sort requests
-    private static final AtomicLong INVALID_SORT_COUNT = new AtomicLong(0);
-
     static {
         MAPPINGS.put("created", "createdAt");
         MAPPINGS.put("created_at", "createdAt");
@@ -87,12 +85,4 @@ public final class SortParamMapper {
     public static Set<String> allowedSet() {
         return Collections.unmodifiableSet(ALLOWED);
     }
-
-    public static void incrementInvalidCount() {
-        INVALID_SORT_COUNT.incrementAndGet();
-    }
-
-    public static long getInvalidSortCount() {
-        return INVALID_SORT_COUNT.get();
-    }
 }
@@ -0,0 +1,89 @@
+package com.aarvee.crm.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DbConcurrencyFilterTest {
+
+    @Test
+    void requestsBeyondTheQueueAreRejectedWith503() throws Exception {
+        DbConcurrencyFilter filter = new DbConcurrencyFilter(new ObjectMapper(), 1, 0, 1_000);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> {
+            try {
+                filter.doFilter(apiRequest(), new MockHttpServletResponse(), (req, res) -> {
+                    entered.countDown();
+                    await(release);
+                });
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(apiRequest(), rejected, new MockFilterChain());
+
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString().contains("\"error\""));
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+
+        MockHttpServletResponse admitted = new MockHttpServletResponse();
+        filter.doFilter(apiRequest(), admitted, new MockFilterChain());
+        assertEquals(200, admitted.getStatus());
+        assertEquals(1L, filter.stats().get("rejected"));
+        assertEquals(0, filter.stats().get("active"));
+    }
+
+    @Test
+    void waitersGiveUpAfterTheAcquireTimeout() throws Exception {
+        DbConcurrencyFilter filter = new DbConcurrencyFilter(new ObjectMapper(), 1, 10, 50);
+        MockHttpServletRequest async = apiRequest();
+        async.setAsyncSupported(true);
+        filter.doFilter(async, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+        // the async request keeps its permit after the filter chain returns
+        MockHttpServletResponse waited = new MockHttpServletResponse();
+        filter.doFilter(apiRequest(), waited, new MockFilterChain());
+        assertEquals(503, waited.getStatus());
+        assertEquals(1L, filter.stats().get("timedOut"));
+
+        ((MockAsyncContext) async.getAsyncContext()).complete();
+        assertEquals(0, filter.stats().get("active"));
+    }
+
+    @Test
+    void nonApiRequestsAreNotLimited() throws Exception {
+        DbConcurrencyFilter filter = new DbConcurrencyFilter(new ObjectMapper(), 0, 0, 0);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/health"), response, new MockFilterChain());
+
+        assertEquals(200, response.getStatus());
+    }
+
+    private static MockHttpServletRequest apiRequest() {
+        return new MockHttpServletRequest("GET", "/api/leads");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
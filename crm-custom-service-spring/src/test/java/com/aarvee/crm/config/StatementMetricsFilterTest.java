@@ -0,0 +1,181 @@
+package com.aarvee.crm.config;
+
+import com.aarvee.crm.repository.StatementCountingDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementMetricsFilterTest {
+
+    private SimpleMeterRegistry registry;
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        registry = new SimpleMeterRegistry();
+        DataSource pool = Mockito.mock(DataSource.class);
+        Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(pool.getConnection()).thenReturn(connection);
+        Mockito.when(connection.prepareStatement(Mockito.anyString()))
+            .thenAnswer(invocation -> Mockito.mock(PreparedStatement.class));
+        dataSource = new StatementCountingDataSource(pool);
+    }
+
+    @Test
+    void countsStatementsIntoTheMetricAndServerTimingHeader() throws Exception {
+        StatementMetricsFilter filter = new StatementMetricsFilter(registry, "", 50, 5, true, 1000);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(apiRequest(), response, (req, res) -> {
+            runStatements("select count(*) from leads", 1);
+            runStatements("select * from leads limit ?", 1);
+            res.getWriter().write("{}");
+        });
+
+        String serverTiming = response.getHeader("Server-Timing");
+        assertTrue(serverTiming.startsWith("db;dur="), serverTiming);
+        assertTrue(serverTiming.endsWith(";desc=\"2 queries\""), serverTiming);
+        assertEquals(2.0, registry.get("http.server.requests.queries")
+            .tags("method", "GET", "uri", "/api/leads").summary().totalAmount());
+    }
+
+    @Test
+    void failsRequestsOverTheirEndpointBudget() {
+        StatementMetricsFilter filter = new StatementMetricsFilter(registry, "GET /api/leads=2", 50, 5, true, 1000);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () ->
+            filter.doFilter(apiRequest(), new MockHttpServletResponse(), (req, res) -> {
+                runStatements("select count(*) from leads", 1);
+                runStatements("select * from leads limit ?", 1);
+                runStatements("select * from lead_contacts where lead_id = ?", 1);
+            }));
+
+        assertTrue(e.getMessage().contains("ran 3 SQL statements, budget is 2"));
+        assertEquals(1.0, registry.get("sql.budget.exceeded").counter().count());
+    }
+
+    @Test
+    void failsBeforeTheBodyIsCommitted() throws Exception {
+        StatementMetricsFilter filter = new StatementMetricsFilter(registry, "GET /api/leads=2", 50, 5, true, 1000);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThrows(IllegalStateException.class, () ->
+            filter.doFilter(apiRequest(), response, (req, res) -> {
+                runStatements("select * from leads limit ?", 3);
+                res.getWriter().write("{}");
+                res.flushBuffer();
+            }));
+
+        assertFalse(response.isCommitted());
+        assertEquals("", response.getContentAsString());
+        assertEquals(1.0, registry.get("sql.budget.exceeded").counter().count());
+    }
+
+    @Test
+    void onlyLogsViolationsAfterTheResponseIsCommitted() throws Exception {
+        StatementMetricsFilter filter = new StatementMetricsFilter(registry, "GET /api/leads=2", 50, 5, true, 1000);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(apiRequest(), response, (req, res) -> {
+            res.getWriter().write("{}");
+            res.flushBuffer();
+            runStatements("select * from leads limit ?", 3);
+        });
+
+        assertTrue(response.isCommitted());
+        assertEquals("{}", response.getContentAsString());
+        assertEquals(1.0, registry.get("sql.budget.exceeded").counter().count());
+    }
+
+    @Test
+    void flagsTheSameStatementRepeatedWithDifferentParameters() {
+        StatementMetricsFilter filter = new StatementMetricsFilter(registry, "", 50, 5, true, 1000);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () ->
+            filter.doFilter(apiRequest(), new MockHttpServletResponse(), (req, res) ->
+                runStatements("select * from lead_contacts where lead_id = ?", 6)));
+
+        assertTrue(e.getMessage().contains("possible N+1"));
+        assertEquals(1.0, registry.get("sql.statements.repeated").counter().count());
+    }
+
+    @Test
+    void onlyLogsViolationsWhenNotFailing() throws Exception {
+        StatementMetricsFilter filter = new StatementMetricsFilter(registry, "", 3, 5, false, 1000);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(apiRequest(), response, (req, res) ->
+            runStatements("select * from lead_contacts where lead_id = ?", 6));
+
+        assertEquals(200, response.getStatus());
+        assertEquals(1.0, registry.get("sql.budget.exceeded").counter().count());
+    }
+
+    @Test
+    void batchesAreNotRepeatSuspects() throws Exception {
+        StatementMetricsFilter filter = new StatementMetricsFilter(registry, "", 50, 2, true, 1000);
+
+        filter.doFilter(apiRequest(), new MockHttpServletResponse(), (req, res) -> {
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement insert = connection.prepareStatement("insert into leads values (?)")) {
+                for (int i = 0; i < 3; i++) {
+                    insert.addBatch();
+                    insert.executeBatch();
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertEquals(3.0, registry.get("http.server.requests.queries").summary().totalAmount());
+    }
+
+    @Test
+    void rejectsMalformedBudgets() {
+        assertThrows(IllegalArgumentException.class, () -> StatementMetricsFilter.parseBudgets("/api/leads=2"));
+        assertThrows(IllegalArgumentException.class, () -> StatementMetricsFilter.parseBudgets("GET /api/leads=x"));
+        assertEquals(4, StatementMetricsFilter.parseBudgets("get /api/leads=4, GET /api/leads/{id}=1")
+            .get("GET /api/leads"));
+    }
+
+    @Test
+    void nonApiRequestsAreNotCounted() throws Exception {
+        StatementMetricsFilter filter = new StatementMetricsFilter(registry, "", 50, 5, true, 1000);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/health"), response, new MockFilterChain());
+
+        assertNull(response.getHeader("Server-Timing"));
+    }
+
+    private void runStatements(String sql, int times) {
+        try (Connection connection = dataSource.getConnection()) {
+            for (int i = 0; i < times; i++) {
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    statement.setLong(1, i);
+                    statement.executeQuery();
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MockHttpServletRequest apiRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/leads");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/leads");
+        return request;
+    }
+}
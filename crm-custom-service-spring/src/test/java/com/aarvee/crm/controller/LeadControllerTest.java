@@ -1,35 +1,82 @@
 package com.aarvee.crm.controller;
 
+import com.aarvee.crm.config.JacksonConfig;
+import com.aarvee.crm.dto.BatchResponse;
+import com.aarvee.crm.dto.BoardColumn;
+import com.aarvee.crm.dto.PageResponse;
 import com.aarvee.crm.entity.LeadExtension;
+import com.aarvee.crm.security.JwksKeyProvider;
+import com.aarvee.crm.security.VerifiedTokenCache;
+import com.aarvee.crm.service.CountStrategy;
+import com.aarvee.crm.service.LeadBoardService;
+import com.aarvee.crm.service.LeadExportService;
 import com.aarvee.crm.service.LeadExtensionService;
+import com.aarvee.crm.service.LeadImportService;
+import com.aarvee.crm.util.LeadFields;
+import com.aarvee.crm.util.LeadFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.math.BigDecimal;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = LeadController.class)
+@Import({JacksonConfig.class, SimpleMeterRegistry.class})
+@WithMockUser
 class LeadControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @MockBean
     private LeadExtensionService service;
 
+    @MockBean
+    private LeadImportService importService;
+
+    @MockBean
+    private LeadExportService exportService;
+
+    @MockBean
+    private LeadBoardService boardService;
+
+    // Required by JwtAuthenticationFilter, which @WebMvcTest picks up as a servlet filter
+    @MockBean
+    private JwksKeyProvider jwksKeyProvider;
+
+    @MockBean
+    private VerifiedTokenCache tokenCache;
+
     @Test
     void getList_withValidSortField_returns200() throws Exception {
-        Page<LeadExtension> emptyPage = new PageImpl<>(Collections.emptyList());
-        Mockito.when(service.getList(Mockito.anyInt(), Mockito.anyInt(), Mockito.eq("createdAt"), Mockito.anyString()))
+        PageResponse<LeadExtension> emptyPage = new PageResponse<>(Collections.emptyList(), 0L, null, "exact");
+        Mockito.when(service.getList(Mockito.anyInt(), Mockito.anyInt(), Mockito.eq("createdAt"), Mockito.anyString(),
+                Mockito.any(LeadFilter.class), Mockito.any(CountStrategy.class)))
             .thenReturn(emptyPage);
 
         mockMvc.perform(get("/api/leads?page=1&perPage=10&sortField=createdAt&sortOrder=desc")
@@ -42,5 +89,293 @@ class LeadControllerTest {
         mockMvc.perform(get("/api/leads?page=1&perPage=10&sortField=__badfield__&sortOrder=desc")
             .accept(MediaType.APPLICATION_JSON))
             .andExpect(status().isBadRequest());
+
+        assertEquals(1.0, meterRegistry.counter("leads.sort.invalid").count());
+    }
+
+    @Test
+    void getList_withCursor_returnsNextCursorWithoutTotal() throws Exception {
+        Mockito.when(service.getListAfter(Mockito.eq(""), Mockito.eq(10), Mockito.eq("createdAt"), Mockito.eq("desc"),
+                Mockito.any(LeadFilter.class)))
+            .thenReturn(new PageResponse<>(Collections.<LeadExtension>emptyList(), null, "next-token", null));
+
+        mockMvc.perform(get("/api/leads?perPage=10&sortField=createdAt&sortOrder=desc&after=")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.next_cursor").value("next-token"))
+            .andExpect(jsonPath("$.total").doesNotExist());
+        Mockito.verify(service, Mockito.never()).getList(Mockito.anyInt(), Mockito.anyInt(), Mockito.anyString(),
+            Mockito.anyString(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void getList_withInvalidCursor_returns400() throws Exception {
+        Mockito.when(service.getListAfter(Mockito.eq("garbage"), Mockito.anyInt(), Mockito.anyString(), Mockito.anyString(),
+                Mockito.any(LeadFilter.class)))
+            .thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        mockMvc.perform(get("/api/leads?perPage=10&after=garbage")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Invalid cursor"));
+    }
+
+    @Test
+    void getList_withCountStrategy_passesItThrough() throws Exception {
+        Mockito.when(service.getList(Mockito.eq(1), Mockito.eq(10), Mockito.eq("createdAt"), Mockito.eq("desc"),
+                Mockito.any(LeadFilter.class), Mockito.eq(CountStrategy.ESTIMATED)))
+            .thenReturn(new PageResponse<>(Collections.emptyList(), 50_000L, null, "estimated"));
+
+        mockMvc.perform(get("/api/leads?page=1&perPage=10&count=estimated")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.total").value(50_000))
+            .andExpect(jsonPath("$.count_strategy").value("estimated"));
+    }
+
+    @Test
+    void getList_withInvalidCountStrategy_returns400() throws Exception {
+        mockMvc.perform(get("/api/leads?page=1&perPage=10&count=approximate")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getList_withFilter_passesParsedFilterThrough() throws Exception {
+        Mockito.when(service.getList(Mockito.anyInt(), Mockito.anyInt(), Mockito.anyString(), Mockito.anyString(),
+                Mockito.argThat(f -> f != null && f.conditions().size() == 2), Mockito.any(CountStrategy.class)))
+            .thenReturn(new PageResponse<>(Collections.emptyList(), 0L, null, "exact"));
+
+        mockMvc.perform(get("/api/leads")
+            .param("filter", "{\"lead_status@in\":[\"new\",\"contacted\"],\"loan_amount_required@gte\":100000}")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void getList_withUnknownFilterField_returns400() throws Exception {
+        mockMvc.perform(get("/api/leads")
+            .param("filter", "{\"password\":\"x\"}")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Invalid filter field: password"));
+    }
+
+    @Test
+    void getMany_returnsRowsAndMissingIds() throws Exception {
+        LeadExtension lead = new LeadExtension();
+        lead.setId(2L);
+        Mockito.when(service.getMany(List.of(2L, 9L)))
+            .thenReturn(new BatchResponse<>(List.of(lead), List.of(9L)));
+
+        mockMvc.perform(get("/api/leads/many?ids=2,9")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data[0].id").value(2))
+            .andExpect(jsonPath("$.missing_ids[0]").value(9));
+    }
+
+    @Test
+    void bulkDelete_byIds_returnsDeletedIds() throws Exception {
+        Mockito.when(service.bulkDelete(Mockito.argThat(scope -> scope.conditions().size() == 1
+                && scope.conditions().get(0).values().equals(List.of(3L, 4L)))))
+            .thenReturn(List.of(3L));
+
+        mockMvc.perform(post("/api/leads/bulk-delete").with(csrf())
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"ids\":[3,4]}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data[0]").value(3));
+    }
+
+    @Test
+    void bulkUpdate_withoutScope_returns400() throws Exception {
+        Mockito.when(service.bulkUpdate(Mockito.any(), Mockito.any()))
+            .thenThrow(new IllegalArgumentException("A bulk operation needs ids or a filter"));
+
+        mockMvc.perform(post("/api/leads/bulk-update").with(csrf())
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"data\":{\"lead_status\":\"won\"}}"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("A bulk operation needs ids or a filter"));
+    }
+
+    @Test
+    void patch_withIfMatch_returnsNewETag() throws Exception {
+        LeadExtension patched = new LeadExtension();
+        patched.setId(7L);
+        patched.setVersion(4L);
+        Mockito.when(service.patch(Mockito.eq(7L), Mockito.any(), Mockito.eq(3L))).thenReturn(patched);
+
+        mockMvc.perform(patch("/api/leads/7").with(csrf())
+            .header("If-Match", "\"7-3\"")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"lead_status\":\"won\"}"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"7-4\""))
+            .andExpect(jsonPath("$.version").value(4));
+    }
+
+    @Test
+    void patch_withStageAndIndex_savesABoardDrag() throws Exception {
+        LeadExtension patched = new LeadExtension();
+        patched.setId(7L);
+        patched.setStage("contacted");
+        patched.setIndex(98_304L);
+        patched.setVersion(5L);
+        Mockito.when(service.patch(Mockito.eq(7L), Mockito.any(), Mockito.eq(4L))).thenReturn(patched);
+
+        mockMvc.perform(patch("/api/leads/7").with(csrf())
+            .header("If-Match", "\"7-4\"")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"stage\":\"contacted\",\"index\":98304}"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"7-5\""))
+            .andExpect(jsonPath("$.stage").value("contacted"))
+            .andExpect(jsonPath("$.index").value(98304));
+        Mockito.verify(service).patch(Mockito.eq(7L),
+            Mockito.argThat(changes -> "contacted".equals(changes.get("stage").asText())
+                && changes.get("index").asLong() == 98_304L && changes.size() == 2),
+            Mockito.eq(4L));
+    }
+
+    @Test
+    void patch_withStaleVersion_returns409() throws Exception {
+        Mockito.when(service.patch(Mockito.eq(7L), Mockito.any(), Mockito.eq(2L)))
+            .thenThrow(new OptimisticLockingFailureException("Lead extension 7 was modified by someone else"));
+
+        mockMvc.perform(patch("/api/leads/7").with(csrf())
+            .header("If-Match", "\"7-2\"")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"lead_status\":\"won\"}"))
+            .andExpect(status().isConflict());
+    }
+
+    @Test
+    void patch_withWeakIfMatch_returns400() throws Exception {
+        mockMvc.perform(patch("/api/leads/7").with(csrf())
+            .header("If-Match", "W/\"7-2\"")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"lead_status\":\"won\"}"))
+            .andExpect(status().isBadRequest());
+        Mockito.verifyNoInteractions(service);
+    }
+
+    @Test
+    void board_returnsColumnsWithTotalsAndCards() throws Exception {
+        Mockito.when(boardService.board(Mockito.eq(List.of("new", "won")), Mockito.eq(5), Mockito.any(LeadFilter.class)))
+            .thenReturn(List.of(
+                new BoardColumn("new", 12, new BigDecimal("1500000.00"), List.of(Map.<String, Object>of("id", 4L, "index", 65_536L))),
+                new BoardColumn("won", 0, BigDecimal.ZERO, List.of())));
+
+        mockMvc.perform(get("/api/leads/board?stages=new,won&perStage=5"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data[0].stage").value("new"))
+            .andExpect(jsonPath("$.data[0].total").value(12))
+            .andExpect(jsonPath("$.data[0].loan_amount_required").value(1500000.00))
+            .andExpect(jsonPath("$.data[0].cards[0].id").value(4))
+            .andExpect(jsonPath("$.data[1].cards").isEmpty());
+    }
+
+    @Test
+    void board_withUnknownFilterField_returns400() throws Exception {
+        mockMvc.perform(get("/api/leads/board").param("filter", "{\"password\":\"x\"}"))
+            .andExpect(status().isBadRequest());
+        Mockito.verifyNoInteractions(boardService);
+    }
+
+    @Test
+    void move_passesStageAndAfterIdAndReturnsNewKey() throws Exception {
+        Mockito.when(boardService.move(7L, "qualified", 3L))
+            .thenReturn(new LeadBoardService.MoveResult(7L, "qualified", 98_304L, 5L));
+
+        mockMvc.perform(post("/api/leads/7/move").with(csrf())
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"stage\":\"qualified\",\"after_id\":3}"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"7-5\""))
+            .andExpect(jsonPath("$.index").value(98_304))
+            .andExpect(jsonPath("$.stage").value("qualified"));
+    }
+
+    @Test
+    void move_afterCardInAnotherStage_returns400() throws Exception {
+        Mockito.when(boardService.move(7L, "qualified", 3L))
+            .thenThrow(new IllegalArgumentException("Lead 3 is not in stage qualified"));
+
+        mockMvc.perform(post("/api/leads/7/move").with(csrf())
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"stage\":\"qualified\",\"after_id\":3}"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Lead 3 is not in stage qualified"));
+    }
+
+    @Test
+    void getOne_withCurrentETag_returns304WithoutLoadingTheLead() throws Exception {
+        Mockito.when(service.getVersion(7L)).thenReturn(Optional.of(4L));
+
+        mockMvc.perform(get("/api/leads/7").header("If-None-Match", "\"7-4\""))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string("ETag", "\"7-4\""));
+        Mockito.verify(service, Mockito.never()).getOne(Mockito.any());
+    }
+
+    @Test
+    void getOne_withStaleETag_returnsLeadAndNewETag() throws Exception {
+        LeadExtension lead = new LeadExtension();
+        lead.setId(7L);
+        lead.setVersion(5L);
+        Mockito.when(service.getVersion(7L)).thenReturn(Optional.of(5L));
+        Mockito.when(service.getOne(7L)).thenReturn(Optional.of(lead));
+
+        mockMvc.perform(get("/api/leads/7").header("If-None-Match", "\"7-4\""))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"7-5\""))
+            .andExpect(header().string("Cache-Control", "no-cache, private"));
+    }
+
+    @Test
+    void getList_withUnchangedWatermark_returns304WithoutQuerying() throws Exception {
+        Mockito.when(service.getChangeWatermark()).thenReturn(41L);
+        Mockito.when(service.getList(Mockito.anyInt(), Mockito.anyInt(), Mockito.anyString(), Mockito.anyString(),
+                Mockito.any(LeadFilter.class), Mockito.any(CountStrategy.class)))
+            .thenReturn(new PageResponse<>(Collections.emptyList(), 0L, null, "exact"));
+
+        String eTag = mockMvc.perform(get("/api/leads?page=2&perPage=25"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/api/leads?page=2&perPage=25").header("If-None-Match", eTag))
+            .andExpect(status().isNotModified());
+        // another page or a newer watermark is a different tag
+        mockMvc.perform(get("/api/leads?page=3&perPage=25").header("If-None-Match", eTag))
+            .andExpect(status().isOk());
+        Mockito.when(service.getChangeWatermark()).thenReturn(42L);
+        mockMvc.perform(get("/api/leads?page=2&perPage=25").header("If-None-Match", eTag))
+            .andExpect(status().isOk());
+
+        Mockito.verify(service, Mockito.times(3)).getList(Mockito.anyInt(), Mockito.anyInt(), Mockito.anyString(),
+            Mockito.anyString(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void getList_withFields_returnsProjectedRows() throws Exception {
+        Mockito.when(service.getList(Mockito.anyInt(), Mockito.anyInt(), Mockito.anyString(), Mockito.anyString(),
+                Mockito.any(LeadFilter.class), Mockito.any(CountStrategy.class),
+                Mockito.argThat((LeadFields f) -> f.attributes().equals(List.of("id", "customerName")))))
+            .thenReturn(new PageResponse<>(List.of(Map.<String, Object>of("id", 1L, "customer_name", "Ravi")), 1L, null, "exact"));
+
+        mockMvc.perform(get("/api/leads?fields=customer_name"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data[0].customer_name").value("Ravi"))
+            .andExpect(jsonPath("$.data[0].short_description").doesNotExist());
+        Mockito.verify(service, Mockito.never()).getList(Mockito.anyInt(), Mockito.anyInt(), Mockito.anyString(),
+            Mockito.anyString(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void getList_withUnknownField_returns400() throws Exception {
+        mockMvc.perform(get("/api/leads?fields=customer_name,password"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Invalid field: password"));
     }
 }
@@ -0,0 +1,164 @@
+package com.aarvee.crm.controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Closed-loop HTTP load against a running instance: {@code clients} concurrent clients, each
+ * issuing its next request as soon as the last one answers, in a list/get/create mix. Run it once
+ * against a server started with {@code VIRTUAL_THREADS_ENABLED=false} and once with {@code true}:
+ * <pre>
+ *   mvn test -Dtest=LeadLoadBenchmark -Dbenchmarks=true -Dbenchmark.token-file=token.jwt \
+ *       [-Dbenchmark.url=http://localhost:3001] [-Dbenchmark.clients=1000] [-Dbenchmark.seconds=30] \
+ *       [-Dbenchmark.mix=70,25,5]
+ * </pre>
+ * Creates real leads ({@code mix} percent of requests), so point it at a scratch database.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class LeadLoadBenchmark {
+
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+    private static final String[] OPERATIONS = {"list", "get", "create"};
+
+    private final Map<String, List<Long>> latencies = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> statuses = new ConcurrentHashMap<>();
+
+    @Test
+    void listGetCreateMix() throws Exception {
+        String url = System.getProperty("benchmark.url", "http://localhost:3001");
+        String token = Files.readString(Path.of(System.getProperty("benchmark.token-file"))).trim();
+        int clients = Integer.getInteger("benchmark.clients", 1000);
+        long seconds = Long.getLong("benchmark.seconds", 30);
+        int[] mix = Arrays.stream(System.getProperty("benchmark.mix", "70,25,5").split(","))
+            .mapToInt(Integer::parseInt).toArray();
+
+        HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+        List<Long> ids = sampleIds(http, url, token);
+        String health = http.send(HttpRequest.newBuilder(URI.create(url + "/health")).build(),
+            HttpResponse.BodyHandlers.ofString()).body();
+        boolean virtualThreads = health.contains("\"virtualThreads\":true");
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        // one virtual thread per client, so the load generator itself never runs out of threads
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                workers.add(pool.submit(() -> client(http, url, token, ids, mix, deadline)));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        }
+
+        report(clients, seconds, virtualThreads);
+        assertTrue(statuses.keySet().stream().anyMatch(s -> s.endsWith(" 200")));
+    }
+
+    private void client(HttpClient http, String url, String token, List<Long> ids, int[] mix, long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            int roll = random.nextInt(mix[0] + mix[1] + mix[2]);
+            String operation = roll < mix[0] ? "list" : roll < mix[0] + mix[1] ? "get" : "create";
+            HttpRequest.Builder request = HttpRequest.newBuilder()
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(60));
+            switch (operation) {
+                case "list" -> request.uri(URI.create(url + "/api/leads?page=" + random.nextInt(1, 21)
+                    + "&perPage=25&sortField=createdAt&sortOrder=desc&count=estimated&fields=list"));
+                case "get" -> request.uri(URI.create(url + "/api/leads/" + ids.get(random.nextInt(ids.size()))));
+                default -> request.uri(URI.create(url + "/api/leads"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"customer_name\":\"Load " + random.nextInt(1_000_000)
+                        + "\",\"contact_number\":\"9" + random.nextInt(100_000_000, 999_999_999)
+                        + "\",\"product\":\"Home Loan\",\"lead_status\":\"new\"}"));
+            }
+            long start = System.nanoTime();
+            String status;
+            long retryAfterSeconds = 0;
+            try {
+                HttpResponse<Void> response = http.send(request.build(), HttpResponse.BodyHandlers.discarding());
+                status = String.valueOf(response.statusCode());
+                retryAfterSeconds = response.headers().firstValueAsLong("Retry-After").orElse(0);
+            } catch (Exception e) {
+                status = e.getClass().getSimpleName();
+            }
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+            if (System.nanoTime() < deadline) {
+                latencies.computeIfAbsent(operation, k -> Collections.synchronizedList(new ArrayList<>())).add(micros);
+                statuses.computeIfAbsent(operation + " " + status, k -> new AtomicLong()).incrementAndGet();
+            }
+            if (retryAfterSeconds > 0) {
+                // back off like a well-behaved client instead of hammering a shedding server
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(retryAfterSeconds));
+            }
+        }
+    }
+
+    private static List<Long> sampleIds(HttpClient http, String url, String token) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/api/leads?perPage=500&fields=id&count=estimated"))
+            .header("Authorization", "Bearer " + token).build();
+        String body = http.send(request, HttpResponse.BodyHandlers.ofString()).body();
+        List<Long> ids = new ArrayList<>();
+        Matcher matcher = ID.matcher(body);
+        while (matcher.find()) {
+            ids.add(Long.valueOf(matcher.group(1)));
+        }
+        assertTrue(!ids.isEmpty(), "no leads to read: " + body);
+        return ids;
+    }
+
+    private void report(int clients, long seconds, boolean virtualThreads) {
+        long total = 0;
+        System.out.printf("%d clients, %d s, server on %s threads%n", clients, seconds,
+            virtualThreads ? "virtual" : "platform");
+        for (String operation : OPERATIONS) {
+            List<Long> samples = latencies.getOrDefault(operation, List.of());
+            if (samples.isEmpty()) {
+                continue;
+            }
+            List<Long> sorted = samples.stream().sorted().toList();
+            total += sorted.size();
+            System.out.printf("  %-6s %7d responses  %7.0f/s  p50 %6d ms  p99 %6d ms%n", operation, sorted.size(),
+                sorted.size() / (double) seconds, percentile(sorted, 50) / 1000, percentile(sorted, 99) / 1000);
+        }
+        long ok = statuses.entrySet().stream().filter(e -> e.getKey().matches(".* 20\\d"))
+            .mapToLong(e -> e.getValue().get()).sum();
+        System.out.printf("  total  %7d responses  %7.0f/s, %.0f/s successful%n", total, total / (double) seconds,
+            ok / (double) seconds);
+        statuses.entrySet().stream().sorted(Map.Entry.comparingByKey())
+            .forEach(e -> System.out.printf("  %s: %d%n", e.getKey(), e.getValue().get()));
+    }
+
+    private static long percentile(List<Long> sorted, int percentile) {
+        return sorted.get(Math.min(sorted.size() - 1, sorted.size() * percentile / 100));
+    }
+}
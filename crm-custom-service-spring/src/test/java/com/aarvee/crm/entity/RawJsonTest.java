@@ -0,0 +1,53 @@
+package com.aarvee.crm.entity;
+
+import com.aarvee.crm.config.JacksonConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.JsonTest;
+import org.springframework.context.annotation.Import;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@JsonTest
+@Import(JacksonConfig.class)
+class RawJsonTest {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void columnTextIsWrittenVerbatim() throws Exception {
+        LeadExtension lead = new LeadExtension();
+        lead.setId(1L);
+        // as Postgres returns jsonb: keys reordered, spaces after separators
+        lead.setBusinessDetails(new RawJson("{\"gst\": \"X1\", \"filings\": [1, 2.50]}"));
+
+        String json = objectMapper.writeValueAsString(lead);
+
+        assertThat(json).contains("\"business_details\":{\"gst\": \"X1\", \"filings\": [1, 2.50]}");
+        assertThat(json).contains("\"property_details\":null");
+    }
+
+    @Test
+    void requestValuesAreCopiedAsText() throws Exception {
+        LeadExtension lead = objectMapper.readValue(
+            "{\"customer_name\":\"Asha\",\"business_details\":{ \"gst\" : \"X1\", \"amount\": 12.50 },"
+                + "\"property_details\":[{\"plot\":7}],\"auto_loan_details\":null}", LeadExtension.class);
+
+        assertThat(lead.getBusinessDetails().json()).isEqualTo("{\"gst\":\"X1\",\"amount\":12.50}");
+        assertThat(lead.getPropertyDetails().json()).isEqualTo("[{\"plot\":7}]");
+        assertThat(lead.getAutoLoanDetails()).isNull();
+        assertThat(lead.getCustomerName()).isEqualTo("Asha");
+    }
+
+    @Test
+    void scalarsAndMalformedValuesAreRejected() {
+        assertThatThrownBy(() -> objectMapper.readValue("{\"business_details\":\"x\"}", LeadExtension.class))
+            .isInstanceOf(MismatchedInputException.class);
+        assertThatThrownBy(() -> objectMapper.readValue("{\"business_details\":{\"a\":}}", LeadExtension.class))
+            .hasMessageContaining("Unexpected character");
+    }
+}
@@ -0,0 +1,169 @@
+package com.aarvee.crm.security;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exercises JwksKeyProvider against a local stub JWKS endpoint.
+ */
+class JwksKeyProviderTest {
+
+    private HttpServer server;
+    private final AtomicReference<String> jwks = new AtomicReference<>();
+    private final AtomicLong responseDelayMs = new AtomicLong();
+    private final AtomicInteger requests = new AtomicInteger();
+    private JwksKeyProvider provider;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/auth/v1/.well-known/jwks.json", exchange -> {
+            requests.incrementAndGet();
+            try {
+                Thread.sleep(responseDelayMs.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = jwks.get().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        if (provider != null) {
+            provider.stop();
+        }
+        server.stop(0);
+    }
+
+    private JwksKeyProvider newProvider(long refreshIntervalMs, long minRefreshIntervalMs) {
+        String authUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/auth/v1";
+        provider = new JwksKeyProvider(authUrl, refreshIntervalMs, minRefreshIntervalMs, 2000, false);
+        provider.start();
+        return provider;
+    }
+
+    @Test
+    void locatesKeyFromJwks() throws Exception {
+        jwks.set(jwks(ecJwk("k1")));
+        JwksKeyProvider provider = newProvider(60_000, 1_000);
+
+        assertNotNull(provider.locateKey("k1"));
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void unknownKidTriggersRefreshAfterRotation() throws Exception {
+        jwks.set(jwks(ecJwk("k1")));
+        JwksKeyProvider provider = newProvider(60_000, 0);
+        assertNotNull(provider.locateKey("k1"));
+
+        jwks.set(jwks(ecJwk("k1"), ecJwk("k2")));
+
+        assertNotNull(provider.locateKey("k2"));
+        assertNotNull(provider.locateKey("k1"));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void unknownKidIsNegativelyCached() throws Exception {
+        jwks.set(jwks(ecJwk("k1")));
+        JwksKeyProvider provider = newProvider(60_000, 60_000);
+        assertNotNull(provider.locateKey("k1"));
+        int afterWarmup = requests.get();
+
+        for (int i = 0; i < 50; i++) {
+            assertNull(provider.locateKey("missing"));
+        }
+
+        // at most one on-demand refresh inside the rate-limit window
+        assertTrue(requests.get() - afterWarmup <= 1);
+    }
+
+    @Test
+    void p99LatencyStaysFlatAcrossRefreshBoundary() throws Exception {
+        jwks.set(jwks(ecJwk("k1")));
+        JwksKeyProvider provider = newProvider(200, 1_000);
+        assertNotNull(provider.locateKey("k1"));
+
+        // every background refresh now takes far longer than a lookup should
+        long slowFetchMs = 500;
+        responseDelayMs.set(slowFetchMs);
+
+        int threads = 8;
+        long runMs = 1_500;
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(threads);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(runMs);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                List<Long> local = new ArrayList<>();
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    assertNotNull(provider.locateKey("k1"));
+                    local.add(System.nanoTime() - start);
+                }
+                latencies.addAll(local);
+                done.countDown();
+            }).start();
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        long p99Ms = TimeUnit.NANOSECONDS.toMillis(sorted[(int) (sorted.length * 0.99)]);
+
+        assertTrue(provider.getFetchCount() >= 2, "expected a background refresh during the run");
+        assertTrue(p99Ms < slowFetchMs / 5, "p99 lookup latency was " + p99Ms + "ms");
+    }
+
+    private static String jwks(String... keys) {
+        return "{\"keys\":[" + String.join(",", keys) + "]}";
+    }
+
+    private static String ecJwk(String kid) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair pair = generator.generateKeyPair();
+        ECPublicKey publicKey = (ECPublicKey) pair.getPublic();
+        return "{\"kid\":\"" + kid + "\",\"kty\":\"EC\",\"crv\":\"P-256\""
+            + ",\"x\":\"" + coordinate(publicKey.getW().getAffineX()) + "\""
+            + ",\"y\":\"" + coordinate(publicKey.getW().getAffineY()) + "\"}";
+    }
+
+    private static String coordinate(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] padded = new byte[32];
+        int length = Math.min(bytes.length, 32);
+        System.arraycopy(bytes, bytes.length - length, padded, 32 - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(padded);
+    }
+}
@@ -0,0 +1,106 @@
+package com.aarvee.crm.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    @Test
+    void returnsCachedSubjectUntilExpiry() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, 300);
+        String digest = cache.digest("header.payload.signature");
+
+        assertNull(cache.get(digest));
+        cache.put(digest, "user-1", System.currentTimeMillis() + 60_000);
+
+        VerifiedTokenCache.CachedToken cached = cache.get(digest);
+        assertNotNull(cached);
+        assertEquals("user-1", cached.subject());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.5, cache.getHitRate());
+    }
+
+    @Test
+    void expiredTokensAreNotServed() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, 300);
+        String digest = cache.digest("expired");
+
+        cache.put(digest, "user-1", System.currentTimeMillis() - 1);
+        assertNull(cache.get(digest));
+
+        cache.put(digest, "user-1", null);
+        assertNull(cache.get(digest));
+    }
+
+    @Test
+    void ttlIsCappedByMaxTtl() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, 10);
+        String digest = cache.digest("long-lived");
+
+        long now = System.currentTimeMillis();
+        cache.put(digest, "user-1", now + 3_600_000);
+
+        assertTrue(cache.get(digest).expiresAtMillis() <= now + 10_000 + 1_000);
+    }
+
+    @Test
+    void staysWithinMaxEntries() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(50, 300);
+        long expiry = System.currentTimeMillis() + 60_000;
+
+        for (int i = 0; i < 500; i++) {
+            cache.put(cache.digest("token-" + i), "user-" + i, expiry);
+        }
+
+        assertTrue(cache.size() <= 50);
+    }
+
+    @Test
+    void fullCacheKeepsAcceptingNewTokens() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(50, 300);
+        long expiry = System.currentTimeMillis() + 60_000;
+
+        for (int i = 0; i < 500; i++) {
+            cache.put(cache.digest("token-" + i), "user-" + i, expiry);
+        }
+        String digest = cache.digest("latest");
+        cache.put(digest, "user-latest", expiry);
+
+        assertEquals("user-latest", cache.get(digest).subject());
+    }
+
+    @Test
+    void disabledCacheStoresNothing() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(0, 300);
+        String digest = cache.digest("token");
+
+        cache.put(digest, "user-1", System.currentTimeMillis() + 60_000);
+
+        assertNull(cache.get(digest));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void digestIsStableAndDistinct() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, 300);
+
+        assertEquals(cache.digest("a.b.c"), cache.digest("a.b.c"));
+        assertNotEquals(cache.digest("a.b.c"), cache.digest("a.b.d"));
+    }
+
+    @Test
+    void estimatesSavedVerificationTime() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, 300);
+        String digest = cache.digest("token");
+
+        cache.recordVerification(2_000_000); // 2ms
+        cache.put(digest, "user-1", System.currentTimeMillis() + 60_000);
+        cache.get(digest);
+        cache.get(digest);
+
+        assertEquals(2000.0, cache.getAverageVerifyMicros());
+        assertEquals(4.0, cache.getEstimatedSavedMillis());
+    }
+}
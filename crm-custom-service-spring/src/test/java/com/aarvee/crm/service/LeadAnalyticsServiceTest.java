@@ -0,0 +1,94 @@
+package com.aarvee.crm.service;
+
+import com.aarvee.crm.repository.LeadAnalyticsRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeadAnalyticsServiceTest {
+
+    private final LeadAnalyticsRepository repository = Mockito.mock(LeadAnalyticsRepository.class);
+
+    private LeadAnalyticsService service() {
+        return new LeadAnalyticsService(repository, Mockito.mock(PlatformTransactionManager.class),
+            false, 60_000, 0, false);
+    }
+
+    @Test
+    void groupByAcceptsCamelCaseAndAsksForEachDimensionOnce() {
+        LocalDate from = LocalDate.of(2026, 1, 1);
+        LocalDate to = LocalDate.of(2026, 1, 31);
+
+        service().summary(List.of("leadStatus", "product", "lead_status"), from, to);
+        service().summary(null, null, null);
+
+        Mockito.verify(repository).summary(List.of("lead_status", "product"), from, to);
+        Mockito.verify(repository).summary(List.of(), null, null);
+    }
+
+    @Test
+    void summaryRejectsUnknownDimensionsAndReversedRanges() {
+        assertThrows(IllegalArgumentException.class, () -> service().summary(List.of("customer_name"), null, null));
+        assertThrows(IllegalArgumentException.class,
+            () -> service().summary(null, LocalDate.of(2026, 2, 1), LocalDate.of(2026, 1, 1)));
+        Mockito.verifyNoInteractions(repository);
+    }
+
+    @Test
+    void reconcileWithoutDriftBlocksNoWrites() {
+        Mockito.when(repository.tryLockReconciliation()).thenReturn(true);
+        Mockito.when(repository.countDrift()).thenReturn(0L);
+
+        LeadAnalyticsService service = service();
+        assertEquals(0, service.reconcile());
+
+        Mockito.verify(repository, Mockito.never()).lockLeads();
+        Mockito.verify(repository, Mockito.never()).repair();
+        assertEquals(1L, service.stats().get("reconciliations"));
+    }
+
+    @Test
+    void reconcileLocksLeadsBeforeRepairingDrift() {
+        Mockito.when(repository.tryLockReconciliation()).thenReturn(true);
+        Mockito.when(repository.countDrift()).thenReturn(3L);
+        Mockito.when(repository.repair()).thenReturn(3);
+
+        LeadAnalyticsService service = service();
+        assertEquals(3, service.reconcile());
+
+        InOrder order = Mockito.inOrder(repository);
+        order.verify(repository).lockLeads();
+        order.verify(repository).repair();
+        assertEquals(3L, service.stats().get("lastDrift"));
+        assertEquals(3L, service.stats().get("repairedGroups"));
+    }
+
+    @Test
+    void foldCountsDeltasAndSkipsRoundsAnotherNodeHolds() {
+        Mockito.when(repository.fold()).thenReturn(40L).thenReturn(-1L);
+
+        LeadAnalyticsService service = service();
+        assertEquals(40L, service.fold());
+        assertEquals(-1L, service.fold());
+
+        assertEquals(1L, service.stats().get("folds"));
+        assertEquals(40L, service.stats().get("foldedDeltas"));
+    }
+
+    @Test
+    void reconcileSkipsWhileAnotherNodeHoldsTheLock() {
+        Mockito.when(repository.tryLockReconciliation()).thenReturn(false);
+
+        LeadAnalyticsService service = service();
+        assertEquals(-1, service.reconcile());
+
+        Mockito.verify(repository, Mockito.never()).countDrift();
+        assertEquals(0L, service.stats().get("reconciliations"));
+    }
+}
@@ -0,0 +1,144 @@
+package com.aarvee.crm.service;
+
+import com.aarvee.crm.repository.LeadBoardRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Moves cards around a few board columns from {@code benchmark.nodes} services at once, each
+ * with its own connection pool and {@code benchmark.workers} threads. Every worker owns its
+ * own cards and replays its moves on an in-memory board, so whatever the others do, the
+ * final order of its cards in each column must match: a lost or misplaced move (including
+ * one undone by a concurrent respace) fails the test. Needs a local Postgres with the
+ * custom_features migrations applied:
+ * <pre>
+ *   mvn test -Dtest=LeadBoardMoveBenchmark -Dbenchmarks=true \
+ *       [-Dbenchmark.jdbc-url=jdbc:postgresql://localhost:54322/postgres] [-Dbenchmark.nodes=2] \
+ *       [-Dbenchmark.workers=8] [-Dbenchmark.cards-per-worker=20] [-Dbenchmark.moves-per-worker=2000]
+ * </pre>
+ * Seeds and deletes its own leads, in stages named {@code benchmark-*}.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class LeadBoardMoveBenchmark {
+
+    private static final List<String> STAGES = List.of("benchmark-a", "benchmark-b", "benchmark-c");
+
+    @Test
+    void concurrentMovesLoseNoUpdates() throws Exception {
+        String url = System.getProperty("benchmark.jdbc-url", "jdbc:postgresql://localhost:54322/postgres");
+        int nodes = Integer.getInteger("benchmark.nodes", 2);
+        int workersPerNode = Integer.getInteger("benchmark.workers", 8);
+        int cardsPerWorker = Integer.getInteger("benchmark.cards-per-worker", 20);
+        int movesPerWorker = Integer.getInteger("benchmark.moves-per-worker", 2000);
+        int workers = nodes * workersPerNode;
+
+        List<HikariDataSource> pools = new ArrayList<>();
+        List<LeadBoardService> services = new ArrayList<>();
+        for (int i = 0; i < nodes; i++) {
+            HikariDataSource pool = dataSource(url, workersPerNode + 1);
+            pools.add(pool);
+            services.add(new LeadBoardService(new LeadBoardRepository(new JdbcTemplate(pool)),
+                new DataSourceTransactionManager(pool), new LeadCountCache(60_000), new LeadEntityCache(false, 0, 0),
+                64, 200, false));
+        }
+        JdbcTemplate jdbc = new JdbcTemplate(pools.get(0));
+        try {
+            jdbc.update("DELETE FROM custom_features.lead_extensions WHERE stage LIKE 'benchmark-%'");
+            // every card starts in the first column, in id order
+            List<List<Long>> owned = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                owned.add(jdbc.queryForList("INSERT INTO custom_features.lead_extensions "
+                    + "(lead_number, customer_name, stage, index, created_at, updated_at) "
+                    + "SELECT 'BENCH-' || ? || '-' || n, 'Board benchmark', ?, (? * ? + n) * ?, now(), now() "
+                    + "FROM generate_series(1, ?) AS n RETURNING id", Long.class,
+                    w, STAGES.get(0), w, cardsPerWorker, LeadBoardRepository.GAP, cardsPerWorker));
+            }
+
+            long start = System.nanoTime();
+            List<Map<String, List<Long>>> expected = new ArrayList<>();
+            try (ExecutorService threads = Executors.newFixedThreadPool(workers)) {
+                List<Future<Map<String, List<Long>>>> runs = new ArrayList<>();
+                for (int w = 0; w < workers; w++) {
+                    LeadBoardService service = services.get(w % nodes);
+                    List<Long> cards = owned.get(w);
+                    runs.add(threads.submit(() -> moveRandomly(service, cards, movesPerWorker)));
+                }
+                for (Future<Map<String, List<Long>>> run : runs) {
+                    expected.add(run.get());
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            Map<String, List<Long>> actual = new HashMap<>();
+            for (String stage : STAGES) {
+                actual.put(stage, jdbc.queryForList("SELECT id FROM custom_features.lead_extensions "
+                    + "WHERE stage = ? ORDER BY index, id", Long.class, stage));
+            }
+            long moves = services.stream().mapToLong(s -> (Long) s.stats().get("moves")).sum();
+            long inline = services.stream().mapToLong(s -> (Long) s.stats().get("inlineRespaces")).sum();
+            long background = services.stream().mapToLong(s -> (Long) s.stats().get("backgroundRespaces")).sum();
+            System.out.printf("%d nodes x %d workers: %d moves in %.1f s (%.0f/s), %d inline and %d background respaces%n",
+                nodes, workersPerNode, moves, seconds, moves / seconds, inline, background);
+
+            for (int w = 0; w < workers; w++) {
+                List<Long> cards = owned.get(w);
+                for (String stage : STAGES) {
+                    List<Long> mine = actual.get(stage).stream().filter(cards::contains).toList();
+                    assertEquals(expected.get(w).get(stage), mine, "worker " + w + ", " + stage);
+                }
+            }
+        } finally {
+            services.forEach(LeadBoardService::stop);
+            jdbc.update("DELETE FROM custom_features.lead_extensions WHERE stage LIKE 'benchmark-%'");
+            pools.forEach(HikariDataSource::close);
+        }
+    }
+
+    /**
+     * Moves the worker's cards to random places among its own cards, mostly into one crowded
+     * spot so keys run out and columns get respaced, and returns the order they should end in.
+     */
+    private static Map<String, List<Long>> moveRandomly(LeadBoardService service, List<Long> cards, int moves) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Map<String, List<Long>> board = new HashMap<>();
+        STAGES.forEach(stage -> board.put(stage, new ArrayList<>()));
+        board.get(STAGES.get(0)).addAll(cards);
+        for (int i = 0; i < moves; i++) {
+            Long card = cards.get(random.nextInt(cards.size()));
+            board.values().forEach(column -> column.remove(card));
+            String stage = STAGES.get(random.nextInt(STAGES.size()));
+            List<Long> column = board.get(stage);
+            // after the column's first card half the time: the gap below it keeps being halved
+            int position = column.isEmpty() ? 0 : random.nextBoolean() ? 1 : random.nextInt(column.size() + 1);
+            Long afterId = position == 0 ? null : column.get(position - 1);
+            service.move(card, stage, afterId);
+            column.add(position, card);
+        }
+        return board;
+    }
+
+    private static HikariDataSource dataSource(String url, int poolSize) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(System.getProperty("benchmark.db-user", "postgres"));
+        dataSource.setPassword(System.getProperty("benchmark.db-password", "postgres"));
+        dataSource.setMaximumPoolSize(poolSize);
+        dataSource.setConnectionTimeout(TimeUnit.SECONDS.toMillis(30));
+        return dataSource;
+    }
+}
@@ -0,0 +1,119 @@
+package com.aarvee.crm.service;
+
+import com.aarvee.crm.repository.LeadBoardRepository;
+import com.aarvee.crm.util.LeadFilter;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeadBoardServiceTest {
+
+    private static final long GAP = LeadBoardRepository.GAP;
+
+    private final LeadBoardRepository repository = Mockito.mock(LeadBoardRepository.class);
+
+    private LeadBoardService service() {
+        return new LeadBoardService(repository, Mockito.mock(PlatformTransactionManager.class),
+            new LeadCountCache(60_000), new LeadEntityCache(false, 0, 0), 64, 200, false);
+    }
+
+    @Test
+    void keysGoHalfwayBetweenNeighboursOrOneGapPastTheEnd() {
+        assertEquals(GAP, LeadBoardService.between(null, null).key());
+        assertEquals(3 * GAP, LeadBoardService.between(null, 4 * GAP).key());
+        assertEquals(5 * GAP, LeadBoardService.between(4 * GAP, null).key());
+        assertEquals(6 * GAP, LeadBoardService.between(4 * GAP, 8 * GAP).key());
+        assertEquals(GAP, LeadBoardService.between(4 * GAP, 6 * GAP).narrowest());
+        assertNull(LeadBoardService.between(10L, 11L).key());
+        assertNull(LeadBoardService.between(10L, 10L).key());
+    }
+
+    @Test
+    void moveWritesOnlyTheMovedCard() {
+        Mockito.when(repository.findPosition(3L)).thenReturn(Optional.of(new LeadBoardRepository.Position("won", 2 * GAP)));
+        Mockito.when(repository.nextKey("won", 2 * GAP, 3L, 7L)).thenReturn(Optional.of(3 * GAP));
+        Mockito.when(repository.move(7L, "won", 2 * GAP + GAP / 2)).thenReturn(Optional.of(4L));
+
+        LeadBoardService.MoveResult moved = service().move(7L, "won", 3L);
+
+        assertEquals(2 * GAP + GAP / 2, moved.index());
+        assertEquals(4L, moved.version());
+        InOrder order = Mockito.inOrder(repository);
+        order.verify(repository).lockColumn("won");
+        order.verify(repository).move(7L, "won", 2 * GAP + GAP / 2);
+        Mockito.verify(repository, Mockito.never()).respace(Mockito.any());
+    }
+
+    @Test
+    void moveToTopGoesOneGapAboveTheFirstCard() {
+        Mockito.when(repository.firstKey("new", 7L)).thenReturn(Optional.of(GAP));
+        Mockito.when(repository.move(7L, "new", 0L)).thenReturn(Optional.of(2L));
+
+        assertEquals(0L, service().move(7L, "new", null).index());
+    }
+
+    @Test
+    void columnIsRespacedFirstWhenNeighboursHaveNoKeyBetweenThem() {
+        Mockito.when(repository.findPosition(3L))
+            .thenReturn(Optional.of(new LeadBoardRepository.Position("won", 40L)))
+            .thenReturn(Optional.of(new LeadBoardRepository.Position("won", 2 * GAP)));
+        Mockito.when(repository.nextKey("won", 40L, 3L, 7L)).thenReturn(Optional.of(41L));
+        Mockito.when(repository.nextKey("won", 2 * GAP, 3L, 7L)).thenReturn(Optional.of(3 * GAP));
+        Mockito.when(repository.respace("won")).thenReturn(List.of(3L, 4L));
+        Mockito.when(repository.move(Mockito.eq(7L), Mockito.eq("won"), Mockito.anyLong())).thenReturn(Optional.of(1L));
+
+        LeadBoardService service = service();
+        assertEquals(2 * GAP + GAP / 2, service.move(7L, "won", 3L).index());
+
+        InOrder order = Mockito.inOrder(repository);
+        order.verify(repository).lockColumn("won");
+        order.verify(repository).respace("won");
+        order.verify(repository).move(7L, "won", 2 * GAP + GAP / 2);
+        assertEquals(1L, service.stats().get("inlineRespaces"));
+    }
+
+    @Test
+    void afterCardMustBeInTheTargetStage() {
+        Mockito.when(repository.findPosition(3L)).thenReturn(Optional.of(new LeadBoardRepository.Position("lost", GAP)));
+
+        assertThrows(IllegalArgumentException.class, () -> service().move(7L, "won", 3L));
+        assertThrows(IllegalArgumentException.class, () -> service().move(7L, "won", 7L));
+        assertThrows(IllegalArgumentException.class, () -> service().move(7L, " ", null));
+        Mockito.verify(repository, Mockito.never()).move(Mockito.anyLong(), Mockito.any(), Mockito.anyLong());
+    }
+
+    @Test
+    void movingAMissingLeadFails() {
+        Mockito.when(repository.move(Mockito.eq(7L), Mockito.eq("won"), Mockito.anyLong())).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class, () -> service().move(7L, "won", null));
+    }
+
+    @Test
+    void boardAsksForEachStageOnceInTheGivenOrder() {
+        LeadFilter filter = LeadFilter.parse(null);
+
+        service().board(List.of("new", "won", "new"), 25, filter);
+        service().board(List.of(), 25, filter);
+
+        Mockito.verify(repository).board(List.of("new", "won"), 25, filter);
+        Mockito.verify(repository).board(null, 25, filter);
+    }
+
+    @Test
+    void boardRejectsOutOfRangeCardCounts() {
+        LeadFilter filter = LeadFilter.parse(null);
+
+        assertThrows(IllegalArgumentException.class, () -> service().board(null, 0, filter));
+        assertThrows(IllegalArgumentException.class, () -> service().board(null, 201, filter));
+        assertThrows(IllegalArgumentException.class, () -> service().board(List.of(""), 25, filter));
+        Mockito.verifyNoInteractions(repository);
+    }
+}
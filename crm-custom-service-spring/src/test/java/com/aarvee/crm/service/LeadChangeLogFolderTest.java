@@ -0,0 +1,24 @@
+package com.aarvee.crm.service;
+
+import com.aarvee.crm.repository.LeadChangeLogRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeadChangeLogFolderTest {
+
+    private final LeadChangeLogRepository repository = Mockito.mock(LeadChangeLogRepository.class);
+
+    @Test
+    void countsFoldsAndSkipsRoundsAnotherNodeHolds() {
+        LeadChangeLogFolder folder = new LeadChangeLogFolder(repository, 0, false);
+        Mockito.when(repository.fold()).thenReturn(12L).thenReturn(-1L);
+
+        assertEquals(12L, folder.fold());
+        assertEquals(-1L, folder.fold());
+
+        assertEquals(1L, folder.stats().get("folds"));
+        assertEquals(12L, folder.stats().get("foldedChanges"));
+    }
+}
@@ -0,0 +1,41 @@
+package com.aarvee.crm.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeadCountCacheTest {
+
+    @Test
+    void countsRacingAWriteAreNotCached() {
+        LeadCountCache cache = new LeadCountCache(60_000);
+        long generation = cache.generation();
+
+        cache.invalidateAll();
+        cache.put("all", 10, generation);
+
+        assertNull(cache.get("all"));
+    }
+
+    @Test
+    void countsTakenBeforeTheWriteCommitsAreDroppedWhenItCompletes() {
+        LeadCountCache cache = new LeadCountCache(60_000);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidateAll();
+            // a concurrent count starts after the write but cannot see it until commit
+            cache.put("all", 10, cache.generation());
+            assertEquals(10L, cache.get("all"));
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertNull(cache.get("all"));
+    }
+}
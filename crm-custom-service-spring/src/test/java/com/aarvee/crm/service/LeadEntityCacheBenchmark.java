@@ -0,0 +1,92 @@
+package com.aarvee.crm.service;
+
+import com.aarvee.crm.entity.LeadExtension;
+import com.aarvee.crm.repository.LeadBoardRepository;
+import com.aarvee.crm.repository.LeadExtensionBatchRepository;
+import com.aarvee.crm.repository.LeadExtensionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * getOne throughput with and without {@link LeadEntityCache}, against a repository that
+ * simulates a database round trip. Opt-in, since it takes several seconds:
+ * <pre>
+ *   mvn test -Dtest=LeadEntityCacheBenchmark -Dbenchmarks=true [-Dbenchmark.db-latency-us=300]
+ * </pre>
+ * The workload reads the 200 hottest of 100k leads 80% of the time, the rest uniformly.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class LeadEntityCacheBenchmark {
+
+    private static final int THREADS = 16;
+    private static final long HOT_LEADS = 200;
+    private static final long ALL_LEADS = 100_000;
+    private static final long WARMUP_MS = 1_000;
+    private static final long MEASURE_MS = 3_000;
+
+    @Test
+    void getOneThroughput() throws Exception {
+        long latencyNanos = TimeUnit.MICROSECONDS.toNanos(Long.getLong("benchmark.db-latency-us", 300));
+
+        double uncached = run(new LeadEntityCache(false, 0, 0), latencyNanos);
+        double cached = run(new LeadEntityCache(true, 10_000, 30_000), latencyNanos);
+
+        System.out.printf("getOne, %d threads, %d us per query: no cache %.0f ops/s, cache %.0f ops/s (%.1fx)%n",
+            THREADS, TimeUnit.NANOSECONDS.toMicros(latencyNanos), uncached, cached, cached / uncached);
+        assertTrue(cached > uncached);
+    }
+
+    private static double run(LeadEntityCache cache, long latencyNanos) throws Exception {
+        LeadExtensionRepository repository = Mockito.mock(LeadExtensionRepository.class);
+        Mockito.when(repository.findById(Mockito.anyLong())).thenAnswer(invocation -> {
+            LockSupport.parkNanos(latencyNanos);
+            LeadExtension lead = new LeadExtension();
+            lead.setId(invocation.getArgument(0));
+            lead.setVersion(0L);
+            return Optional.of(lead);
+        });
+        LeadExtensionService service = new LeadExtensionService(repository,
+            Mockito.mock(LeadExtensionBatchRepository.class), Mockito.mock(LeadNumberAllocator.class),
+            new LeadCountCache(30_000), cache, Mockito.mock(LeadBoardRepository.class));
+
+        measure(service, WARMUP_MS);
+        return measure(service, MEASURE_MS) * 1000.0 / MEASURE_MS;
+    }
+
+    private static long measure(LeadExtensionService service, long millis) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        List<Future<Long>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long ops = 0;
+                while (System.nanoTime() < deadline) {
+                    long id = random.nextInt(10) < 8 ? random.nextLong(1, HOT_LEADS + 1) : random.nextLong(1, ALL_LEADS + 1);
+                    service.getOne(id);
+                    ops++;
+                }
+                return ops;
+            }));
+        }
+        long total = 0;
+        for (Future<Long> worker : workers) {
+            total += worker.get();
+        }
+        pool.shutdown();
+        return total;
+    }
+}
@@ -0,0 +1,141 @@
+package com.aarvee.crm.service;
+
+import com.aarvee.crm.entity.LeadExtension;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeadEntityCacheTest {
+
+    private static LeadExtension lead(long id, long version) {
+        LeadExtension lead = new LeadExtension();
+        lead.setId(id);
+        lead.setVersion(version);
+        return lead;
+    }
+
+    @Test
+    void loadsOnceAndCountsHitsAndMisses() {
+        LeadEntityCache cache = new LeadEntityCache(true, 100, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+        Function<Long, Optional<LeadExtension>> loader = id -> {
+            loads.incrementAndGet();
+            return Optional.of(lead(id, 0));
+        };
+
+        assertEquals(1L, cache.get(1L, loader).orElseThrow().getId());
+        assertEquals(1L, cache.get(1L, loader).orElseThrow().getId());
+        assertEquals(1L, cache.get(1L, loader).orElseThrow().getId());
+
+        assertEquals(1, loads.get());
+        Map<String, Object> stats = cache.stats();
+        assertEquals(2L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+    }
+
+    @Test
+    void missingLeadsAreNotCached() {
+        LeadEntityCache cache = new LeadEntityCache(true, 100, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(9L, id -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+        Optional<LeadExtension> second = cache.get(9L, id -> {
+            loads.incrementAndGet();
+            return Optional.of(lead(id, 0));
+        });
+
+        assertTrue(second.isPresent());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidationAlsoRunsWhenTheTransactionCompletes() {
+        LeadEntityCache cache = new LeadEntityCache(true, 100, 60_000);
+        cache.get(1L, id -> Optional.of(lead(id, 0)));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidate(1L);
+            assertTrue(cache.peek(1L).isEmpty());
+            // a concurrent reader reloads the row before the write commits
+            cache.get(1L, id -> Optional.of(lead(id, 0)));
+            assertTrue(cache.peek(1L).isPresent());
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertTrue(cache.peek(1L).isEmpty());
+    }
+
+    @Test
+    void concurrentMissesShareOneLoadAndFailuresAreNotCached() throws Exception {
+        LeadEntityCache cache = new LeadEntityCache(true, 100, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Optional<LeadExtension>> first = CompletableFuture.supplyAsync(() -> cache.get(1L, id -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return Optional.of(lead(id, 3));
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Optional<LeadExtension>> second = CompletableFuture.supplyAsync(() -> cache.get(1L, id -> {
+            loads.incrementAndGet();
+            return Optional.of(lead(id, 0));
+        }));
+
+        release.countDown();
+        assertEquals(3L, first.get(5, TimeUnit.SECONDS).orElseThrow().getVersion());
+        assertEquals(3L, second.get(5, TimeUnit.SECONDS).orElseThrow().getVersion());
+        assertEquals(1, loads.get());
+
+        assertThrows(IllegalStateException.class, () -> cache.get(2L, id -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertTrue(cache.get(2L, id -> Optional.of(lead(id, 0))).isPresent());
+    }
+
+    @Test
+    void disabledCacheAlwaysLoads() {
+        LeadEntityCache cache = new LeadEntityCache(false, 100, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            cache.get(1L, id -> {
+                loads.incrementAndGet();
+                return Optional.of(lead(id, 0));
+            });
+        }
+        cache.invalidate(List.of(1L, 2L));
+
+        assertEquals(3, loads.get());
+        assertTrue(cache.peek(1L).isEmpty());
+        assertEquals(Map.of("enabled", false), cache.stats());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
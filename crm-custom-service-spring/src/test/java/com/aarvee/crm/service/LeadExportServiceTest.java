@@ -0,0 +1,85 @@
+package com.aarvee.crm.service;
+
+import com.aarvee.crm.repository.LeadExtensionExportRepository;
+import com.aarvee.crm.util.LeadFilter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeadExportServiceTest {
+
+    private static ResultSet row(Map<String, Object> values) throws Exception {
+        ResultSet rs = Mockito.mock(ResultSet.class);
+        List<String> columns = LeadExtensionExportRepository.COLUMNS;
+        for (int i = 0; i < columns.size(); i++) {
+            Object value = values.get(columns.get(i));
+            Mockito.when(rs.getObject(i + 1)).thenReturn(value);
+            Mockito.when(rs.getString(i + 1)).thenReturn(value == null ? null : value.toString());
+        }
+        return rs;
+    }
+
+    private static String export(LeadExportService.Format format, ResultSet... rows) throws Exception {
+        LeadExtensionExportRepository repository = Mockito.mock(LeadExtensionExportRepository.class);
+        Mockito.doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(4);
+            for (ResultSet rs : rows) {
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(repository).streamAll(Mockito.any(), Mockito.anyString(), Mockito.anyBoolean(), Mockito.anyInt(),
+            Mockito.any());
+        LeadExportService service = new LeadExportService(repository, new ObjectMapper(),
+            Mockito.mock(PlatformTransactionManager.class), 100);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = service.export(out, format, LeadFilter.empty(), "id", false);
+        assertEquals(rows.length, count);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, Object> lead() {
+        Map<String, Object> values = new HashMap<>();
+        values.put("id", 7L);
+        values.put("customer_name", "Rao, \"Vikram\"");
+        values.put("loan_amount_required", new BigDecimal("2500.50"));
+        values.put("business_details", "{\"gst\": \"X1\"}");
+        return values;
+    }
+
+    @Test
+    void csvQuotesFieldsThatNeedIt() throws Exception {
+        String csv = export(LeadExportService.Format.CSV, row(lead()));
+
+        String[] lines = csv.split("\r\n");
+        assertEquals(String.join(",", LeadExtensionExportRepository.COLUMNS), lines[0]);
+        assertTrue(lines[1].startsWith("7,,,\"Rao, \"\"Vikram\"\"\",,,2500.50,"), lines[1]);
+        assertTrue(lines[1].contains(",\"{\"\"gst\"\": \"\"X1\"\"}\","), lines[1]);
+    }
+
+    @Test
+    void ndjsonWritesOneObjectPerLineWithRawJsonColumns() throws Exception {
+        String ndjson = export(LeadExportService.Format.NDJSON, row(lead()), row(lead()));
+
+        String[] lines = ndjson.split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = new ObjectMapper().readTree(lines[1]);
+        assertEquals(7, first.get("id").asLong());
+        assertEquals("X1", first.get("business_details").get("gst").asText());
+        assertTrue(first.get("contact_id").isNull());
+        assertTrue(lines[1].contains("\"loan_amount_required\":2500.50,"), lines[1]);
+    }
+}
@@ -0,0 +1,397 @@
+package com.aarvee.crm.service;
+
+import com.aarvee.crm.dto.BatchResponse;
+import com.aarvee.crm.dto.PageResponse;
+import com.aarvee.crm.entity.LeadExtension;
+import com.aarvee.crm.repository.LeadBoardRepository;
+import com.aarvee.crm.repository.LeadExtensionBatchRepository;
+import com.aarvee.crm.repository.LeadExtensionRepository;
+import com.aarvee.crm.util.LeadFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeadExtensionServiceTest {
+
+    private LeadExtensionService newService(LeadExtensionRepository repository, LeadNumberAllocator allocator) {
+        return newService(repository, Mockito.mock(LeadExtensionBatchRepository.class), allocator);
+    }
+
+    private LeadExtensionService newService(LeadExtensionRepository repository, LeadExtensionBatchRepository batchRepository,
+                                            LeadNumberAllocator allocator) {
+        return newService(repository, batchRepository, allocator, Mockito.mock(LeadBoardRepository.class));
+    }
+
+    private LeadExtensionService newService(LeadExtensionRepository repository, LeadExtensionBatchRepository batchRepository,
+                                            LeadNumberAllocator allocator, LeadBoardRepository boardRepository) {
+        return new LeadExtensionService(repository, batchRepository, allocator, new LeadCountCache(60_000),
+            new LeadEntityCache(true, 100, 60_000), boardRepository);
+    }
+
+    @Test
+    void concurrentCreatesGetDistinctLeadNumbersWithoutCounting() throws Exception {
+        LeadExtensionRepository repository = Mockito.mock(LeadExtensionRepository.class);
+        Mockito.when(repository.save(Mockito.any(LeadExtension.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        LeadNumberAllocator allocator = LeadNumberAllocatorTest.allocator(
+            LeadNumberAllocatorTest.counterRepository(new AtomicLong()), 20);
+        LeadExtensionService service = newService(repository, allocator);
+
+        int threads = 32;
+        int perThread = 500;
+        Set<String> leadNumbers = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                tasks.add(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        LeadExtension created = service.create(new LeadExtension());
+                        assertTrue(leadNumbers.add(created.getLeadNumber()), "duplicate " + created.getLeadNumber());
+                        assertEquals("new", created.getLeadStatus());
+                    }
+                    return null;
+                });
+            }
+            List<Future<Void>> futures = new ArrayList<>();
+            for (Callable<Void> task : tasks) {
+                futures.add(pool.submit(task));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(threads * perThread, leadNumbers.size());
+        Mockito.verify(repository, Mockito.never()).findByLeadNumberStartingWith(Mockito.anyString());
+    }
+
+    @Test
+    void keepsClientSuppliedLeadNumber() {
+        LeadExtensionRepository repository = Mockito.mock(LeadExtensionRepository.class);
+        Mockito.when(repository.save(Mockito.any(LeadExtension.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        LeadNumberAllocator allocator = Mockito.mock(LeadNumberAllocator.class);
+        LeadExtensionService service = newService(repository, allocator);
+
+        LeadExtension lead = new LeadExtension();
+        lead.setLeadNumber("LEAD-IMPORTED-1");
+
+        assertEquals("LEAD-IMPORTED-1", service.create(lead).getLeadNumber());
+        Mockito.verifyNoInteractions(allocator);
+    }
+
+    private static List<LeadExtension> leads(int n) {
+        List<LeadExtension> leads = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            leads.add(new LeadExtension());
+        }
+        return leads;
+    }
+
+    private static LeadExtensionRepository listRepository(int pageSize) {
+        LeadExtensionRepository repository = Mockito.mock(LeadExtensionRepository.class);
+        Mockito.when(repository.findPageContent(Mockito.any(), Mockito.any())).thenReturn(leads(pageSize));
+        Mockito.when(repository.count(Mockito.<Specification<LeadExtension>>any())).thenReturn(1234L);
+        Mockito.when(repository.estimateRowCount()).thenReturn(5000L);
+        Mockito.when(repository.save(Mockito.any(LeadExtension.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        return repository;
+    }
+
+    @Test
+    void shortPageNeedsNoCountQuery() {
+        LeadExtensionRepository repository = listRepository(3);
+        LeadExtensionService service = newService(repository, Mockito.mock(LeadNumberAllocator.class));
+
+        PageResponse<LeadExtension> page = service.getList(2, 10, "createdAt", "desc", LeadFilter.empty(), CountStrategy.EXACT);
+
+        assertEquals(13L, page.getTotal());
+        assertEquals("exact", page.getCountStrategy());
+        Mockito.verify(repository, Mockito.never()).count(Mockito.<Specification<LeadExtension>>any());
+    }
+
+    @Test
+    void exactStrategyCountsEveryTime() {
+        LeadExtensionRepository repository = listRepository(10);
+        LeadExtensionService service = newService(repository, Mockito.mock(LeadNumberAllocator.class));
+
+        service.getList(1, 10, "createdAt", "desc", LeadFilter.empty(), CountStrategy.EXACT);
+        PageResponse<LeadExtension> page = service.getList(1, 10, "createdAt", "desc", LeadFilter.empty(), CountStrategy.EXACT);
+
+        assertEquals(1234L, page.getTotal());
+        Mockito.verify(repository, Mockito.times(2)).count(Mockito.<Specification<LeadExtension>>any());
+    }
+
+    @Test
+    void cachedStrategyCountsOnceUntilAWrite() {
+        LeadExtensionRepository repository = listRepository(10);
+        LeadNumberAllocator allocator = Mockito.mock(LeadNumberAllocator.class);
+        Mockito.when(allocator.next()).thenReturn("LEAD-1");
+        LeadExtensionService service = newService(repository, allocator);
+
+        service.getList(1, 10, "createdAt", "desc", LeadFilter.empty(), CountStrategy.CACHED);
+        PageResponse<LeadExtension> page = service.getList(3, 10, "createdAt", "desc", LeadFilter.empty(), CountStrategy.CACHED);
+        assertEquals("cached", page.getCountStrategy());
+        Mockito.verify(repository, Mockito.times(1)).count(Mockito.<Specification<LeadExtension>>any());
+
+        service.create(new LeadExtension());
+        service.getList(1, 10, "createdAt", "desc", LeadFilter.empty(), CountStrategy.CACHED);
+        Mockito.verify(repository, Mockito.times(2)).count(Mockito.<Specification<LeadExtension>>any());
+    }
+
+    @Test
+    void estimatedStrategyUsesPlannerStatistics() {
+        LeadExtensionRepository repository = listRepository(10);
+        LeadExtensionService service = newService(repository, Mockito.mock(LeadNumberAllocator.class));
+
+        PageResponse<LeadExtension> page = service.getList(1, 10, "createdAt", "desc", LeadFilter.empty(), CountStrategy.ESTIMATED);
+
+        assertEquals(5000L, page.getTotal());
+        assertEquals("estimated", page.getCountStrategy());
+        Mockito.verify(repository, Mockito.never()).count(Mockito.<Specification<LeadExtension>>any());
+    }
+
+    @Test
+    void estimatedStrategyFallsBackToExactWithoutStatistics() {
+        LeadExtensionRepository repository = listRepository(10);
+        Mockito.when(repository.estimateRowCount()).thenReturn(-1L);
+        LeadExtensionService service = newService(repository, Mockito.mock(LeadNumberAllocator.class));
+
+        PageResponse<LeadExtension> page = service.getList(1, 10, "createdAt", "desc", LeadFilter.empty(), CountStrategy.ESTIMATED);
+
+        assertEquals(1234L, page.getTotal());
+        assertEquals("exact", page.getCountStrategy());
+    }
+
+    @Test
+    void filteredListsAreCachedPerFilterAndNeverEstimated() {
+        LeadExtensionRepository repository = listRepository(10);
+        LeadExtensionService service = newService(repository, Mockito.mock(LeadNumberAllocator.class));
+        LeadFilter won = LeadFilter.parse("{\"lead_status\":\"won\",\"lead_assigned_to\":7}");
+        LeadFilter sameReordered = LeadFilter.parse("{\"leadAssignedTo\":7,\"leadStatus\":\"won\"}");
+
+        PageResponse<LeadExtension> page = service.getList(2, 10, "createdAt", "desc", won, CountStrategy.ESTIMATED);
+        service.getList(3, 10, "createdAt", "desc", sameReordered, CountStrategy.CACHED);
+
+        assertEquals(1234L, page.getTotal());
+        assertEquals("cached", page.getCountStrategy());
+        Mockito.verify(repository, Mockito.never()).estimateRowCount();
+        Mockito.verify(repository, Mockito.times(1)).count(Mockito.<Specification<LeadExtension>>any());
+
+        service.getList(2, 10, "createdAt", "desc", LeadFilter.parse("{\"lead_status\":\"lost\"}"), CountStrategy.CACHED);
+        Mockito.verify(repository, Mockito.times(2)).count(Mockito.<Specification<LeadExtension>>any());
+    }
+
+    @Test
+    void getManyKeepsRequestOrderAndReportsMissingIds() {
+        LeadExtensionRepository repository = Mockito.mock(LeadExtensionRepository.class);
+        Mockito.when(repository.findAllByIdAny(Mockito.any())).thenAnswer(invocation -> {
+            List<LeadExtension> rows = new ArrayList<>();
+            for (long id : new long[] {1L, 3L}) {
+                LeadExtension lead = new LeadExtension();
+                lead.setId(id);
+                rows.add(lead);
+            }
+            return rows;
+        });
+        LeadExtensionService service = newService(repository, Mockito.mock(LeadNumberAllocator.class));
+
+        BatchResponse<LeadExtension> response = service.getMany(List.of(3L, 2L, 1L, 3L));
+
+        assertEquals(List.of(3L, 1L), response.getData().stream().map(LeadExtension::getId).toList());
+        assertEquals(List.of(2L), response.getMissingIds());
+        Mockito.verify(repository, Mockito.times(1)).findAllByIdAny(new Long[] {3L, 2L, 1L});
+    }
+
+    @Test
+    void bulkUpdateSendsOnlyAllowedChangesInOneStatement() {
+        LeadExtensionBatchRepository batchRepository = Mockito.mock(LeadExtensionBatchRepository.class);
+        Mockito.when(batchRepository.updateWhere(Mockito.any(), Mockito.any())).thenReturn(List.of(4L, 8L));
+        LeadExtensionService service = newService(Mockito.mock(LeadExtensionRepository.class), batchRepository,
+            Mockito.mock(LeadNumberAllocator.class));
+        Map<String, Object> data = new HashMap<>();
+        data.put("leadStatus", "contacted");
+        data.put("lead_assigned_to", null);
+
+        List<Long> updated = service.bulkUpdate(LeadFilter.empty().withIds(List.of(4L, 8L, 15L)), data);
+
+        assertEquals(List.of(4L, 8L), updated);
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("lead_status", "contacted");
+        expected.put("lead_assigned_to", null);
+        Mockito.verify(batchRepository).updateWhere(Mockito.any(), Mockito.eq(expected));
+    }
+
+    @Test
+    void bulkStageChangeAppendsToTheLockedColumn() {
+        LeadExtensionBatchRepository batchRepository = Mockito.mock(LeadExtensionBatchRepository.class);
+        LeadBoardRepository boardRepository = Mockito.mock(LeadBoardRepository.class);
+        Mockito.when(batchRepository.appendToColumn(Mockito.any(), Mockito.eq("won"), Mockito.any())).thenReturn(List.of(4L));
+        LeadExtensionService service = newService(Mockito.mock(LeadExtensionRepository.class), batchRepository,
+            Mockito.mock(LeadNumberAllocator.class), boardRepository);
+
+        List<Long> updated = service.bulkUpdate(LeadFilter.empty().withIds(List.of(4L)),
+            Map.of("stage", "won", "lead_status", "won"));
+
+        assertEquals(List.of(4L), updated);
+        InOrder order = Mockito.inOrder(boardRepository, batchRepository);
+        order.verify(boardRepository).lockColumn("won");
+        order.verify(batchRepository).appendToColumn(Mockito.any(), Mockito.eq("won"), Mockito.eq(Map.of("lead_status", "won")));
+        Mockito.verify(batchRepository, Mockito.never()).updateWhere(Mockito.any(), Mockito.any());
+        assertThrows(IllegalArgumentException.class,
+            () -> service.bulkUpdate(LeadFilter.empty().withIds(List.of(4L)), Map.of("stage", " ")));
+    }
+
+    @Test
+    void bulkUpdateRejectsOtherFields() {
+        LeadExtensionBatchRepository batchRepository = Mockito.mock(LeadExtensionBatchRepository.class);
+        LeadExtensionService service = newService(Mockito.mock(LeadExtensionRepository.class), batchRepository,
+            Mockito.mock(LeadNumberAllocator.class));
+        LeadFilter scope = LeadFilter.empty().withIds(List.of(1L));
+
+        assertThrows(IllegalArgumentException.class, () -> service.bulkUpdate(scope, Map.of("lead_number", "X")));
+        assertThrows(IllegalArgumentException.class, () -> service.bulkUpdate(scope, Map.of("lead_assigned_to", "bob")));
+        assertThrows(IllegalArgumentException.class, () -> service.bulkUpdate(scope, Map.of()));
+        Mockito.verifyNoInteractions(batchRepository);
+    }
+
+    @Test
+    void updateCopiesStageAndIndex() {
+        LeadExtensionRepository repository = Mockito.mock(LeadExtensionRepository.class);
+        LeadExtension stored = new LeadExtension();
+        stored.setId(3L);
+        stored.setStage("new");
+        stored.setIndex(65_536L);
+        Mockito.when(repository.findById(3L)).thenReturn(Optional.of(stored));
+        Mockito.when(repository.save(Mockito.any())).thenAnswer(invocation -> invocation.getArgument(0));
+        LeadExtensionService service = newService(repository, Mockito.mock(LeadNumberAllocator.class));
+
+        LeadExtension change = new LeadExtension();
+        change.setStage("won");
+        LeadExtension updated = service.update(3L, change);
+        assertEquals("won", updated.getStage());
+        assertEquals(65_536L, updated.getIndex());
+
+        change.setIndex(-131_072L);
+        assertEquals(-131_072L, service.update(3L, change).getIndex());
+    }
+
+    @Test
+    void patchWritesOnlyTheSuppliedColumns() throws Exception {
+        LeadExtensionRepository repository = Mockito.mock(LeadExtensionRepository.class);
+        LeadExtension patched = new LeadExtension();
+        patched.setId(5L);
+        patched.setVersion(3L);
+        Mockito.when(repository.patch(Mockito.eq(5L), Mockito.eq(2L), Mockito.any())).thenReturn(Optional.of(patched));
+        LeadExtensionService service = newService(repository, Mockito.mock(LeadNumberAllocator.class));
+
+        LeadExtension result = service.patch(5L, new ObjectMapper().readTree(
+            "{\"id\":5,\"leadStatus\":\"won\",\"lead_assigned_to\":null,\"business_details\":{\"gst\":\"X1\"}}"), 2L);
+
+        assertSame(patched, result);
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("lead_status", "won");
+        expected.put("lead_assigned_to", null);
+        expected.put("business_details", "{\"gst\":\"X1\"}");
+        Mockito.verify(repository).patch(5L, 2L, expected);
+    }
+
+    @Test
+    void patchRejectsReadOnlyAndInvalidFields() throws Exception {
+        LeadExtensionRepository repository = Mockito.mock(LeadExtensionRepository.class);
+        LeadExtensionService service = newService(repository, Mockito.mock(LeadNumberAllocator.class));
+        ObjectMapper mapper = new ObjectMapper();
+
+        assertThrows(IllegalArgumentException.class, () -> service.patch(1L, mapper.readTree("{\"lead_number\":\"L-1\"}"), null));
+        assertThrows(IllegalArgumentException.class, () -> service.patch(1L, mapper.readTree("{\"loan_amount_required\":-5}"), null));
+        assertThrows(IllegalArgumentException.class, () -> service.patch(1L, mapper.readTree("{\"property_details\":\"x\"}"), null));
+        assertThrows(IllegalArgumentException.class, () -> service.patch(1L, mapper.readTree("{\"id\":1}"), null));
+        Mockito.verify(repository, Mockito.never()).patch(Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void patchMovesACardWithOneNarrowUpdate() throws Exception {
+        LeadExtensionRepository repository = Mockito.mock(LeadExtensionRepository.class);
+        LeadExtension patched = new LeadExtension();
+        patched.setId(5L);
+        Mockito.when(repository.patch(Mockito.eq(5L), Mockito.any(), Mockito.any())).thenReturn(Optional.of(patched));
+        LeadExtensionService service = newService(repository, Mockito.mock(LeadNumberAllocator.class));
+        ObjectMapper mapper = new ObjectMapper();
+
+        service.patch(5L, mapper.readTree("{\"stage\":\"contacted\",\"index\":131072}"), null);
+
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("stage", "contacted");
+        expected.put("index", 131_072L);
+        Mockito.verify(repository).patch(5L, null, expected);
+        // both columns are NOT NULL
+        assertThrows(IllegalArgumentException.class, () -> service.patch(5L, mapper.readTree("{\"stage\":null}"), null));
+        assertThrows(IllegalArgumentException.class, () -> service.patch(5L, mapper.readTree("{\"stage\":\" \"}"), null));
+        assertThrows(IllegalArgumentException.class, () -> service.patch(5L, mapper.readTree("{\"index\":null}"), null));
+        assertThrows(IllegalArgumentException.class, () -> service.patch(5L, mapper.readTree("{\"index\":\"top\"}"), null));
+        Mockito.verify(repository, Mockito.times(1)).patch(Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void patchTellsAStaleVersionFromAMissingLead() throws Exception {
+        LeadExtensionRepository repository = Mockito.mock(LeadExtensionRepository.class);
+        Mockito.when(repository.patch(Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(Optional.empty());
+        Mockito.when(repository.existsById(1L)).thenReturn(true);
+        LeadExtensionService service = newService(repository, Mockito.mock(LeadNumberAllocator.class));
+        ObjectMapper mapper = new ObjectMapper();
+
+        // the body's version is used when there is no If-Match
+        assertThrows(OptimisticLockingFailureException.class,
+            () -> service.patch(1L, mapper.readTree("{\"lead_status\":\"won\",\"version\":4}"), null));
+        Mockito.verify(repository).patch(Mockito.eq(1L), Mockito.eq(4L), Mockito.any());
+        assertThrows(EntityNotFoundException.class,
+            () -> service.patch(2L, mapper.readTree("{\"lead_status\":\"won\"}"), 4L));
+    }
+
+    @Test
+    void getOneIsServedFromCacheUntilTheLeadIsWritten() {
+        LeadExtensionRepository repository = Mockito.mock(LeadExtensionRepository.class);
+        LeadExtension stored = new LeadExtension();
+        stored.setId(3L);
+        stored.setVersion(1L);
+        Mockito.when(repository.findById(3L)).thenReturn(Optional.of(stored));
+        Mockito.when(repository.save(Mockito.any())).thenAnswer(invocation -> invocation.getArgument(0));
+        LeadExtensionService service = newService(repository, Mockito.mock(LeadNumberAllocator.class));
+
+        service.getOne(3L);
+        service.getOne(3L);
+        assertEquals(Optional.of(1L), service.getVersion(3L));
+        Mockito.verify(repository, Mockito.times(1)).findById(3L);
+        Mockito.verify(repository, Mockito.never()).findVersionById(Mockito.any());
+
+        LeadExtension change = new LeadExtension();
+        change.setLeadStatus("won");
+        service.update(3L, change);
+        service.getOne(3L);
+        // one load for update, one reload after it
+        Mockito.verify(repository, Mockito.times(3)).findById(3L);
+    }
+}
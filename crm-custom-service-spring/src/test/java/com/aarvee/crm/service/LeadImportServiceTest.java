@@ -0,0 +1,134 @@
+package com.aarvee.crm.service;
+
+import com.aarvee.crm.dto.ImportResult;
+import com.aarvee.crm.entity.LeadExtension;
+import com.aarvee.crm.repository.LeadExtensionBatchRepository;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeadImportServiceTest {
+
+    private final List<LeadExtension> inserted = new ArrayList<>();
+    private final LeadExtensionBatchRepository batchRepository = Mockito.mock(LeadExtensionBatchRepository.class);
+    private final AtomicLong counter = new AtomicLong();
+
+    private LeadImportService newService(int batchSize) {
+        Mockito.doAnswer(invocation -> {
+            List<LeadExtension> leads = invocation.getArgument(0);
+            if (leads.stream().anyMatch(lead -> "dup".equals(lead.getLeadNumber()))) {
+                throw new DataIntegrityViolationException("duplicate",
+                    new RuntimeException("ERROR: duplicate key value violates unique constraint\n  Detail: ..."));
+            }
+            inserted.addAll(leads);
+            return null;
+        }).when(batchRepository).insertAll(Mockito.anyList());
+
+        ObjectMapper mapper = new ObjectMapper()
+            .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        LeadNumberAllocator allocator = LeadNumberAllocatorTest.allocator(
+            LeadNumberAllocatorTest.counterRepository(counter), 20);
+        return new LeadImportService(mapper, batchRepository, allocator, new LeadCountCache(60_000),
+            Mockito.mock(PlatformTransactionManager.class), batchSize, 100);
+    }
+
+    private static ByteArrayInputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void importsCsvInBatchesWithBulkLeadNumbers() throws Exception {
+        LeadImportService service = newService(2);
+        String csv = "Customer Name,loanAmountRequired,lead_status,unknown\n"
+            + "Asha,150000,,x\n"
+            + "\"Rao, Vikram\",2500.50,contacted,y\n"
+            + "Meena,,,\n";
+
+        ImportResult result = service.importLeads(body(csv), LeadImportService.Format.CSV);
+
+        assertEquals(3, result.getReceived());
+        assertEquals(3, result.getImported());
+        assertEquals(0, result.getFailed());
+        // two chunks of at most 2 rows
+        Mockito.verify(batchRepository, Mockito.times(2)).insertAll(Mockito.anyList());
+        assertEquals("Rao, Vikram", inserted.get(1).getCustomerName());
+        assertEquals("new", inserted.get(0).getLeadStatus());
+        assertEquals(3, inserted.stream().map(LeadExtension::getLeadNumber).distinct().count());
+        assertEquals(3, counter.get(), "numbers reserved exactly, one counter update per chunk");
+    }
+
+    @Test
+    void reportsInvalidRowsAndKeepsGoing() throws Exception {
+        LeadImportService service = newService(100);
+        String ndjson = "{\"customer_name\":\"Asha\",\"business_details\":{\"gst\":\"X1\"}}\n"
+            + "not json\n"
+            + "\n"
+            + "{\"product\":\"Home loan\"}\n"
+            + "{\"customer_name\":\"Ravi\",\"loan_amount_required\":\"lots\"}\n"
+            + "{\"customer_name\":\"Dup\",\"lead_number\":\"dup\"}\n"
+            + "{\"customer_name\":\"Ok\",\"id\":99}\n";
+
+        ImportResult result = service.importLeads(body(ndjson), LeadImportService.Format.NDJSON);
+
+        assertEquals(6, result.getReceived());
+        assertEquals(2, result.getImported());
+        assertEquals(4, result.getFailed());
+        List<Long> failedRows = result.getErrors().stream().map(ImportResult.RowError::getRow).toList();
+        assertEquals(List.of(2L, 3L, 4L, 5L), failedRows);
+        assertEquals("Invalid value for loan_amount_required", result.getErrors().get(2).getError());
+        assertEquals("duplicate key value violates unique constraint", result.getErrors().get(3).getError());
+        assertEquals("{\"gst\":\"X1\"}", inserted.get(0).getBusinessDetails().json());
+        assertNull(inserted.get(1).getId());
+    }
+
+    @Test
+    void contactExportColumnsMapToLeadFields() throws Exception {
+        LeadImportService service = newService(100);
+        String csv = "id,first_name,last_name,status,phone_work,phone_home\n"
+            + "2,Shelley,Kerluke,warm,,1-955-371-0847\n"
+            + "4,Leah,,warm,(415) 293-3313,(980) 494-7423\n"
+            + "5,,,cold,,\n";
+
+        ImportResult result = service.importLeads(body(csv), LeadImportService.Format.CSV);
+
+        assertEquals(2, result.getImported());
+        assertEquals("Shelley Kerluke", inserted.get(0).getCustomerName());
+        assertEquals("1-955-371-0847", inserted.get(0).getContactNumber());
+        assertEquals("Leah", inserted.get(1).getCustomerName());
+        assertEquals("(415) 293-3313", inserted.get(1).getContactNumber());
+        assertEquals(List.of(3L), result.getErrors().stream().map(ImportResult.RowError::getRow).toList());
+        assertEquals("No lead fields in this row", result.getErrors().get(0).getError());
+    }
+
+    @Test
+    void headerWithoutLeadColumnsIsRejected() {
+        LeadImportService service = newService(100);
+        String csv = "id,gender,title\n1,female,Ms\n";
+
+        assertThrows(IllegalArgumentException.class, () -> service.importLeads(body(csv), LeadImportService.Format.CSV));
+        Mockito.verifyNoInteractions(batchRepository);
+    }
+
+    @Test
+    void columnNamesAreNormalized() {
+        assertEquals("customer_name", LeadImportService.columnName(" Customer Name "));
+        assertEquals("loan_amount_required", LeadImportService.columnName("loanAmountRequired"));
+        assertEquals("lead_status", LeadImportService.columnName("lead_status"));
+        assertEquals("contact_number", LeadImportService.targetField("phone_work"));
+        assertEquals("customer_name", LeadImportService.targetField("last_name"));
+        assertNull(LeadImportService.targetField("version"));
+    }
+}
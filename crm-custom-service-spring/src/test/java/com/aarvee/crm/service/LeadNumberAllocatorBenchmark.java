@@ -0,0 +1,161 @@
+package com.aarvee.crm.service;
+
+import com.aarvee.crm.repository.LeadNumberCounterRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs {@link LeadNumberAllocator} against the real counter upsert
+ * ({@code INSERT ... ON CONFLICT ... RETURNING}) through Spring Data JPA, from
+ * {@code benchmark.nodes} allocators with their own connection pools and
+ * {@code benchmark.workers} threads each. Every number handed out must be unique, and a
+ * reservation must survive the rollback of the create that triggered it. Needs a local
+ * Postgres with the custom_features migrations applied:
+ * <pre>
+ *   mvn test -Dtest=LeadNumberAllocatorBenchmark -Dbenchmarks=true \
+ *       [-Dbenchmark.jdbc-url=jdbc:postgresql://localhost:54322/postgres] [-Dbenchmark.nodes=2] \
+ *       [-Dbenchmark.workers=8] [-Dbenchmark.numbers-per-worker=5000] [-Dbenchmark.block-size=20]
+ * </pre>
+ * Advances today's counter row, so the numbers it takes are skipped by the service.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class LeadNumberAllocatorBenchmark {
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private final List<LocalContainerEntityManagerFactoryBean> factories = new ArrayList<>();
+    private final List<Node> nodes = new ArrayList<>();
+
+    private record Node(LeadNumberCounterRepository repository, JpaTransactionManager transactionManager) {
+    }
+
+    @BeforeAll
+    void connect() {
+        String url = System.getProperty("benchmark.jdbc-url", "jdbc:postgresql://localhost:54322/postgres");
+        int workers = Integer.getInteger("benchmark.workers", 8);
+        for (int i = 0; i < Integer.getInteger("benchmark.nodes", 2); i++) {
+            HikariDataSource pool = dataSource(url, workers + 1);
+            pools.add(pool);
+            LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+            factory.setDataSource(pool);
+            factory.setPackagesToScan("com.aarvee.crm.entity");
+            factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            factory.afterPropertiesSet();
+            factories.add(factory);
+            EntityManagerFactory entityManagerFactory = factory.getObject();
+            LeadNumberCounterRepository repository = new JpaRepositoryFactory(
+                SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory))
+                .getRepository(LeadNumberCounterRepository.class);
+            nodes.add(new Node(repository, new JpaTransactionManager(entityManagerFactory)));
+        }
+    }
+
+    @AfterAll
+    void disconnect() {
+        factories.forEach(LocalContainerEntityManagerFactoryBean::destroy);
+        pools.forEach(HikariDataSource::close);
+    }
+
+    @Test
+    void concurrentNodesNeverHandOutTheSameNumber() throws Exception {
+        int workersPerNode = Integer.getInteger("benchmark.workers", 8);
+        int numbersPerWorker = Integer.getInteger("benchmark.numbers-per-worker", 5000);
+        int blockSize = Integer.getInteger("benchmark.block-size", 20);
+        JdbcTemplate jdbc = new JdbcTemplate(pools.get(0));
+        long before = lastValue(jdbc);
+
+        List<LeadNumberAllocator> allocators = nodes.stream()
+            .map(node -> new LeadNumberAllocator(node.repository(), node.transactionManager(), blockSize))
+            .toList();
+        int workers = allocators.size() * workersPerNode;
+        Set<String> numbers = new HashSet<>();
+        long start = System.nanoTime();
+        try (ExecutorService threads = Executors.newFixedThreadPool(workers)) {
+            List<Future<List<String>>> runs = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                LeadNumberAllocator allocator = allocators.get(w % allocators.size());
+                boolean batches = w % workersPerNode == 0;
+                runs.add(threads.submit(() -> {
+                    List<String> mine = new ArrayList<>(numbersPerWorker);
+                    while (mine.size() < numbersPerWorker) {
+                        // one worker per node imports in batches of 50, the rest create one at a time
+                        if (batches) {
+                            mine.addAll(allocator.nextBatch(Math.min(50, numbersPerWorker - mine.size())));
+                        } else {
+                            mine.add(allocator.next());
+                        }
+                    }
+                    return mine;
+                }));
+            }
+            for (Future<List<String>> run : runs) {
+                for (String number : run.get()) {
+                    assertTrue(numbers.add(number), "handed out twice: " + number);
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long reserved = lastValue(jdbc) - before;
+        System.out.printf("%d nodes x %d workers: %d numbers in %.1f s (%.0f/s), %d reserved%n",
+            allocators.size(), workersPerNode, numbers.size(), seconds, numbers.size() / seconds, reserved);
+
+        assertEquals((long) workers * numbersPerWorker, numbers.size());
+        // at most one partly used block per node is left over
+        assertTrue(reserved >= numbers.size() && reserved <= numbers.size() + (long) allocators.size() * blockSize,
+            "reserved " + reserved);
+    }
+
+    @Test
+    void reservationSurvivesARolledBackCreate() {
+        Node node = nodes.get(0);
+        LeadNumberAllocator first = new LeadNumberAllocator(node.repository(), node.transactionManager(), 10);
+        LeadNumberAllocator second = new LeadNumberAllocator(node.repository(), node.transactionManager(), 10);
+
+        String rolledBack = new TransactionTemplate(node.transactionManager()).execute(status -> {
+            status.setRollbackOnly();
+            return first.next();
+        });
+
+        assertNotEquals(rolledBack, second.next());
+    }
+
+    private static long lastValue(JdbcTemplate jdbc) {
+        List<Long> values = jdbc.queryForList("SELECT last_value FROM custom_features.lead_number_counters WHERE day = ?",
+            Long.class, LocalDate.now());
+        return values.isEmpty() ? 0 : values.get(0);
+    }
+
+    private static HikariDataSource dataSource(String url, int poolSize) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(System.getProperty("benchmark.db-user", "postgres"));
+        dataSource.setPassword(System.getProperty("benchmark.db-password", "postgres"));
+        dataSource.setMaximumPoolSize(poolSize);
+        dataSource.setConnectionTimeout(TimeUnit.SECONDS.toMillis(30));
+        return dataSource;
+    }
+}
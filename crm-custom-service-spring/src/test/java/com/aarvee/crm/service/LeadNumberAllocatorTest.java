@@ -0,0 +1,91 @@
+package com.aarvee.crm.service;
+
+import com.aarvee.crm.repository.LeadNumberCounterRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeadNumberAllocatorTest {
+
+    /**
+     * Stands in for the counter row: the upsert is atomic in Postgres, so an AtomicLong models it.
+     */
+    static LeadNumberCounterRepository counterRepository(AtomicLong counter) {
+        LeadNumberCounterRepository repository = Mockito.mock(LeadNumberCounterRepository.class);
+        Mockito.when(repository.reserveBlock(Mockito.any(LocalDate.class), Mockito.anyInt()))
+            .thenAnswer(invocation -> counter.addAndGet(invocation.getArgument(1, Integer.class)));
+        return repository;
+    }
+
+    static LeadNumberAllocator allocator(LeadNumberCounterRepository repository, int blockSize) {
+        return new LeadNumberAllocator(repository, Mockito.mock(PlatformTransactionManager.class), blockSize);
+    }
+
+    @Test
+    void formatsNumbersWithTodaysPrefix() {
+        LeadNumberAllocator allocator = allocator(counterRepository(new AtomicLong()), 10);
+        String today = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+
+        assertEquals("LEAD-" + today + "-00001", allocator.next());
+        assertEquals("LEAD-" + today + "-00002", allocator.next());
+    }
+
+    @Test
+    void reservesOneBlockPerBlockSizeNumbers() {
+        LeadNumberCounterRepository repository = counterRepository(new AtomicLong());
+        LeadNumberAllocator allocator = allocator(repository, 25);
+
+        for (int i = 0; i < 100; i++) {
+            allocator.next();
+        }
+
+        Mockito.verify(repository, Mockito.times(4)).reserveBlock(Mockito.any(LocalDate.class), Mockito.eq(25));
+    }
+
+    @Test
+    void concurrentNodesNeverHandOutTheSameNumber() throws Exception {
+        AtomicLong sharedCounter = new AtomicLong();
+        List<LeadNumberAllocator> nodes = List.of(
+            allocator(counterRepository(sharedCounter), 7),
+            allocator(counterRepository(sharedCounter), 7),
+            allocator(counterRepository(sharedCounter), 7));
+
+        int threads = 24;
+        int perThread = 2_000;
+        Set<String> issued = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                LeadNumberAllocator node = nodes.get(t % nodes.size());
+                tasks.add(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        assertTrue(issued.add(node.next()), "duplicate lead number");
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(threads * perThread, issued.size());
+    }
+}
@@ -0,0 +1,159 @@
+package com.aarvee.crm.service;
+
+import com.aarvee.crm.repository.LeadAnalyticsRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Creates leads from {@code benchmark.workers} threads at once, several per transaction and
+ * spread over five rollup groups in random order, while another thread folds the rollup
+ * deltas. Lead creates must not wait on or deadlock against each other (a deadlock
+ * fails the test), and the analytics totals must match the leads, before and after the final
+ * fold. Needs a local Postgres with the custom_features migrations applied:
+ * <pre>
+ *   mvn test -Dtest=LeadPipelineRollupBenchmark -Dbenchmarks=true \
+ *       [-Dbenchmark.jdbc-url=jdbc:postgresql://localhost:54322/postgres] [-Dbenchmark.workers=16] \
+ *       [-Dbenchmark.transactions-per-worker=500] [-Dbenchmark.leads-per-transaction=4]
+ * </pre>
+ * Seeds and deletes its own leads, with product {@code benchmark-rollups}.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class LeadPipelineRollupBenchmark {
+
+    private static final String PRODUCT = "benchmark-rollups";
+    private static final List<String> STATUSES = List.of("new", "contacted", "qualified", "won", "lost");
+
+    @Test
+    void concurrentCreatesNeitherDeadlockNorDrift() throws Exception {
+        String url = System.getProperty("benchmark.jdbc-url", "jdbc:postgresql://localhost:54322/postgres");
+        int workers = Integer.getInteger("benchmark.workers", 16);
+        int transactionsPerWorker = Integer.getInteger("benchmark.transactions-per-worker", 500);
+        int leadsPerTransaction = Integer.getInteger("benchmark.leads-per-transaction", 4);
+
+        HikariDataSource pool = dataSource(url, workers + 2);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(pool);
+        JdbcTemplate jdbc = new JdbcTemplate(pool);
+        LeadAnalyticsRepository repository = new LeadAnalyticsRepository(jdbc);
+        LeadAnalyticsService service = new LeadAnalyticsService(repository, transactionManager, false, 60_000, 0, false);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        AtomicLong deadlocks = new AtomicLong();
+        try {
+            jdbc.update("DELETE FROM custom_features.lead_extensions WHERE product = ?", PRODUCT);
+            service.fold();
+
+            AtomicBoolean writing = new AtomicBoolean(true);
+            long start = System.nanoTime();
+            try (ExecutorService threads = Executors.newFixedThreadPool(workers + 1)) {
+                Future<?> folder = threads.submit(() -> {
+                    while (writing.get()) {
+                        service.fold();
+                        TimeUnit.MILLISECONDS.sleep(50);
+                    }
+                    return null;
+                });
+                try {
+                    List<Future<?>> runs = new ArrayList<>();
+                    for (int w = 0; w < workers; w++) {
+                        int worker = w;
+                        runs.add(threads.submit(() -> {
+                            for (int t = 0; t < transactionsPerWorker; t++) {
+                                createLeads(transaction, jdbc, worker, t, leadsPerTransaction, deadlocks);
+                            }
+                        }));
+                    }
+                    for (Future<?> run : runs) {
+                        run.get();
+                    }
+                } finally {
+                    writing.set(false);
+                }
+                folder.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long leads = (long) workers * transactionsPerWorker * leadsPerTransaction;
+            System.out.printf("%d workers: %d leads in %d-lead transactions in %.1f s (%.0f/s), %d folds of %d deltas, "
+                    + "%d deadlocks%n",
+                workers, leads, leadsPerTransaction, seconds, leads / seconds,
+                (Long) service.stats().get("folds"), (Long) service.stats().get("foldedDeltas"), deadlocks.get());
+
+            assertEquals(0, deadlocks.get(), "deadlocks");
+            assertTotalsMatchLeads(service, jdbc);
+            assertEquals(0, repository.countDrift(), "drift with deltas pending");
+            service.fold();
+            assertTotalsMatchLeads(service, jdbc);
+            assertEquals(0, repository.countDrift(), "drift after folding");
+        } finally {
+            jdbc.update("DELETE FROM custom_features.lead_extensions WHERE product = ?", PRODUCT);
+            service.fold();
+            service.stop();
+            pool.close();
+        }
+    }
+
+    /**
+     * One transaction inserting a lead per statement into random groups, so concurrent
+     * transactions hit the same groups in different orders. A deadlock is counted and retried.
+     */
+    private static void createLeads(TransactionTemplate transaction, JdbcTemplate jdbc, int worker, int attempt,
+                                    int leads, AtomicLong deadlocks) {
+        while (true) {
+            try {
+                transaction.executeWithoutResult(status -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < leads; i++) {
+                        jdbc.update("INSERT INTO custom_features.lead_extensions "
+                                + "(lead_number, customer_name, product, lead_status, loan_amount_required, created_at, updated_at) "
+                                + "VALUES (?, 'Rollup benchmark', ?, ?, ?, now(), now())",
+                            "RBENCH-" + worker + "-" + attempt + "-" + i, PRODUCT,
+                            STATUSES.get(random.nextInt(STATUSES.size())), 1000 + random.nextInt(1000));
+                    }
+                });
+                return;
+            } catch (PessimisticLockingFailureException e) {
+                deadlocks.incrementAndGet();
+            }
+        }
+    }
+
+    private static void assertTotalsMatchLeads(LeadAnalyticsService service, JdbcTemplate jdbc) {
+        List<Map<String, Object>> expected = jdbc.query("SELECT lead_status, count(*), sum(loan_amount_required) "
+                + "FROM custom_features.lead_extensions WHERE product = ? GROUP BY 1 ORDER BY 1",
+            (rs, rowNum) -> Map.of("lead_status", rs.getString(1), "lead_count", rs.getLong(2),
+                "loan_amount_required", rs.getBigDecimal(3)),
+            PRODUCT);
+        List<Map<String, Object>> actual = service.summary(List.of("product", "lead_status"), null, null).stream()
+            .filter(row -> PRODUCT.equals(row.get("product")))
+            .map(row -> Map.of("lead_status", row.get("lead_status"), "lead_count", row.get("lead_count"),
+                "loan_amount_required", row.get("loan_amount_required")))
+            .toList();
+        assertEquals(expected, actual);
+    }
+
+    private static HikariDataSource dataSource(String url, int poolSize) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(System.getProperty("benchmark.db-user", "postgres"));
+        dataSource.setPassword(System.getProperty("benchmark.db-password", "postgres"));
+        dataSource.setMaximumPoolSize(poolSize);
+        dataSource.setConnectionTimeout(TimeUnit.SECONDS.toMillis(30));
+        return dataSource;
+    }
+}
@@ -0,0 +1,122 @@
+package com.aarvee.crm.service;
+
+import com.aarvee.crm.repository.ReminderDispatchRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Drains a queue of {@code benchmark.reminders} due reminders with {@code benchmark.nodes}
+ * dispatchers running at once, each with its own connection pool and workers, as separate
+ * service instances would. Needs a local Postgres with the custom_features migrations applied:
+ * <pre>
+ *   mvn test -Dtest=ReminderDispatchBenchmark -Dbenchmarks=true \
+ *       [-Dbenchmark.jdbc-url=jdbc:postgresql://localhost:54322/postgres] [-Dbenchmark.reminders=1000000] \
+ *       [-Dbenchmark.nodes=4] [-Dbenchmark.batch-size=500] [-Dbenchmark.send-latency-us=0]
+ * </pre>
+ * Seeds its rows with type {@code benchmark} and deletes them afterwards, but sends every due
+ * reminder it finds, so point it at a scratch database. Fails if any reminder is sent twice or
+ * left unsent.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class ReminderDispatchBenchmark {
+
+    @Test
+    void drainQueueFromSeveralNodes() throws Exception {
+        String url = System.getProperty("benchmark.jdbc-url", "jdbc:postgresql://localhost:54322/postgres");
+        int reminders = Integer.getInteger("benchmark.reminders", 1_000_000);
+        int nodes = Integer.getInteger("benchmark.nodes", 4);
+        int batchSize = Integer.getInteger("benchmark.batch-size", 500);
+        long sendLatencyNanos = TimeUnit.MICROSECONDS.toNanos(Long.getLong("benchmark.send-latency-us", 0));
+
+        try (HikariDataSource setup = dataSource(url, 1)) {
+            JdbcTemplate jdbc = new JdbcTemplate(setup);
+            jdbc.update("DELETE FROM custom_features.reminders WHERE type = 'benchmark'");
+            long seedStart = System.nanoTime();
+            jdbc.update("INSERT INTO custom_features.reminders (type, due_date, message, status) "
+                + "SELECT 'benchmark', current_date - (n % 30), 'Benchmark reminder ' || n, 'pending' "
+                + "FROM generate_series(1, ?) AS n", reminders);
+            jdbc.execute("ANALYZE custom_features.reminders");
+            System.out.printf("Seeded %d reminders in %d ms%n", reminders,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - seedStart));
+        }
+
+        Set<Long> delivered = ConcurrentHashMap.newKeySet();
+        AtomicLong duplicates = new AtomicLong();
+        ReminderSender sender = reminder -> {
+            if (sendLatencyNanos > 0) {
+                LockSupport.parkNanos(sendLatencyNanos);
+            }
+            if (!delivered.add(reminder.getId())) {
+                duplicates.incrementAndGet();
+            }
+        };
+
+        List<HikariDataSource> pools = new ArrayList<>();
+        List<ReminderDispatcher> dispatchers = new ArrayList<>();
+        for (int i = 0; i < nodes; i++) {
+            HikariDataSource pool = dataSource(url, 2);
+            pools.add(pool);
+            dispatchers.add(new ReminderDispatcher(new ReminderDispatchRepository(new JdbcTemplate(pool)), sender,
+                false, batchSize, 16, 1_000, 300_000, 5, 60_000, 3_600_000, false));
+        }
+
+        long start = System.nanoTime();
+        try (ExecutorService nodeThreads = Executors.newFixedThreadPool(nodes)) {
+            List<Future<Long>> claims = new ArrayList<>();
+            for (ReminderDispatcher dispatcher : dispatchers) {
+                claims.add(nodeThreads.submit(() -> {
+                    long claimed = 0;
+                    int batch;
+                    while ((batch = dispatcher.dispatchOnce()) > 0) {
+                        claimed += batch;
+                    }
+                    return claimed;
+                }));
+            }
+            for (int i = 0; i < nodes; i++) {
+                System.out.printf("node %d claimed %d%n", i, claims.get(i).get());
+            }
+        } finally {
+            dispatchers.forEach(ReminderDispatcher::stop);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        try {
+            JdbcTemplate jdbc = new JdbcTemplate(pools.get(0));
+            long sentRows = jdbc.queryForObject(
+                "SELECT count(*) FROM custom_features.reminders WHERE type = 'benchmark' AND status = 'sent'", Long.class);
+            jdbc.update("DELETE FROM custom_features.reminders WHERE type = 'benchmark'");
+
+            System.out.printf("%d nodes, batches of %d: %d reminders in %.1f s (%.0f/s), %d duplicate sends%n",
+                nodes, batchSize, delivered.size(), seconds, delivered.size() / seconds, duplicates.get());
+            assertEquals(0, duplicates.get());
+            assertEquals(reminders, sentRows);
+        } finally {
+            pools.forEach(HikariDataSource::close);
+        }
+    }
+
+    private static HikariDataSource dataSource(String url, int poolSize) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(System.getProperty("benchmark.db-user", "postgres"));
+        dataSource.setPassword(System.getProperty("benchmark.db-password", "postgres"));
+        dataSource.setMaximumPoolSize(poolSize);
+        return dataSource;
+    }
+}
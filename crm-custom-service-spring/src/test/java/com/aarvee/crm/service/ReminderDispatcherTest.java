@@ -0,0 +1,121 @@
+package com.aarvee.crm.service;
+
+import com.aarvee.crm.entity.Reminder;
+import com.aarvee.crm.repository.ReminderDispatchRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReminderDispatcherTest {
+
+    private final ReminderDispatchRepository repository = Mockito.mock(ReminderDispatchRepository.class);
+
+    private ReminderDispatcher dispatcher(ReminderSender sender, int maxAttempts, long leaseMs) {
+        return new ReminderDispatcher(repository, sender, false, 10, 4, 1_000, leaseMs, maxAttempts,
+            60_000, 3_600_000, false);
+    }
+
+    @Test
+    void deliveredRemindersAreMarkedSentInOneUpdate() throws Exception {
+        Mockito.when(repository.claim(Mockito.any(), Mockito.eq(10), Mockito.any()))
+            .thenReturn(List.of(reminder(1, 1), reminder(2, 1), reminder(3, 1)));
+        List<Long> delivered = new ArrayList<>();
+
+        int claimed = dispatcher(reminder -> {
+            synchronized (delivered) {
+                delivered.add(reminder.getId());
+            }
+        }, 5, 60_000).dispatchOnce();
+
+        assertEquals(3, claimed);
+        assertEquals(3, delivered.size());
+        Mockito.verify(repository).markSent(Mockito.eq(List.of(1L, 2L, 3L)), Mockito.any());
+        Mockito.verify(repository).reschedule(List.of());
+    }
+
+    @Test
+    void failuresAreRetriedWithExponentialBackoffThenFailed() throws Exception {
+        Mockito.when(repository.claim(Mockito.any(), Mockito.anyInt(), Mockito.any()))
+            .thenReturn(List.of(reminder(1, 1), reminder(2, 3), reminder(3, 5)));
+        LocalDateTime before = LocalDateTime.now();
+
+        ReminderDispatcher dispatcher = dispatcher(reminder -> {
+            throw new IllegalStateException("channel down");
+        }, 5, 60_000);
+        dispatcher.dispatchOnce();
+
+        ArgumentCaptor<List<ReminderDispatchRepository.Retry>> captor = retriesCaptor();
+        Mockito.verify(repository).reschedule(captor.capture());
+        List<ReminderDispatchRepository.Retry> retries = captor.getValue();
+        assertEquals(3, retries.size());
+        // attempt 1: base delay; attempt 3: base * 4; attempt 5 of 5: given up
+        assertFalse(retries.get(0).nextAttemptAt().isBefore(before.plusSeconds(60)));
+        assertTrue(retries.get(0).nextAttemptAt().isBefore(before.plusSeconds(120)));
+        assertFalse(retries.get(1).nextAttemptAt().isBefore(before.plusSeconds(240)));
+        assertNull(retries.get(2).nextAttemptAt());
+        assertTrue(retries.get(0).error().contains("channel down"));
+        Mockito.verify(repository).markSent(Mockito.eq(List.of()), Mockito.any());
+        assertEquals(2L, dispatcher.stats().get("retried"));
+        assertEquals(1L, dispatcher.stats().get("failed"));
+    }
+
+    @Test
+    void deliveriesStillRunningAtHalfTheLeaseAreMarkedUnknownNotRetried() throws Exception {
+        Mockito.when(repository.claim(Mockito.any(), Mockito.anyInt(), Mockito.any()))
+            .thenReturn(List.of(reminder(1, 1), reminder(2, 1)));
+        CountDownLatch never = new CountDownLatch(1);
+
+        dispatcher(reminder -> {
+            if (reminder.getId() == 2) {
+                never.await(10, TimeUnit.SECONDS);
+            }
+        }, 5, 200).dispatchOnce();
+
+        Mockito.verify(repository).markSent(Mockito.eq(List.of(1L)), Mockito.any());
+        Mockito.verify(repository).reschedule(List.of());
+        Mockito.verify(repository).markUnknown(Mockito.eq(List.of(2L)), Mockito.anyString());
+    }
+
+    @Test
+    void anEmptyQueueWritesNothing() throws Exception {
+        Mockito.when(repository.claim(Mockito.any(), Mockito.anyInt(), Mockito.any())).thenReturn(List.of());
+
+        assertEquals(0, dispatcher(reminder -> fail("nothing to send"), 5, 60_000).dispatchOnce());
+
+        Mockito.verify(repository, Mockito.never()).markSent(Mockito.any(), Mockito.any());
+        Mockito.verify(repository, Mockito.never()).reschedule(Mockito.any());
+    }
+
+    @Test
+    void expiredLeasesAreReleasedAtMostOncePerLease() {
+        ReminderDispatcher dispatcher = dispatcher(reminder -> { }, 5, 60_000);
+
+        dispatcher.releaseExpiredClaims();
+        dispatcher.releaseExpiredClaims();
+
+        Mockito.verify(repository, Mockito.times(1)).releaseExpiredClaims(Mockito.any(), Mockito.eq(5));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ArgumentCaptor<List<ReminderDispatchRepository.Retry>> retriesCaptor() {
+        return (ArgumentCaptor) ArgumentCaptor.forClass(List.class);
+    }
+
+    private static Reminder reminder(long id, int attempts) {
+        Reminder reminder = new Reminder();
+        reminder.setId(id);
+        reminder.setType("birthday");
+        reminder.setMessage("Wish contact " + id);
+        reminder.setStatus("sending");
+        reminder.setAttempts(attempts);
+        return reminder;
+    }
+}
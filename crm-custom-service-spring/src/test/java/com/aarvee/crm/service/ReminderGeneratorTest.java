@@ -0,0 +1,67 @@
+package com.aarvee.crm.service;
+
+import com.aarvee.crm.repository.ReminderGenerationRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReminderGeneratorTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 10);
+
+    private final ReminderGenerationRepository repository = Mockito.mock(ReminderGenerationRepository.class);
+
+    private ReminderGenerator generator() {
+        return new ReminderGenerator(repository, Mockito.mock(PlatformTransactionManager.class),
+            false, 3_600_000, 1, 12, false);
+    }
+
+    @Test
+    void firstRunGeneratesTodayAndTheLookaheadDay() {
+        Mockito.when(repository.insertBirthdays(Mockito.any())).thenReturn(2);
+        Mockito.when(repository.insertLoanTopups(Mockito.any(), Mockito.eq(12))).thenReturn(1);
+
+        Map<String, Integer> created = generator().generate(TODAY);
+
+        assertEquals(4, created.get("birthday"));
+        assertEquals(2, created.get("loan_topup"));
+        InOrder order = Mockito.inOrder(repository);
+        order.verify(repository).insertBirthdays(TODAY);
+        order.verify(repository).advance("birthday", TODAY);
+        order.verify(repository).insertBirthdays(TODAY.plusDays(1));
+        order.verify(repository).advance("birthday", TODAY.plusDays(1));
+        Mockito.verify(repository).insertLoanTopups(TODAY, 12);
+        Mockito.verify(repository).insertLoanTopups(TODAY.plusDays(1), 12);
+    }
+
+    @Test
+    void catchesUpFromTheDayAfterTheWatermark() {
+        Mockito.when(repository.generatedThrough("birthday")).thenReturn(TODAY.minusDays(3));
+        Mockito.when(repository.generatedThrough("loan_topup")).thenReturn(TODAY.plusDays(1));
+
+        generator().generate(TODAY);
+
+        for (int offset = -2; offset <= 1; offset++) {
+            Mockito.verify(repository).insertBirthdays(TODAY.plusDays(offset));
+        }
+        Mockito.verify(repository, Mockito.never()).insertBirthdays(TODAY.minusDays(3));
+        // already generated through tomorrow: only today onwards is rerun, to pick up new rows
+        Mockito.verify(repository).insertLoanTopups(TODAY, 12);
+        Mockito.verify(repository).insertLoanTopups(TODAY.plusDays(1), 12);
+        Mockito.verify(repository, Mockito.times(2)).insertLoanTopups(Mockito.any(), Mockito.anyInt());
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new ReminderGenerator(repository,
+            Mockito.mock(PlatformTransactionManager.class), false, 3_600_000, -1, 12, false));
+        assertThrows(IllegalArgumentException.class, () -> new ReminderGenerator(repository,
+            Mockito.mock(PlatformTransactionManager.class), false, 3_600_000, 1, 0, false));
+    }
+}
@@ -0,0 +1,39 @@
+package com.aarvee.crm.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+    @Test
+    void readsQuotedFieldsAcrossLines() throws Exception {
+        CsvReader csv = new CsvReader(new StringReader(
+            "\uFEFFname,notes\r\n\"Doe, Jane\",\"said \"\"hi\"\"\nthen left\"\r\nplain,\n"));
+
+        assertEquals(List.of("name", "notes"), csv.next());
+        assertEquals(List.of("Doe, Jane", "said \"hi\"\nthen left"), csv.next());
+        assertEquals(List.of("plain", ""), csv.next());
+        assertNull(csv.next());
+    }
+
+    @Test
+    void lastRecordWithoutNewline() throws Exception {
+        CsvReader csv = new CsvReader(new StringReader("a,b\n1,2"));
+
+        csv.next();
+        assertEquals(List.of("1", "2"), csv.next());
+        assertNull(csv.next());
+    }
+
+    @Test
+    void unterminatedQuoteIsRejected() throws Exception {
+        CsvReader csv = new CsvReader(new StringReader("a\n\"open"));
+
+        csv.next();
+        assertThrows(IllegalArgumentException.class, csv::next);
+    }
+}
@@ -0,0 +1,31 @@
+package com.aarvee.crm.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetCursorTest {
+
+    @Test
+    void roundTripsThroughOpaqueToken() {
+        KeysetCursor cursor = new KeysetCursor("createdAt", true, "2026-02-01T10:15:30", 42L);
+
+        String token = cursor.encode();
+
+        assertFalse(token.contains("createdAt"));
+        assertEquals(cursor, KeysetCursor.decode(token));
+    }
+
+    @Test
+    void roundTripsNullSortKey() {
+        KeysetCursor cursor = new KeysetCursor("product", false, null, 7L);
+
+        assertEquals(cursor, KeysetCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("e30")); // {}
+    }
+}
@@ -0,0 +1,52 @@
+package com.aarvee.crm.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeadFieldsTest {
+
+    @Test
+    void absentOrAllMeansWholeRows() {
+        assertTrue(LeadFields.parse(null).isAll());
+        assertTrue(LeadFields.parse(" ").isAll());
+        assertTrue(LeadFields.parse("all").isAll());
+        assertNull(LeadFields.parse("all").attributes());
+    }
+
+    @Test
+    void acceptsSnakeAndCamelCaseAndAlwaysSelectsId() {
+        LeadFields fields = LeadFields.parse("customer_name, leadStatus,customer_name");
+
+        assertEquals(List.of("id", "customerName", "leadStatus"), fields.attributes());
+        assertEquals("customer_name", LeadFields.jsonName("customerName"));
+    }
+
+    @Test
+    void listPresetLeavesOutTextAndJsonColumns() {
+        List<String> attributes = LeadFields.parse("list").attributes();
+
+        assertTrue(attributes.contains("customerName"));
+        assertTrue(attributes.contains("version"));
+        assertFalse(attributes.contains("shortDescription"));
+        assertFalse(attributes.contains("businessDetails"));
+    }
+
+    @Test
+    void rejectsFieldsOffTheAllowList() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> LeadFields.parse("customer_name,password"));
+        assertEquals("Invalid field: password", e.getMessage());
+    }
+
+    @Test
+    void includingAddsTheFieldOnce() {
+        LeadFields fields = LeadFields.parse("lead_status");
+
+        assertEquals(List.of("id", "leadStatus", "createdAt"), fields.including("createdAt").attributes());
+        assertSame(fields, fields.including("leadStatus"));
+        assertTrue(LeadFields.all().including("createdAt").isAll());
+    }
+}
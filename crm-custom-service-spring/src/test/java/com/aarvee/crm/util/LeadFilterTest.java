@@ -0,0 +1,101 @@
+package com.aarvee.crm.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeadFilterTest {
+
+    @Test
+    void blankFilterIsEmpty() {
+        assertTrue(LeadFilter.parse(null).isEmpty());
+        assertTrue(LeadFilter.parse("").isEmpty());
+        assertTrue(LeadFilter.parse("{}").isEmpty());
+    }
+
+    @Test
+    void parsesOperatorsAndConvertsValues() {
+        LeadFilter filter = LeadFilter.parse("{\"lead_status@in\":\"(new,contacted)\","
+            + "\"loan_amount_required@gte\":100000,\"created_at@lt\":\"2026-02-01\",\"customerName@prefix\":\"Ram\"}");
+
+        assertEquals(4, filter.conditions().size());
+        LeadFilter.Condition status = find(filter, "leadStatus");
+        assertEquals(LeadFilter.Operator.IN, status.operator());
+        assertEquals(List.of("new", "contacted"), status.values());
+        assertEquals(new BigDecimal("100000"), find(filter, "loanAmountRequired").values().get(0));
+        assertEquals(LocalDateTime.of(2026, 2, 1, 0, 0), find(filter, "createdAt").values().get(0));
+        assertEquals(LeadFilter.Operator.PREFIX, find(filter, "customerName").operator());
+    }
+
+    @Test
+    void offsetTimestampIsConvertedToTheZoneLeadsAreWrittenIn() {
+        LeadFilter filter = LeadFilter.parse("{\"created_at@gte\":\"2026-02-01T06:30:00+05:30\"}");
+
+        LocalDateTime expected = OffsetDateTime.parse("2026-02-01T01:00:00Z")
+            .atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        assertEquals(expected, find(filter, "createdAt").values().get(0));
+    }
+
+    @Test
+    void arrayValueWithoutOperatorMeansIn() {
+        LeadFilter filter = LeadFilter.parse("{\"lead_assigned_to\":[1,2,3]}");
+
+        LeadFilter.Condition condition = filter.conditions().get(0);
+        assertEquals(LeadFilter.Operator.IN, condition.operator());
+        assertEquals(List.of(1L, 2L, 3L), condition.values());
+    }
+
+    @Test
+    void signatureIgnoresKeyOrderAndNaming() {
+        String a = LeadFilter.parse("{\"lead_status\":\"won\",\"lead_assigned_to\":7}").signature();
+        String b = LeadFilter.parse("{\"leadAssignedTo\":7,\"leadStatus\":\"won\"}").signature();
+
+        assertEquals(a, b);
+        assertNotEquals(a, LeadFilter.parse("{\"lead_status\":\"lost\",\"lead_assigned_to\":7}").signature());
+    }
+
+    @Test
+    void detailPathsCompileToContainmentDocuments() {
+        LeadFilter filter = LeadFilter.parse("{\"business_details.type_of_industry\":[\"IT\",\"Textiles\"],"
+            + "\"propertyDetails@contains\":{\"type_of_property\":\"Flat\",\"is_new_purchase\":true}}");
+
+        LeadFilter.Condition industry = find(filter, "businessDetails");
+        assertEquals(LeadFilter.Operator.CONTAINS, industry.operator());
+        assertEquals(List.of("{\"type_of_industry\":\"IT\"}", "{\"type_of_industry\":\"Textiles\"}"), industry.values());
+        assertEquals(List.of("{\"type_of_property\":\"Flat\",\"is_new_purchase\":true}"),
+            find(filter, "propertyDetails").values());
+    }
+
+    @Test
+    void rejectsUndeclaredDetailPaths() {
+        assertThrows(IllegalArgumentException.class, () -> LeadFilter.parse("{\"business_details.gst\":\"x\"}"));
+        assertThrows(IllegalArgumentException.class, () -> LeadFilter.parse("{\"business_details\":\"x\"}"));
+        assertThrows(IllegalArgumentException.class, () -> LeadFilter.parse("{\"auto_loan_details@contains\":{\"a\":1}}"));
+        assertThrows(IllegalArgumentException.class, () -> LeadFilter.parse("{\"business_details@contains\":{\"gst\":\"x\"}}"));
+        assertThrows(IllegalArgumentException.class, () -> LeadFilter.parse("{\"business_details.type_of_industry@prefix\":\"I\"}"));
+        assertThrows(IllegalArgumentException.class, () -> LeadFilter.parse("{\"property_details.is_new_purchase\":\"yes\"}"));
+        assertThrows(IllegalArgumentException.class, () -> LeadFilter.parse("{\"lead_status@contains\":\"x\"}"));
+    }
+
+    @Test
+    void rejectsInvalidFilters() {
+        assertThrows(IllegalArgumentException.class, () -> LeadFilter.parse("not json"));
+        assertThrows(IllegalArgumentException.class, () -> LeadFilter.parse("[1,2]"));
+        assertThrows(IllegalArgumentException.class, () -> LeadFilter.parse("{\"password\":\"x\"}"));
+        assertThrows(IllegalArgumentException.class, () -> LeadFilter.parse("{\"lead_status@like\":\"x\"}"));
+        assertThrows(IllegalArgumentException.class, () -> LeadFilter.parse("{\"loan_amount_required@prefix\":\"1\"}"));
+        assertThrows(IllegalArgumentException.class, () -> LeadFilter.parse("{\"lead_assigned_to\":\"abc\"}"));
+        assertThrows(IllegalArgumentException.class, () -> LeadFilter.parse("{\"lead_status\":{\"a\":1}}"));
+        assertThrows(IllegalArgumentException.class, () -> LeadFilter.parse("{\"lead_status@in\":[]}"));
+    }
+
+    private static LeadFilter.Condition find(LeadFilter filter, String field) {
+        return filter.conditions().stream().filter(c -> c.field().equals(field)).findFirst().orElseThrow();
+    }
+}
@@ -1,8 +1,9 @@
 import { DragDropContext, type OnDragEndResponder } from "@hello-pangea/dnd";
 import isEqual from "lodash/isEqual";
-import { useDataProvider, useListContext, type DataProvider } from "ra-core";
+import { useDataProvider, useListContext, useNotify } from "ra-core";
 import { useEffect, useState } from "react";
 
+import type { CustomServiceDataProvider } from "../providers/custom-service/customServiceDataProvider";
 import { useConfigurationContext } from "../root/ConfigurationContext";
 import type { Lead } from "../types";
 import { LeadColumn } from "./LeadColumn";
@@ -12,7 +13,8 @@ import { getLeadsByStage } from "./stages";
 export const LeadListContent = () => {
   const { leadStages } = useConfigurationContext();
   const { data: unorderedLeads, isPending, refetch } = useListContext<Lead>();
-  const dataProvider = useDataProvider();
+  const dataProvider = useDataProvider<CustomServiceDataProvider>();
+  const notify = useNotify();
 
   const [leadsByStage, setLeadsByStage] = useState<LeadsByStage>(
     getLeadsByStage([], leadStages),
@@ -47,27 +49,28 @@ export const LeadListContent = () => {
     const sourceStage = source.droppableId;
     const destinationStage = destination.droppableId;
     const sourceLead = leadsByStage[sourceStage][source.index]!;
-    const destinationLead = leadsByStage[destinationStage][
-      destination.index
-    ] ?? {
-      stage: destinationStage,
-      index: undefined, // undefined if dropped after the last item
-    };
 
     // compute local state change synchronously
-    setLeadsByStage(
-      updateLeadStageLocal(
-        sourceLead,
-        { stage: sourceStage, index: source.index },
-        { stage: destinationStage, index: destination.index },
-        leadsByStage,
-      ),
+    const newLeadsByStage = updateLeadStageLocal(
+      sourceLead,
+      { stage: sourceStage, index: source.index },
+      { stage: destinationStage, index: destination.index },
+      leadsByStage,
     );
-
-    // persist the changes
-    updateLeadStage(sourceLead, destinationLead, dataProvider).then(() => {
-      refetch();
-    });
+    setLeadsByStage(newLeadsByStage);
+
+    // persist the change: the card goes right below its new upper neighbour,
+    // or to the top of the column; no other card is written
+    const destinationColumn = newLeadsByStage[destinationStage];
+    const position = destinationColumn.indexOf(sourceLead);
+    const afterLead = position > 0 ? destinationColumn[position - 1] : undefined;
+    dataProvider
+      .moveLead(sourceLead.id, {
+        stage: destinationStage,
+        afterId: afterLead?.id ?? null,
+      })
+      .catch((error: Error) => notify(error.message, { type: "error" }))
+      .then(() => refetch());
   };
 
   return (
@@ -120,126 +123,3 @@ const updateLeadStageLocal = (
     };
   }
 };
-
-const updateLeadStage = async (
-  source: Lead,
-  destination: {
-    stage: string;
-    index?: number; // undefined if dropped after the last item
-  },
-  dataProvider: DataProvider,
-) => {
-  if (source.stage === destination.stage) {
-    // moving lead inside the same column
-    // Fetch all the leads in this stage (because the list may be filtered, but we need to update even non-filtered leads)
-    const { data: columnLeads } = await dataProvider.getList("leads", {
-      sort: { field: "index", order: "ASC" },
-      pagination: { page: 1, perPage: 100 },
-      filter: { stage: source.stage },
-    });
-    const destinationIndex = destination.index ?? columnLeads.length + 1;
-
-    if (source.index > destinationIndex) {
-      // lead moved up, eg
-      // dest   src
-      //  <------
-      // [4, 7, 23, 5]
-      await Promise.all([
-        // for all leads between destinationIndex and source.index, increase the index
-        ...columnLeads
-          .filter(
-            (lead) =>
-              lead.index >= destinationIndex && lead.index < source.index,
-          )
-          .map((lead) =>
-            dataProvider.update("leads", {
-              id: lead.id,
-              data: { index: lead.index + 1 },
-              previousData: lead,
-            }),
-          ),
-        // for the lead that was moved, update its index
-        dataProvider.update("leads", {
-          id: source.id,
-          data: { index: destinationIndex },
-          previousData: source,
-        }),
-      ]);
-    } else {
-      // lead moved down, e.g
-      // src   dest
-      //  ------>
-      // [4, 7, 23, 5]
-      await Promise.all([
-        // for all leads between source.index and destinationIndex, decrease the index
-        ...columnLeads
-          .filter(
-            (lead) =>
-              lead.index <= destinationIndex && lead.index > source.index,
-          )
-          .map((lead) =>
-            dataProvider.update("leads", {
-              id: lead.id,
-              data: { index: lead.index - 1 },
-              previousData: lead,
-            }),
-          ),
-        // for the lead that was moved, update its index
-        dataProvider.update("leads", {
-          id: source.id,
-          data: { index: destinationIndex },
-          previousData: source,
-        }),
-      ]);
-    }
-  } else {
-    // moving lead across columns
-    // Fetch all the leads in both stages (because the list may be filtered, but we need to update even non-filtered leads)
-    const [{ data: sourceLeads }, { data: destinationLeads }] =
-      await Promise.all([
-        dataProvider.getList("leads", {
-          sort: { field: "index", order: "ASC" },
-          pagination: { page: 1, perPage: 100 },
-          filter: { stage: source.stage },
-        }),
-        dataProvider.getList("leads", {
-          sort: { field: "index", order: "ASC" },
-          pagination: { page: 1, perPage: 100 },
-          filter: { stage: destination.stage },
-        }),
-      ]);
-    const destinationIndex = destination.index ?? destinationLeads.length + 1;
-
-    await Promise.all([
-      // decrease index on the leads after the source index in the source columns
-      ...sourceLeads
-        .filter((lead) => lead.index > source.index)
-        .map((lead) =>
-          dataProvider.update("leads", {
-            id: lead.id,
-            data: { index: lead.index - 1 },
-            previousData: lead,
-          }),
-        ),
-      // increase index on the leads after the destination index in the destination columns
-      ...destinationLeads
-        .filter((lead) => lead.index >= destinationIndex)
-        .map((lead) =>
-          dataProvider.update("leads", {
-            id: lead.id,
-            data: { index: lead.index + 1 },
-            previousData: lead,
-          }),
-        ),
-      // change the dragged lead to take the destination index and column
-      dataProvider.update("leads", {
-        id: source.id,
-        data: {
-          index: destinationIndex,
-          stage: destination.stage,
-        },
-        previousData: source,
-      }),
-    ]);
-  }
-};
@@ -1,6 +1,5 @@
-import type { DataProvider } from 'ra-core';
 import { dataProvider as supabaseDataProvider } from '../supabase/dataProvider';
-import { customServiceDataProvider } from '../custom-service/customServiceDataProvider';
+import { customServiceDataProvider, type CustomServiceDataProvider } from '../custom-service/customServiceDataProvider';
 
 // Resources handled by the custom service
 const CUSTOM_RESOURCES = [
@@ -15,7 +14,7 @@ const isCustomResource = (resource: string): boolean => {
   return CUSTOM_RESOURCES.includes(resource);
 };
 
-export const compositeDataProvider: DataProvider = {
+export const compositeDataProvider: CustomServiceDataProvider = {
   getList: async (resource, params) => {
     const provider = isCustomResource(resource) ? customServiceDataProvider : supabaseDataProvider;
     return provider.getList(resource, params);
@@ -60,4 +59,6 @@ export const compositeDataProvider: DataProvider = {
     const provider = isCustomResource(resource) ? customServiceDataProvider : supabaseDataProvider;
     return provider.getManyReference(resource, params);
   },
+
+  moveLead: customServiceDataProvider.moveLead,
 };
@@ -1,10 +1,13 @@
-import type { DataProvider } from 'ra-core';
+import type { DataProvider, Identifier } from 'ra-core';
 import { supabase } from '../supabase/supabase';
 import { fetchWithTimeout } from '../../misc/fetchWithTimeout';
 
 const API_BASE_URL = import.meta.env.VITE_CUSTOM_SERVICE_URL || 'http://localhost:3001/api';
 const REQUEST_TIMEOUT = 30000; // 30 seconds timeout for API requests
 
+// Resources the custom service serves with PATCH and the batch endpoints; the others only have plain CRUD
+const LEAD_RESOURCES = ['leads', 'lead_extensions'];
+
 /**
  * Retrieves the authentication token from Supabase session.
  *
@@ -72,7 +75,14 @@ const fetchJson = async (url: string, options: RequestInit = {}) => {
   }
 };
 
-export const customServiceDataProvider: DataProvider = {
+export type CustomServiceDataProvider = DataProvider & {
+  moveLead: (
+    id: Identifier,
+    params: { stage: string; afterId: Identifier | null },
+  ) => Promise<{ data: any }>;
+};
+
+export const customServiceDataProvider: CustomServiceDataProvider = {
   getList: async (resource, params) => {
     const { page, perPage } = params.pagination;
     const { field, order } = params.sort;
@@ -84,6 +94,11 @@ export const customServiceDataProvider: DataProvider = {
       sortOrder: order.toLowerCase(),
       filter: JSON.stringify(params.filter),
     });
+    // meta.fields: e.g. 'list' for the lean grid columns, or an array of field names
+    const fields = params.meta?.fields;
+    if (fields) {
+      query.set('fields', Array.isArray(fields) ? fields.join(',') : String(fields));
+    }
     
     const url = `${API_BASE_URL}/${resource}?${query.toString()}`;
     const json = await fetchJson(url);
@@ -111,23 +126,52 @@ export const customServiceDataProvider: DataProvider = {
   
   update: async (resource, params) => {
     const url = `${API_BASE_URL}/${resource}/${params.id}`;
+    const previous = params.previousData as Record<string, any> | undefined;
+    if (!previous || !LEAD_RESOURCES.includes(resource)) {
+      const data = await fetchJson(url, {
+        method: 'PUT',
+        body: JSON.stringify(params.data),
+      });
+      return { data };
+    }
+
+    // PATCH only what changed; If-Match makes the server reject the write (409)
+    // when someone else saved the lead since it was loaded
+    const changes: Record<string, any> = {};
+    for (const [key, value] of Object.entries(params.data as Record<string, any>)) {
+      if (JSON.stringify(value) !== JSON.stringify(previous[key])) {
+        changes[key] = value;
+      }
+    }
+    if (Object.keys(changes).length === 0) {
+      return { data: previous as any };
+    }
     const data = await fetchJson(url, {
-      method: 'PUT',
-      body: JSON.stringify(params.data),
+      method: 'PATCH',
+      body: JSON.stringify(changes),
+      headers: previous.version != null ? { 'If-Match': `"${params.id}-${previous.version}"` } : {},
     });
     return { data };
   },
   
   updateMany: async (resource, params) => {
-    const results = await Promise.all(
-      params.ids.map(id =>
-        fetchJson(`${API_BASE_URL}/${resource}/${id}`, {
-          method: 'PUT',
-          body: JSON.stringify(params.data),
-        })
-      )
-    );
-    return { data: results.map((_, index) => params.ids[index]) };
+    if (!LEAD_RESOURCES.includes(resource)) {
+      await Promise.all(
+        params.ids.map(id =>
+          fetchJson(`${API_BASE_URL}/${resource}/${id}`, {
+            method: 'PUT',
+            body: JSON.stringify(params.data),
+          })
+        )
+      );
+      return { data: params.ids };
+    }
+    // One set-based UPDATE on the server; returns the ids actually updated
+    const json = await fetchJson(`${API_BASE_URL}/${resource}/bulk-update`, {
+      method: 'POST',
+      body: JSON.stringify({ ids: params.ids, data: params.data }),
+    });
+    return { data: json.data };
   },
   
   delete: async (resource, params) => {
@@ -137,19 +181,32 @@ export const customServiceDataProvider: DataProvider = {
   },
   
   deleteMany: async (resource, params) => {
-    await Promise.all(
-      params.ids.map(id =>
-        fetchJson(`${API_BASE_URL}/${resource}/${id}`, { method: 'DELETE' })
-      )
-    );
-    return { data: params.ids };
+    if (!LEAD_RESOURCES.includes(resource)) {
+      await Promise.all(
+        params.ids.map(id =>
+          fetchJson(`${API_BASE_URL}/${resource}/${id}`, { method: 'DELETE' })
+        )
+      );
+      return { data: params.ids };
+    }
+    const json = await fetchJson(`${API_BASE_URL}/${resource}/bulk-delete`, {
+      method: 'POST',
+      body: JSON.stringify({ ids: params.ids }),
+    });
+    return { data: json.data };
   },
   
   getMany: async (resource, params) => {
-    const results = await Promise.all(
-      params.ids.map(id => fetchJson(`${API_BASE_URL}/${resource}/${id}`))
-    );
-    return { data: results };
+    if (!LEAD_RESOURCES.includes(resource)) {
+      const results = await Promise.all(
+        params.ids.map(id => fetchJson(`${API_BASE_URL}/${resource}/${id}`))
+      );
+      return { data: results };
+    }
+    // One round trip for all ids; missing ids are simply left out, as react-admin expects
+    const query = new URLSearchParams({ ids: params.ids.join(',') });
+    const json = await fetchJson(`${API_BASE_URL}/${resource}/many?${query.toString()}`);
+    return { data: json.data };
   },
   
   getManyReference: async (resource, params) => {
@@ -172,4 +229,16 @@ export const customServiceDataProvider: DataProvider = {
       total: json.total,
     };
   },
+
+  /**
+   * Moves a board card into `stage`, right below the card `afterId` (or to the top of the
+   * column when it is null). The server writes only the moved lead; no other card is renumbered.
+   */
+  moveLead: async (id, params) => {
+    const data = await fetchJson(`${API_BASE_URL}/leads/${id}/move`, {
+      method: 'POST',
+      body: JSON.stringify({ stage: params.stage, after_id: params.afterId }),
+    });
+    return { data };
+  },
 };
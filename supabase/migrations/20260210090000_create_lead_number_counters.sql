@@ -0,0 +1,20 @@
+-- Per-day counter rows used to allocate lead numbers (LEAD-yyyyMMdd-NNNNN) in blocks.
+-- Each service node reserves a block with a single upsert and hands numbers out from memory,
+-- replacing the per-create count over lead_number.
+CREATE TABLE IF NOT EXISTS custom_features.lead_number_counters (
+  day DATE PRIMARY KEY,
+  last_value BIGINT NOT NULL DEFAULT 0
+);
+
+-- Internal to the custom service: no policies, so only privileged roles can read or write it
+ALTER TABLE custom_features.lead_number_counters ENABLE ROW LEVEL SECURITY;
+
+-- Seed counters from lead numbers that were already issued so new blocks start after them
+INSERT INTO custom_features.lead_number_counters (day, last_value)
+SELECT to_date(substring(lead_number from 6 for 8), 'YYYYMMDD'),
+       MAX(substring(lead_number from 15)::BIGINT)
+FROM custom_features.lead_extensions
+WHERE lead_number ~ '^LEAD-[0-9]{8}-[0-9]+$'
+GROUP BY 1
+ON CONFLICT (day) DO UPDATE
+  SET last_value = GREATEST(custom_features.lead_number_counters.last_value, EXCLUDED.last_value);
@@ -0,0 +1,7 @@
+-- Composite (sort key, id) indexes so keyset pagination on the default sort columns
+-- is an index range scan regardless of how deep the page is
+CREATE INDEX IF NOT EXISTS idx_lead_extensions_created_at_id
+  ON custom_features.lead_extensions(created_at, id);
+
+CREATE INDEX IF NOT EXISTS idx_lead_extensions_updated_at_id
+  ON custom_features.lead_extensions(updated_at, id);
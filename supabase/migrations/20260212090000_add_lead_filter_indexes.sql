@@ -0,0 +1,18 @@
+-- Indexes backing the server-side list filters (?filter=) on the common
+-- "my open leads, newest first" shapes
+CREATE INDEX IF NOT EXISTS idx_lead_extensions_status_created_at
+  ON custom_features.lead_extensions(lead_status, created_at, id);
+
+CREATE INDEX IF NOT EXISTS idx_lead_extensions_assigned_to_created_at
+  ON custom_features.lead_extensions(lead_assigned_to, created_at, id);
+
+-- Prefix matches (@prefix and q) compile to LIKE 'abc%', which can only use a
+-- btree index built with the pattern operator class under a non-C collation
+CREATE INDEX IF NOT EXISTS idx_lead_extensions_customer_name_prefix
+  ON custom_features.lead_extensions(customer_name text_pattern_ops);
+
+CREATE INDEX IF NOT EXISTS idx_lead_extensions_contact_number_prefix
+  ON custom_features.lead_extensions(contact_number text_pattern_ops);
+
+CREATE INDEX IF NOT EXISTS idx_lead_extensions_lead_number_prefix
+  ON custom_features.lead_extensions(lead_number text_pattern_ops);
@@ -0,0 +1,4 @@
+-- Row version for optimistic concurrency: every write through the service bumps it,
+-- and PATCH / If-Match only apply when the client's version is still current
+ALTER TABLE custom_features.lead_extensions
+  ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,51 @@
+-- Change watermark for conditional list reads: a single counter row bumped once per statement
+-- that writes lead_extensions. List ETags are derived from it, so an unchanged watermark means
+-- no list page can have changed and the service answers If-None-Match with 304 without
+-- running the page query. The bump is transactional, so readers never see a new watermark
+-- before the rows it covers are visible.
+CREATE TABLE IF NOT EXISTS custom_features.lead_extensions_watermark (
+  id SMALLINT PRIMARY KEY DEFAULT 1 CHECK (id = 1),
+  change_seq BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT INTO custom_features.lead_extensions_watermark (id, change_seq)
+VALUES (1, 0)
+ON CONFLICT (id) DO NOTHING;
+
+-- Internal to the custom service: no policies, so only privileged roles can read or write it
+ALTER TABLE custom_features.lead_extensions_watermark ENABLE ROW LEVEL SECURITY;
+
+-- SECURITY DEFINER so writes made through Supabase by authenticated users still bump it
+CREATE OR REPLACE FUNCTION custom_features.bump_lead_extensions_watermark()
+RETURNS TRIGGER
+LANGUAGE plpgsql
+SECURITY DEFINER
+SET search_path = ''
+AS $$
+BEGIN
+  UPDATE custom_features.lead_extensions_watermark SET change_seq = change_seq + 1 WHERE id = 1;
+  RETURN NULL;
+END;
+$$;
+
+DROP TRIGGER IF EXISTS bump_lead_extensions_watermark ON custom_features.lead_extensions;
+CREATE TRIGGER bump_lead_extensions_watermark
+  AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON custom_features.lead_extensions
+  FOR EACH STATEMENT EXECUTE FUNCTION custom_features.bump_lead_extensions_watermark();
+
+-- Single-lead ETags are "<id>-<version>". The service bumps version itself; this covers
+-- writers that do not (direct Supabase updates), so every change yields a new tag.
+CREATE OR REPLACE FUNCTION custom_features.bump_lead_extension_version()
+RETURNS TRIGGER AS $$
+BEGIN
+  IF NEW.version IS NOT DISTINCT FROM OLD.version THEN
+    NEW.version = OLD.version + 1;
+  END IF;
+  RETURN NEW;
+END;
+$$ language 'plpgsql';
+
+DROP TRIGGER IF EXISTS bump_lead_extensions_version ON custom_features.lead_extensions;
+CREATE TRIGGER bump_lead_extensions_version
+  BEFORE UPDATE ON custom_features.lead_extensions
+  FOR EACH ROW EXECUTE FUNCTION custom_features.bump_lead_extension_version();
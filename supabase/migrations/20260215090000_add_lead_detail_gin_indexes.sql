@@ -0,0 +1,11 @@
+-- GIN indexes backing the loan detail filters (?filter= on keys such as
+-- business_details.type_of_industry). Every such filter compiles to
+-- column @> '{"key": value}', which jsonb_path_ops serves for any key in the
+-- document, so one index per column covers all declared paths (LeadDetailPaths)
+-- and keys added there later. jsonb_path_ops is smaller and faster than the
+-- default jsonb_ops but only supports @>, which is all the service issues.
+CREATE INDEX IF NOT EXISTS idx_lead_extensions_business_details_gin
+  ON custom_features.lead_extensions USING gin (business_details jsonb_path_ops);
+
+CREATE INDEX IF NOT EXISTS idx_lead_extensions_property_details_gin
+  ON custom_features.lead_extensions USING gin (property_details jsonb_path_ops);
@@ -0,0 +1,21 @@
+-- Dispatch state for reminders. Service nodes claim due 'pending' rows in batches with
+-- FOR UPDATE SKIP LOCKED, mark them 'sending' with a lease (claimed_until) and deliver them
+-- outside any transaction. Delivered rows become 'sent'; failures go back to 'pending' with
+-- next_attempt_at pushed out, or to 'failed' once max attempts are used up. Rows whose lease
+-- ran out (the node died mid-batch) are put back to 'pending'.
+ALTER TABLE custom_features.reminders
+  ADD COLUMN IF NOT EXISTS attempts INTEGER NOT NULL DEFAULT 0,
+  ADD COLUMN IF NOT EXISTS next_attempt_at TIMESTAMP,
+  ADD COLUMN IF NOT EXISTS claimed_until TIMESTAMP,
+  ADD COLUMN IF NOT EXISTS last_error TEXT;
+
+-- The claim query walks this in (due_date, id) order; only pending rows are indexed, so
+-- the index stays the size of the backlog rather than of the whole table
+CREATE INDEX IF NOT EXISTS idx_reminders_dispatch
+  ON custom_features.reminders (due_date, id)
+  WHERE status = 'pending';
+
+-- Expired leases are found through this one
+CREATE INDEX IF NOT EXISTS idx_reminders_claimed_until
+  ON custom_features.reminders (claimed_until)
+  WHERE status = 'sending';
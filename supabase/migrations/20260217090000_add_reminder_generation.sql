@@ -0,0 +1,54 @@
+-- Daily generation of birthday and loan top-up reminders with set-based INSERT ... SELECT.
+-- Each statement reads only the contacts or leads that fall due on one day, through the
+-- indexes below, and ON CONFLICT DO NOTHING against the unique indexes makes reruns and
+-- concurrent runs on several nodes create no duplicates.
+
+-- Source data: contact birthdays and loan disbursal dates
+ALTER TABLE public.contacts
+  ADD COLUMN IF NOT EXISTS birthday DATE;
+
+ALTER TABLE custom_features.lead_extensions
+  ADD COLUMN IF NOT EXISTS disbursed_at DATE;
+
+-- Month and day as one integer (MMDD), so "whose birthday is on this day" is an index lookup
+CREATE OR REPLACE FUNCTION custom_features.month_day(d DATE)
+RETURNS INTEGER
+LANGUAGE sql
+IMMUTABLE
+PARALLEL SAFE
+AS $$
+  SELECT (EXTRACT(MONTH FROM d) * 100 + EXTRACT(DAY FROM d))::INTEGER
+$$;
+
+CREATE INDEX IF NOT EXISTS idx_contacts_birthday_month_day
+  ON public.contacts (custom_features.month_day(birthday))
+  WHERE birthday IS NOT NULL;
+
+-- Top-up eligibility is disbursed_at plus a configured number of months; the generator
+-- turns each eligibility day back into a short disbursed_at range
+CREATE INDEX IF NOT EXISTS idx_lead_extensions_disbursed_at
+  ON custom_features.lead_extensions (disbursed_at)
+  WHERE disbursed_at IS NOT NULL;
+
+-- Top-up reminders point at the lead they are about
+ALTER TABLE custom_features.reminders
+  ADD COLUMN IF NOT EXISTS lead_extension_id BIGINT
+    REFERENCES custom_features.lead_extensions(id) ON DELETE CASCADE;
+
+-- At most one reminder of each kind per contact or lead and day
+CREATE UNIQUE INDEX IF NOT EXISTS uq_reminders_birthday
+  ON custom_features.reminders (contact_id, due_date)
+  WHERE type = 'birthday';
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_reminders_loan_topup
+  ON custom_features.reminders (lead_extension_id, due_date)
+  WHERE type = 'loan_topup';
+
+-- Last day each reminder type has been generated through; runs resume from the day after
+CREATE TABLE IF NOT EXISTS custom_features.reminder_generation_watermarks (
+  type VARCHAR(50) PRIMARY KEY,
+  generated_through DATE NOT NULL
+);
+
+-- Internal to the custom service: no policies, so only privileged roles can read or write it
+ALTER TABLE custom_features.reminder_generation_watermarks ENABLE ROW LEVEL SECURITY;
@@ -0,0 +1,25 @@
+-- Sparse ordering keys for the lead board. Cards in a column start 65536 apart, so moving a
+-- card is a single-row UPDATE that gives it a key halfway between its new neighbours; a
+-- column is respaced only once a gap has been halved down to nothing. SMALLINT has no room
+-- for gaps, hence BIGINT.
+ALTER TABLE custom_features.lead_extensions
+  ALTER COLUMN index TYPE BIGINT;
+
+UPDATE custom_features.lead_extensions SET stage = 'new' WHERE stage IS NULL;
+
+UPDATE custom_features.lead_extensions l
+SET index = r.position * 65536
+FROM (
+  SELECT id, ROW_NUMBER() OVER (PARTITION BY stage ORDER BY index NULLS LAST, id) AS position
+  FROM custom_features.lead_extensions
+) r
+WHERE l.id = r.id;
+
+ALTER TABLE custom_features.lead_extensions
+  ALTER COLUMN stage SET NOT NULL,
+  ALTER COLUMN index SET NOT NULL;
+
+-- Cards with equal keys are ordered by id; with id in the index, a card's neighbours are one seek away
+DROP INDEX IF EXISTS custom_features.idx_lead_extensions_stage_index;
+CREATE INDEX IF NOT EXISTS idx_lead_extensions_stage_index
+  ON custom_features.lead_extensions (stage, index, id);
@@ -0,0 +1,110 @@
+-- Pipeline analytics rollups: lead counts and loan_amount_required totals per creation day,
+-- status, product and assignee, kept current by statement-level triggers on lead_extensions.
+-- Each write statement folds its changed rows into per-group deltas and applies them with one
+-- upsert, so bulk writes cost one rollup statement and updates that leave every group as it
+-- was (board moves, detail edits) write nothing. Dashboards group these rows instead of the
+-- leads, and the service reconciles them against lead_extensions periodically.
+CREATE TABLE IF NOT EXISTS custom_features.lead_pipeline_rollups (
+  day DATE NOT NULL,
+  lead_status VARCHAR(50),
+  product VARCHAR(255),
+  lead_assigned_to BIGINT,
+  lead_count BIGINT NOT NULL DEFAULT 0,
+  loan_amount_required NUMERIC(19, 2) NOT NULL DEFAULT 0,
+  CONSTRAINT uq_lead_pipeline_rollups UNIQUE NULLS NOT DISTINCT (day, lead_status, product, lead_assigned_to)
+);
+
+-- Internal to the custom service: no policies, so only privileged roles can read or write it
+ALTER TABLE custom_features.lead_pipeline_rollups ENABLE ROW LEVEL SECURITY;
+
+-- Groups are upserted in key order so concurrent statements lock shared rows in the same order.
+-- SECURITY DEFINER so writes made through Supabase by authenticated users still roll up.
+CREATE OR REPLACE FUNCTION custom_features.apply_lead_pipeline_deltas()
+RETURNS TRIGGER
+LANGUAGE plpgsql
+SECURITY DEFINER
+SET search_path = ''
+AS $$
+BEGIN
+  IF TG_OP = 'TRUNCATE' THEN
+    DELETE FROM custom_features.lead_pipeline_rollups;
+    RETURN NULL;
+  END IF;
+
+  IF TG_OP = 'INSERT' THEN
+    INSERT INTO custom_features.lead_pipeline_rollups AS r
+      (day, lead_status, product, lead_assigned_to, lead_count, loan_amount_required)
+    SELECT created_at::date, lead_status, product, lead_assigned_to, count(*), coalesce(sum(loan_amount_required), 0)
+    FROM new_rows
+    GROUP BY 1, 2, 3, 4
+    ORDER BY 1, 2, 3, 4
+    ON CONFLICT ON CONSTRAINT uq_lead_pipeline_rollups DO UPDATE
+    SET lead_count = r.lead_count + EXCLUDED.lead_count,
+        loan_amount_required = r.loan_amount_required + EXCLUDED.loan_amount_required;
+  ELSIF TG_OP = 'DELETE' THEN
+    INSERT INTO custom_features.lead_pipeline_rollups AS r
+      (day, lead_status, product, lead_assigned_to, lead_count, loan_amount_required)
+    SELECT created_at::date, lead_status, product, lead_assigned_to, -count(*), -coalesce(sum(loan_amount_required), 0)
+    FROM old_rows
+    GROUP BY 1, 2, 3, 4
+    ORDER BY 1, 2, 3, 4
+    ON CONFLICT ON CONSTRAINT uq_lead_pipeline_rollups DO UPDATE
+    SET lead_count = r.lead_count + EXCLUDED.lead_count,
+        loan_amount_required = r.loan_amount_required + EXCLUDED.loan_amount_required;
+  ELSE
+    INSERT INTO custom_features.lead_pipeline_rollups AS r
+      (day, lead_status, product, lead_assigned_to, lead_count, loan_amount_required)
+    SELECT day, lead_status, product, lead_assigned_to, sum(delta), sum(amount)
+    FROM (
+      SELECT created_at::date AS day, lead_status, product, lead_assigned_to,
+             1 AS delta, coalesce(loan_amount_required, 0) AS amount
+      FROM new_rows
+      UNION ALL
+      SELECT created_at::date, lead_status, product, lead_assigned_to,
+             -1, -coalesce(loan_amount_required, 0)
+      FROM old_rows
+    ) changes
+    GROUP BY 1, 2, 3, 4
+    HAVING sum(delta) <> 0 OR sum(amount) <> 0
+    ORDER BY 1, 2, 3, 4
+    ON CONFLICT ON CONSTRAINT uq_lead_pipeline_rollups DO UPDATE
+    SET lead_count = r.lead_count + EXCLUDED.lead_count,
+        loan_amount_required = r.loan_amount_required + EXCLUDED.loan_amount_required;
+  END IF;
+  RETURN NULL;
+END;
+$$;
+
+-- Transition tables are only available to single-event triggers, hence one trigger per event
+DROP TRIGGER IF EXISTS lead_pipeline_rollups_insert ON custom_features.lead_extensions;
+CREATE TRIGGER lead_pipeline_rollups_insert
+  AFTER INSERT ON custom_features.lead_extensions
+  REFERENCING NEW TABLE AS new_rows
+  FOR EACH STATEMENT EXECUTE FUNCTION custom_features.apply_lead_pipeline_deltas();
+
+DROP TRIGGER IF EXISTS lead_pipeline_rollups_update ON custom_features.lead_extensions;
+CREATE TRIGGER lead_pipeline_rollups_update
+  AFTER UPDATE ON custom_features.lead_extensions
+  REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+  FOR EACH STATEMENT EXECUTE FUNCTION custom_features.apply_lead_pipeline_deltas();
+
+DROP TRIGGER IF EXISTS lead_pipeline_rollups_delete ON custom_features.lead_extensions;
+CREATE TRIGGER lead_pipeline_rollups_delete
+  AFTER DELETE ON custom_features.lead_extensions
+  REFERENCING OLD TABLE AS old_rows
+  FOR EACH STATEMENT EXECUTE FUNCTION custom_features.apply_lead_pipeline_deltas();
+
+DROP TRIGGER IF EXISTS lead_pipeline_rollups_truncate ON custom_features.lead_extensions;
+CREATE TRIGGER lead_pipeline_rollups_truncate
+  AFTER TRUNCATE ON custom_features.lead_extensions
+  FOR EACH STATEMENT EXECUTE FUNCTION custom_features.apply_lead_pipeline_deltas();
+
+-- Backfill from the existing leads
+INSERT INTO custom_features.lead_pipeline_rollups
+  (day, lead_status, product, lead_assigned_to, lead_count, loan_amount_required)
+SELECT created_at::date, lead_status, product, lead_assigned_to, count(*), coalesce(sum(loan_amount_required), 0)
+FROM custom_features.lead_extensions
+GROUP BY 1, 2, 3, 4
+ON CONFLICT ON CONSTRAINT uq_lead_pipeline_rollups DO UPDATE
+SET lead_count = EXCLUDED.lead_count,
+    loan_amount_required = EXCLUDED.loan_amount_required;
@@ -0,0 +1,5 @@
+-- "My open leads, newest first" filters on assignee and status together; with only the
+-- (lead_status, created_at, id) and (lead_assigned_to, created_at, id)
+-- indexes one of the two is checked row by row. Equality columns first, then the sort key.
+CREATE INDEX IF NOT EXISTS idx_lead_extensions_assigned_to_status_created_at
+  ON custom_features.lead_extensions(lead_assigned_to, lead_status, created_at, id);
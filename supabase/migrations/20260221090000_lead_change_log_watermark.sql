@@ -0,0 +1,55 @@
+-- The list watermark was one counter row that every statement writing lead_extensions
+-- updated, so the row lock, held until commit, made all lead writes on all nodes run one at
+-- a time (and could deadlock against the pipeline rollup upserts). Statements now append a
+-- row to a change log instead, which locks nothing that other writers touch. The watermark
+-- is the folded count plus the log's row count: a sum, so it moves exactly when a write
+-- commits, whatever order concurrent writes commit in. The service folds the log into the
+-- counter row periodically to keep the count cheap.
+CREATE TABLE IF NOT EXISTS custom_features.lead_extensions_changes (
+  id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY
+);
+
+-- Internal to the custom service: no policies, so only privileged roles can read or write it
+ALTER TABLE custom_features.lead_extensions_changes ENABLE ROW LEVEL SECURITY;
+
+-- SECURITY DEFINER so writes made through Supabase by authenticated users are still logged
+CREATE OR REPLACE FUNCTION custom_features.bump_lead_extensions_watermark()
+RETURNS TRIGGER
+LANGUAGE plpgsql
+SECURITY DEFINER
+SET search_path = ''
+AS $$
+BEGIN
+  INSERT INTO custom_features.lead_extensions_changes DEFAULT VALUES;
+  RETURN NULL;
+END;
+$$;
+
+-- Moves the logged changes into the counter row in one statement, so readers see the same
+-- total before and after. Changes not yet committed are left for the next fold.
+-- Returns the number folded, or -1 if another session is already folding.
+CREATE OR REPLACE FUNCTION custom_features.fold_lead_extensions_changes()
+RETURNS BIGINT
+LANGUAGE plpgsql
+SECURITY DEFINER
+SET search_path = ''
+AS $$
+DECLARE
+  folded BIGINT;
+BEGIN
+  IF NOT pg_try_advisory_xact_lock(hashtext('lead_extensions_changes')) THEN
+    RETURN -1;
+  END IF;
+  WITH deleted AS (
+    DELETE FROM custom_features.lead_extensions_changes RETURNING 1
+  ), counted AS (
+    SELECT count(*) AS n FROM deleted
+  )
+  UPDATE custom_features.lead_extensions_watermark w
+  SET change_seq = w.change_seq + counted.n
+  FROM counted
+  WHERE w.id = 1
+  RETURNING counted.n INTO folded;
+  RETURN coalesce(folded, 0);
+END;
+$$;
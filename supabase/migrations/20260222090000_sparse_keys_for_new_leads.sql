@@ -0,0 +1,22 @@
+-- New leads went into their column with board key 0, so every new or imported card was tied
+-- with the others at the top of 'new'. A move between two of them found no free key and had
+-- to respace the whole column inline, while holding the column lock. New cards now take a
+-- distinct key from a sequence: negative and decreasing, 65536 apart, so the newest card sorts
+-- first in its column, above the respaced keys (which start at 65536), with room for moves
+-- between any two cards. The default covers every insert path: JPA, the import's JDBC batch
+-- and direct Supabase writes.
+CREATE SEQUENCE IF NOT EXISTS custom_features.lead_board_key_seq;
+
+ALTER TABLE custom_features.lead_extensions
+  ALTER COLUMN index SET DEFAULT -nextval('custom_features.lead_board_key_seq') * 65536;
+
+-- Re-key the cards already tied at 0, keeping their order on the board (oldest first)
+UPDATE custom_features.lead_extensions l
+SET index = -k.seq * 65536
+FROM (
+  SELECT id, nextval('custom_features.lead_board_key_seq') AS seq
+  FROM (
+    SELECT id FROM custom_features.lead_extensions WHERE index = 0 ORDER BY stage, id DESC
+  ) tied
+) k
+WHERE l.id = k.id;
@@ -0,0 +1,99 @@
+-- The pipeline rollup triggers upserted one shared row per (day, status, product, assignee)
+-- in the writing transaction, so every lead create of the day for the same group queued on
+-- that row until the previous writer committed, and multi-statement transactions touching
+-- several groups could deadlock. Statements now append their per-group deltas to a log
+-- instead, which locks nothing other writers touch. Readers add the pending deltas to the
+-- rollups, and the service folds the log into the rollups periodically to keep it short.
+CREATE TABLE IF NOT EXISTS custom_features.lead_pipeline_deltas (
+  id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+  day DATE NOT NULL,
+  lead_status VARCHAR(50),
+  product VARCHAR(255),
+  lead_assigned_to BIGINT,
+  lead_count BIGINT NOT NULL,
+  loan_amount_required NUMERIC(19, 2) NOT NULL
+);
+
+-- Internal to the custom service: no policies, so only privileged roles can read or write it
+ALTER TABLE custom_features.lead_pipeline_deltas ENABLE ROW LEVEL SECURITY;
+
+-- SECURITY DEFINER so writes made through Supabase by authenticated users still roll up
+CREATE OR REPLACE FUNCTION custom_features.apply_lead_pipeline_deltas()
+RETURNS TRIGGER
+LANGUAGE plpgsql
+SECURITY DEFINER
+SET search_path = ''
+AS $$
+BEGIN
+  IF TG_OP = 'TRUNCATE' THEN
+    DELETE FROM custom_features.lead_pipeline_deltas;
+    DELETE FROM custom_features.lead_pipeline_rollups;
+    RETURN NULL;
+  END IF;
+
+  IF TG_OP = 'INSERT' THEN
+    INSERT INTO custom_features.lead_pipeline_deltas
+      (day, lead_status, product, lead_assigned_to, lead_count, loan_amount_required)
+    SELECT created_at::date, lead_status, product, lead_assigned_to, count(*), coalesce(sum(loan_amount_required), 0)
+    FROM new_rows
+    GROUP BY 1, 2, 3, 4;
+  ELSIF TG_OP = 'DELETE' THEN
+    INSERT INTO custom_features.lead_pipeline_deltas
+      (day, lead_status, product, lead_assigned_to, lead_count, loan_amount_required)
+    SELECT created_at::date, lead_status, product, lead_assigned_to, -count(*), -coalesce(sum(loan_amount_required), 0)
+    FROM old_rows
+    GROUP BY 1, 2, 3, 4;
+  ELSE
+    INSERT INTO custom_features.lead_pipeline_deltas
+      (day, lead_status, product, lead_assigned_to, lead_count, loan_amount_required)
+    SELECT day, lead_status, product, lead_assigned_to, sum(delta), sum(amount)
+    FROM (
+      SELECT created_at::date AS day, lead_status, product, lead_assigned_to,
+             1 AS delta, coalesce(loan_amount_required, 0) AS amount
+      FROM new_rows
+      UNION ALL
+      SELECT created_at::date, lead_status, product, lead_assigned_to,
+             -1, -coalesce(loan_amount_required, 0)
+      FROM old_rows
+    ) changes
+    GROUP BY 1, 2, 3, 4
+    HAVING sum(delta) <> 0 OR sum(amount) <> 0;
+  END IF;
+  RETURN NULL;
+END;
+$$;
+
+-- Moves the committed deltas into the rollups in one statement, so readers see the same
+-- totals before and after. Deltas not yet committed are left for the next fold.
+-- Returns the number of deltas folded, or -1 if another session is already folding.
+CREATE OR REPLACE FUNCTION custom_features.fold_lead_pipeline_deltas()
+RETURNS BIGINT
+LANGUAGE plpgsql
+SECURITY DEFINER
+SET search_path = ''
+AS $$
+DECLARE
+  folded BIGINT;
+BEGIN
+  IF NOT pg_try_advisory_xact_lock(hashtext('lead_pipeline_deltas')) THEN
+    RETURN -1;
+  END IF;
+  WITH moved AS (
+    DELETE FROM custom_features.lead_pipeline_deltas
+    RETURNING day, lead_status, product, lead_assigned_to, lead_count, loan_amount_required
+  ), applied AS (
+    INSERT INTO custom_features.lead_pipeline_rollups AS r
+      (day, lead_status, product, lead_assigned_to, lead_count, loan_amount_required)
+    SELECT day, lead_status, product, lead_assigned_to, sum(lead_count), sum(loan_amount_required)
+    FROM moved
+    GROUP BY 1, 2, 3, 4
+    HAVING sum(lead_count) <> 0 OR sum(loan_amount_required) <> 0
+    ORDER BY 1, 2, 3, 4
+    ON CONFLICT ON CONSTRAINT uq_lead_pipeline_rollups DO UPDATE
+    SET lead_count = r.lead_count + EXCLUDED.lead_count,
+        loan_amount_required = r.loan_amount_required + EXCLUDED.loan_amount_required
+  )
+  SELECT count(*) INTO folded FROM moved;
+  RETURN folded;
+END;
+$$;